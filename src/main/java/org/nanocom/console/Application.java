@@ -9,20 +9,30 @@ package org.nanocom.console;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArraySet;
 import org.apache.commons.lang3.ArrayUtils;
 import static org.apache.commons.lang3.StringUtils.*;
 import static org.apache.commons.lang3.SystemUtils.*;
+import org.nanocom.console.cache.ResultCache;
+import org.nanocom.console.command.CancellationToken;
 import org.nanocom.console.command.Command;
 import org.nanocom.console.command.HelpCommand;
 import org.nanocom.console.command.ListCommand;
+import org.nanocom.console.event.CommandListenerInterface;
+import org.nanocom.console.event.EventDispatcher;
+import org.nanocom.console.exception.CancelledException;
 import org.nanocom.console.helper.DialogHelper;
 import org.nanocom.console.helper.FormatterHelper;
 import org.nanocom.console.helper.HelperSet;
+import org.nanocom.console.helper.RecordHelper;
 import org.nanocom.console.input.*;
 import org.nanocom.console.output.ConsoleOutput;
 import org.nanocom.console.output.ConsoleOutputInterface;
 import org.nanocom.console.output.OutputInterface;
 import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+import org.nanocom.console.signal.SignalTrap;
+import org.nanocom.console.stats.StatsSinkInterface;
 
 /**
  * An Application is the container for a collection of commands.
@@ -39,15 +49,36 @@ import org.nanocom.console.output.OutputInterface.VerbosityLevel;
  */
 public class Application {
 
-    private Map<String, Command> commands;
-    private boolean wantHelps = false;
-    private Command runningCommand;
+    /**
+     * The status code of a cancelled command, as for a process killed by SIGINT.
+     */
+    public static final int EXIT_CANCELLED = 130;
+
+    private static final List<String> ANSI_OPTIONS           = Arrays.asList("--ansi");
+    private static final List<String> NO_ANSI_OPTIONS        = Arrays.asList("--no-ansi");
+    private static final List<String> HELP_OPTIONS           = Arrays.asList("--help", "-h");
+    private static final List<String> NO_INTERACTION_OPTIONS = Arrays.asList("--no-interaction", "-n");
+    private static final List<String> QUIET_OPTIONS          = Arrays.asList("--quiet", "-q");
+    private static final List<String> VERBOSE_OPTIONS        = Arrays.asList("--verbose", "-v");
+    private static final List<String> VERSION_OPTIONS        = Arrays.asList("--version", "-V");
+
+    private volatile Map<String, Command> commands;
+    // Until the first run, the registry is only seen by the thread filling it
+    private volatile boolean started;
+    // Per thread, so that concurrent runs (scheduler, job queue) do not share them
+    private final ThreadLocal<Boolean> wantHelps = new ThreadLocal<Boolean>();
     private String name;
     private String version;
     private boolean catchExceptions;
     private boolean autoExit;
     private InputDefinition definition;
     private HelperSet helperSet;
+    private EventDispatcher dispatcher;
+    private ResultCache resultCache;
+    private StatsSinkInterface statsSink;
+    private final Set<CancellationToken> runs = new CopyOnWriteArraySet<CancellationToken>();
+    private boolean trapSignals = true;
+    private SignalTrap signalTrap;
 
     /**
      * @param name    The name of the application
@@ -71,6 +102,7 @@ public class Application {
         catchExceptions = true;
         autoExit = true;
         commands = new LinkedHashMap<String, Command>();
+        dispatcher = new EventDispatcher();
         helperSet = getDefaultHelperSet();
         definition = getDefaultInputDefinition();
 
@@ -106,6 +138,16 @@ public class Application {
             output = new ConsoleOutput();
         }
 
+        // Only a process exiting with the application handles the signals
+        if (autoExit && trapSignals) {
+            synchronized (this) {
+                if (null == signalTrap) {
+                    signalTrap = new SignalTrap(this);
+                    signalTrap.install();
+                }
+            }
+        }
+
         int statusCode;
 
         try {
@@ -144,66 +186,231 @@ public class Application {
      * @return 0 if everything went fine, or an error code
      */
     public int doRun(InputInterface input, OutputInterface output) throws RuntimeException {
-        String commandName = getCommandName(input);
-
-        if (true == input.hasParameterOption(Arrays.asList("--ansi"))) {
-            output.setDecorated(true);
-        } else if (true == input.hasParameterOption(Arrays.asList("--no-ansi"))) {
-            output.setDecorated(false);
-        }
-
-        if (true == input.hasParameterOption(Arrays.asList("--help", "-h"))) {
-            if (null == commandName) {
-                commandName = "help";
-                Map<String, String> arrayInputParams = new HashMap<String, String>();
-                arrayInputParams.put("command", "help");
-                try {
-                	input = new ArrayInput(arrayInputParams);
-                } catch (Exception e) {}
-            } else {
-                wantHelps = true;
+        return doRun(null, input, output);
+    }
+
+    /**
+     * Runs a command of the current application with a prepared input.
+     *
+     * The command is not looked up by name, but the run goes through the
+     * same steps as any other: the global options are applied, the
+     * listeners are notified and the command gets a cancellation token.
+     *
+     * @param target The command to run, or null to find it by the name given in the input
+     * @param input  An Input instance
+     * @param output An Output instance
+     *
+     * @return 0 if everything went fine, or an error code
+     */
+    public int doRun(Command target, InputInterface input, OutputInterface output) throws RuntimeException {
+        Command command = null;
+        int statusCode = 1;
+        started = true;
+
+        try {
+            dispatcher.beforeDispatch(input, output);
+
+            try {
+                String commandName = null != target ? target.getName() : getCommandName(input);
+
+                if (input.hasParameterOption(ANSI_OPTIONS)) {
+                    output.setDecorated(true);
+                } else if (input.hasParameterOption(NO_ANSI_OPTIONS)) {
+                    output.setDecorated(false);
+                }
+
+                if (input.hasParameterOption(HELP_OPTIONS)) {
+                    if (null == commandName) {
+                        commandName = "help";
+                        Map<String, String> arrayInputParams = new HashMap<String, String>();
+                        arrayInputParams.put("command", "help");
+                        try {
+                        	input = new ArrayInput(arrayInputParams);
+                        } catch (Exception e) {}
+                    } else {
+                        wantHelps.set(Boolean.TRUE);
+                    }
+                }
+
+                if (input.hasParameterOption(NO_INTERACTION_OPTIONS)) {
+                    input.setInteractive(false);
+                }
+
+                if (null != System.console() && getHelperSet().has("dialog")) {
+                    // TODO
+                    // InputStream inputStream = ((DialogHelper) getHelperSet().get("dialog")).getInputStream();
+                    /*if (!posix_isatty(inputStream)) {
+                        input.setInteractive(false);
+                    }*/
+                }
+
+                if (input.hasParameterOption(QUIET_OPTIONS)) {
+                    output.setVerbosity(VerbosityLevel.QUIET);
+                } else if (input.hasParameterOption(VERBOSE_OPTIONS)) {
+                    output.setVerbosity(VerbosityLevel.VERBOSE);
+                }
+
+                if (input.hasParameterOption(VERSION_OPTIONS)) {
+                    output.writeln(getLongVersion());
+                    statusCode = 0;
+
+                    return statusCode;
+                }
+
+                if (null == commandName) {
+                    commandName = "list";
+                    Map<String, String> arrayInputParams = new HashMap<String, String>();
+                    arrayInputParams.put("command", "list");
+                    input = new ArrayInput(arrayInputParams);
+                }
+
+                // The command name MUST be the first element of the input
+                command = null != target ? wrapHelp(target) : find(commandName);
+            } catch (RuntimeException e) {
+                dispatcher.onException(null, input, output, e);
+
+                throw e;
             }
-        }
 
-        if (true == input.hasParameterOption(Arrays.asList("--no-interaction", "-n"))) {
-            input.setInteractive(false);
-        }
+            // The listener failures are not reported to onException(), which is about the command
+            dispatcher.afterResolve(command, input, output);
 
-        if (null != System.console() && getHelperSet().has("dialog")) {
-            // TODO
-            // InputStream inputStream = ((DialogHelper) getHelperSet().get("dialog")).getInputStream();
-            /*if (!posix_isatty(inputStream)) {
-                input.setInteractive(false);
-            }*/
-        }
+            dispatcher.beforeExecute(command, input, output);
+            try {
+                statusCode = runCommand(command, input, output);
+            } catch (RuntimeException e) {
+                dispatcher.onException(command, input, output, e);
+
+                throw e;
+            }
+            dispatcher.afterExecute(command, input, output, statusCode);
 
-        if (true == input.hasParameterOption(Arrays.asList("--quiet", "-q"))) {
-            output.setVerbosity(VerbosityLevel.QUIET);
-        } else if (true == input.hasParameterOption(Arrays.asList("--verbose", "-v"))) {
-            output.setVerbosity(VerbosityLevel.VERBOSE);
+            return statusCode;
+        } finally {
+            wantHelps.remove();
+            dispatcher.onTerminate(command, input, output, statusCode);
         }
+    }
 
-        if (true == input.hasParameterOption(Arrays.asList("--version", "-V"))) {
-            output.writeln(getLongVersion());
+    /**
+     * Runs a command with its own cancellation token.
+     *
+     * @param command The command
+     * @param input   An InputInterface instance
+     * @param output  An OutputInterface instance
+     *
+     * @return The status code of the command, or EXIT_CANCELLED if it was cancelled
+     */
+    private int runCommand(Command command, InputInterface input, OutputInterface output) {
+        CancellationToken token = new CancellationToken(Thread.currentThread());
+        CancellationToken previous = CancellationToken.attach(token);
+        runs.add(token);
 
-            return 0;
+        try {
+            int statusCode = command.run(input, output);
+
+            return token.isCancelled() ? EXIT_CANCELLED : statusCode;
+        } catch (CancelledException e) {
+            return EXIT_CANCELLED;
+        } finally {
+            token.detach();
+            runs.remove(token);
+            CancellationToken.attach(previous);
+
+            if (token.isCancelled()) {
+                // Clear the interruption of the thread, and write what was buffered
+                Thread.interrupted();
+                if (output instanceof StreamOutput && null != ((StreamOutput) output).getStream()) {
+                    ((StreamOutput) output).getStream().flush();
+                }
+            }
         }
+    }
 
-        if (null == commandName) {
-            commandName = "list";
-            Map<String, String> arrayInputParams = new HashMap<String, String>();
-            arrayInputParams.put("command", "list");
-            input = new ArrayInput(arrayInputParams);
+    /**
+     * Cancels the running commands.
+     *
+     * Their cancellation token is cancelled, and they return EXIT_CANCELLED
+     * once they stopped.
+     */
+    public void cancel() {
+        for (CancellationToken token : runs) {
+            token.cancel();
         }
+    }
 
-        // The command name MUST be the first element of the input
-        Command command = find(commandName);
+    /**
+     * Returns true if some commands are running.
+     *
+     * @return True if some commands are running, false otherwise
+     */
+    public boolean isRunning() {
+        return !runs.isEmpty();
+    }
 
-        runningCommand = command;
-        int statusCode = command.run(input, output);
-        runningCommand = null;
+    /**
+     * Sets whether run() cancels the running commands on SIGINT and SIGTERM.
+     *
+     * Signals are only trapped when auto exit is enabled.
+     *
+     * @param trapSignals Whether to trap the signals
+     */
+    public void setTrapSignals(boolean trapSignals) {
+        this.trapSignals = trapSignals;
+    }
 
-        return statusCode;
+    /**
+     * Registers a command lifecycle listener.
+     *
+     * @param listener A CommandListenerInterface instance
+     */
+    public void addListener(CommandListenerInterface listener) {
+        dispatcher.addListener(listener);
+    }
+
+    /**
+     * Gets the dispatcher of the command lifecycle events.
+     *
+     * @return An EventDispatcher instance
+     */
+    public EventDispatcher getEventDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Sets the cache replaying the results of the cacheable commands.
+     *
+     * @param resultCache A ResultCache instance, or null to disable caching
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Gets the cache replaying the results of the cacheable commands.
+     *
+     * @return A ResultCache instance, or null if caching is disabled
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Sets the sink receiving the resources used by each command run.
+     *
+     * @param statsSink A StatsSinkInterface instance, or null to disable accounting
+     */
+    public void setStatsSink(StatsSinkInterface statsSink) {
+        this.statsSink = statsSink;
+    }
+
+    /**
+     * Gets the sink receiving the resources used by each command run.
+     *
+     * @return A StatsSinkInterface instance, or null if accounting is disabled
+     */
+    public StatsSinkInterface getStatsSink() {
+        return statsSink;
     }
 
     /**
@@ -267,6 +474,15 @@ public class Application {
         this.catchExceptions = catchExceptions;
     }
 
+    /**
+     * Returns whether exceptions are caught during commands execution.
+     *
+     * @return Whether to catch exceptions or not during commands execution
+     */
+    public boolean isCatchExceptions() {
+        return catchExceptions;
+    }
+
     /**
      * Sets whether to automatically exit after a command execution or not.
      *
@@ -276,6 +492,15 @@ public class Application {
         this.autoExit = autoExit;
     }
 
+    /**
+     * Returns whether the application automatically exits after a command execution.
+     *
+     * @return Whether to automatically exit after a command execution or not
+     */
+    public boolean isAutoExit() {
+        return autoExit;
+    }
+
     /**
      * Gets the name of the application.
      *
@@ -342,9 +567,7 @@ public class Application {
      * @param commands An array of commands
      */
     public void addCommands(Collection<Command> commands) {
-        for (Command command : commands) {
-            add(command);
-        }
+        replace(Collections.<Command>emptyList(), commands);
     }
 
     /**
@@ -357,21 +580,67 @@ public class Application {
      * @return The registered command
      */
     public Command add(Command command) {
+        if (!attach(command)) {
+            return null;
+        }
+
+        swap(Collections.<Command>emptyList(), Collections.singletonList(command));
+
+        return command;
+    }
+
+    /**
+     * Atomically removes some commands and adds others.
+     *
+     * Once the application ran, the registry is copied on write: a command
+     * looked up before the replacement keeps running, the lookups made after
+     * it see the new commands only. Before that, it is updated in place.
+     *
+     * @param removed The commands to remove
+     * @param added   The commands to add
+     */
+    public void replace(Collection<Command> removed, Collection<Command> added) {
+        List<Command> enabled = new ArrayList<Command>();
+        for (Command command : added) {
+            if (attach(command)) {
+                enabled.add(command);
+            }
+        }
+
+        swap(removed, enabled);
+    }
+
+    private boolean attach(Command command) {
         command.setApplication(this);
 
         if (!command.isEnabled()) {
             command.setApplication(null);
 
-            return null;
+            return false;
         }
 
-        commands.put(command.getName(), command);
+        return true;
+    }
+
+    private synchronized void swap(Collection<Command> removed, Collection<Command> added) {
+        Map<String, Command> copy = started ? new LinkedHashMap<String, Command>(commands) : commands;
 
-        for (String alias : command.getAliases()) {
-            commands.put(alias, command);
+        if (!removed.isEmpty()) {
+            Set<Command> gone = Collections.newSetFromMap(new IdentityHashMap<Command, Boolean>());
+            gone.addAll(removed);
+            // Only remove the names which still point to the removed commands
+            copy.values().removeAll(gone);
         }
 
-        return command;
+        for (Command command : added) {
+            copy.put(command.getName(), command);
+
+            for (String alias : command.getAliases()) {
+                copy.put(alias, command);
+            }
+        }
+
+        commands = copy;
     }
 
     /**
@@ -384,14 +653,24 @@ public class Application {
      * @throws IllegalArgumentException When command name given does not exist
      */
     public Command get(String name) throws IllegalArgumentException {
-        if (!commands.containsKey(name)) {
+        Command command = commands.get(name);
+        if (null == command) {
             throw new IllegalArgumentException(String.format("The command \"%s\" does not exist.", name));
         }
 
-        Command command = commands.get(name);
+        return wrapHelp(command);
+    }
 
-        if (wantHelps) {
-            wantHelps = false;
+    /**
+     * Returns the help of a command if it was requested, the command otherwise.
+     *
+     * @param command A Command object
+     *
+     * @return A Command object
+     */
+    private Command wrapHelp(Command command) {
+        if (Boolean.TRUE.equals(wantHelps.get())) {
+            wantHelps.remove();
 
             HelpCommand helpCommand = (HelpCommand) get("help");
             helpCommand.setCommand(command);
@@ -780,7 +1059,8 @@ public class Application {
     protected HelperSet getDefaultHelperSet() {
         return new HelperSet(Arrays.asList(
             new FormatterHelper(),
-            new DialogHelper()
+            new DialogHelper(),
+            new RecordHelper()
         ));
     }
 
@@ -0,0 +1,48 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a field of a ConsoleCommand to an argument.
+ *
+ * Arguments are declared in field order. Supported field types are String,
+ * int, long, double (and their wrappers) and List<String>, which declares
+ * an array argument.
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Argument {
+
+    /**
+     * The argument name, the field name by default.
+     */
+    String name() default "";
+
+    /**
+     * Whether the argument is required.
+     */
+    boolean required() default false;
+
+    /**
+     * The argument description.
+     */
+    String description() default "";
+
+    /**
+     * The default value, none if empty.
+     */
+    String defaultValue() default "";
+}
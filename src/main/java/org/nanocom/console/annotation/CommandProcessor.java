@@ -0,0 +1,473 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.annotation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import static org.apache.commons.lang3.StringUtils.*;
+
+/**
+ * The CommandProcessor generates the code of the ConsoleCommand annotated classes.
+ *
+ * For each annotated class Foo, it generates a FooImpl subclass which:
+ *
+ *  * builds the name, description, aliases and definition in straight-line
+ *    code, without reflection;
+ *  * copies the bound input into the annotated fields, converted to their
+ *    type, before running execute().
+ *
+ * It also generates a ConsoleCommands class per package, whose
+ * createCommands() method instantiates all the commands of the package.
+ *
+ * Enable it with the javac -processor option:
+ *
+ *     javac -processor org.nanocom.console.annotation.CommandProcessor ...
+ *
+ */
+@SupportedAnnotationTypes("org.nanocom.console.annotation.ConsoleCommand")
+public class CommandProcessor extends AbstractProcessor {
+
+    public static final String IMPL_SUFFIX = "Impl";
+    public static final String REGISTRY_NAME = "ConsoleCommands";
+
+    private static final String COMMAND_CLASS = "org.nanocom.console.command.Command";
+
+    private final Set<String> generatedRegistries = new HashSet<String>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<String, List<String>> registries = new LinkedHashMap<String, List<String>>();
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(ConsoleCommand.class)) {
+            TypeElement type = (TypeElement) element;
+            if (!isValid(type)) {
+                continue;
+            }
+
+            List<Binding> bindings = getBindings(type);
+            if (null == bindings) {
+                continue;
+            }
+
+            String packageName = getPackageName(type);
+            generate(type, packageName, bindings);
+
+            if (!registries.containsKey(packageName)) {
+                registries.put(packageName, new ArrayList<String>());
+            }
+            registries.get(packageName).add(type.getSimpleName() + IMPL_SUFFIX);
+        }
+
+        for (Map.Entry<String, List<String>> registry : registries.entrySet()) {
+            if (generatedRegistries.add(registry.getKey())) {
+                generateRegistry(registry.getKey(), registry.getValue());
+            } else {
+                error(null, String.format("The commands of the package \"%s\" must be compiled at once.", registry.getKey()));
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isValid(TypeElement type) {
+        if (ElementKind.CLASS != type.getKind() || NestingKind.TOP_LEVEL != type.getNestingKind()) {
+            error(type, "A @ConsoleCommand must be a top-level class.");
+
+            return false;
+        }
+
+        if (!type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "A @ConsoleCommand must be abstract, its generated subclass is the command to instantiate.");
+
+            return false;
+        }
+
+        TypeElement command = processingEnv.getElementUtils().getTypeElement(COMMAND_CLASS);
+        if (!processingEnv.getTypeUtils().isSubtype(type.asType(), command.asType())) {
+            error(type, "A @ConsoleCommand must extend " + COMMAND_CLASS + ".");
+
+            return false;
+        }
+
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+
+        error(type, "A @ConsoleCommand must have a non-private constructor without parameters.");
+
+        return false;
+    }
+
+    private List<Binding> getBindings(TypeElement type) {
+        List<Binding> bindings = new ArrayList<Binding>();
+        boolean valid = true;
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Argument argument = field.getAnnotation(Argument.class);
+            Option option = field.getAnnotation(Option.class);
+            if (null == argument && null == option) {
+                continue;
+            }
+
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) {
+                error(field, "A bound field cannot be private, final or static.");
+                valid = false;
+                continue;
+            }
+
+            if (null != argument && null != option) {
+                error(field, "A field cannot be bound to both an argument and an option.");
+                valid = false;
+                continue;
+            }
+
+            Binding binding = null != argument ? createArgumentBinding(field, argument) : createOptionBinding(field, option);
+            if (null == binding) {
+                valid = false;
+            } else {
+                bindings.add(binding);
+            }
+        }
+
+        return valid ? bindings : null;
+    }
+
+    private Binding createArgumentBinding(VariableElement field, Argument argument) {
+        String type = getType(field);
+        if (null == type || "boolean".equals(type)) {
+            error(field, String.format("The type \"%s\" is not supported for an argument.", field.asType()));
+
+            return null;
+        }
+
+        Binding binding = new Binding(field.getSimpleName().toString(), type, false);
+        binding.name = isEmpty(argument.name()) ? binding.field : argument.name();
+        binding.mode = argument.required() ? "InputArgument.REQUIRED" : "InputArgument.OPTIONAL";
+        if ("list".equals(type)) {
+            binding.mode += " | InputArgument.IS_ARRAY";
+        }
+        binding.description = argument.description();
+        binding.defaultValue = argument.defaultValue();
+
+        return binding;
+    }
+
+    private Binding createOptionBinding(VariableElement field, Option option) {
+        String type = getType(field);
+        if (null == type) {
+            error(field, String.format("The type \"%s\" is not supported for an option.", field.asType()));
+
+            return null;
+        }
+
+        Binding binding = new Binding(field.getSimpleName().toString(), type, true);
+        binding.name = isEmpty(option.name()) ? toDashed(binding.field) : option.name();
+        binding.shortcut = option.shortcut();
+        if ("boolean".equals(type)) {
+            binding.mode = "InputOption.VALUE_NONE";
+        } else if ("list".equals(type)) {
+            binding.mode = "InputOption.VALUE_REQUIRED | InputOption.VALUE_IS_ARRAY";
+        } else {
+            binding.mode = option.valueRequired() ? "InputOption.VALUE_REQUIRED" : "InputOption.VALUE_OPTIONAL";
+        }
+        binding.description = option.description();
+        binding.defaultValue = option.defaultValue();
+
+        if ("boolean".equals(type) && !isEmpty(binding.defaultValue)) {
+            error(field, "An option without value cannot have a default value.");
+
+            return null;
+        }
+
+        return binding;
+    }
+
+    /**
+     * Maps a field type to the conversion applied to its value.
+     */
+    private String getType(VariableElement field) {
+        TypeMirror mirror = field.asType();
+        String name = mirror.toString();
+
+        if ("java.lang.String".equals(name)) {
+            return "string";
+        } else if ("boolean".equals(name) || "java.lang.Boolean".equals(name)) {
+            return "boolean";
+        } else if ("int".equals(name) || "java.lang.Integer".equals(name)) {
+            return "int";
+        } else if ("long".equals(name) || "java.lang.Long".equals(name)) {
+            return "long";
+        } else if ("double".equals(name) || "java.lang.Double".equals(name)) {
+            return "double";
+        } else if ("java.util.List<java.lang.String>".equals(name)) {
+            return "list";
+        }
+
+        return null;
+    }
+
+    private void generate(TypeElement type, String packageName, List<Binding> bindings) {
+        ConsoleCommand annotation = type.getAnnotation(ConsoleCommand.class);
+        String simpleName = type.getSimpleName().toString();
+        String implName = simpleName + IMPL_SUFFIX;
+
+        StringBuilder sb = new StringBuilder();
+        if (!isEmpty(packageName)) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("import java.util.Arrays;\n");
+        sb.append("import java.util.List;\n");
+        sb.append("import org.nanocom.console.input.InputArgument;\n");
+        sb.append("import org.nanocom.console.input.InputDefinition;\n");
+        sb.append("import org.nanocom.console.input.InputInterface;\n");
+        sb.append("import org.nanocom.console.input.InputOption;\n");
+        sb.append("import org.nanocom.console.output.OutputInterface;\n\n");
+        sb.append("/**\n * Generated by ").append(getClass().getName()).append(" from ").append(simpleName).append(", do not edit.\n */\n");
+        sb.append("public final class ").append(implName).append(" extends ").append(simpleName).append(" {\n\n");
+
+        // Definition
+        sb.append("    @Override\n");
+        sb.append("    protected void configure() {\n");
+        sb.append("        setName(").append(literal(annotation.name())).append(");\n");
+        sb.append("        setDescription(").append(literal(annotation.description())).append(");\n");
+        if (!isEmpty(annotation.help())) {
+            sb.append("        setHelp(").append(literal(annotation.help())).append(");\n");
+        }
+        if (0 != annotation.aliases().length) {
+            sb.append("        setAliases(Arrays.asList(");
+            for (int i = 0; i < annotation.aliases().length; i++) {
+                sb.append(0 == i ? "" : ", ").append(literal(annotation.aliases()[i]));
+            }
+            sb.append("));\n");
+        }
+        sb.append("        setDefinition(new InputDefinition(Arrays.<Object>asList(");
+        for (int i = 0; i < bindings.size(); i++) {
+            Binding binding = bindings.get(i);
+            sb.append(0 == i ? "\n" : ",\n");
+            if (binding.option) {
+                sb.append(String.format("            new InputOption(%s, %s, %s, %s, %s)",
+                    literal(binding.name),
+                    isEmpty(binding.shortcut) ? "null" : literal(binding.shortcut),
+                    binding.mode,
+                    literal(binding.description),
+                    defaultValue(binding)
+                ));
+            } else {
+                sb.append(String.format("            new InputArgument(%s, %s, %s, %s)",
+                    literal(binding.name),
+                    binding.mode,
+                    literal(binding.description),
+                    defaultValue(binding)
+                ));
+            }
+        }
+        sb.append(bindings.isEmpty() ? ")));\n" : "\n        )));\n");
+        sb.append("        super.configure();\n");
+        sb.append("    }\n\n");
+
+        // Binding
+        sb.append("    @Override\n");
+        sb.append("    @SuppressWarnings(\"unchecked\")\n");
+        sb.append("    protected int execute(InputInterface input, OutputInterface output) {\n");
+        if (!bindings.isEmpty()) {
+            sb.append("        Object value;\n");
+        }
+        for (Binding binding : bindings) {
+            String getter = String.format("input.%s(%s)", binding.option ? "getOption" : "getArgument", literal(binding.name));
+            if ("boolean".equals(binding.type)) {
+                sb.append(String.format("        %s = Boolean.TRUE.equals(%s);\n", binding.field, getter));
+                continue;
+            }
+
+            sb.append(String.format("        value = %s;\n", getter));
+            sb.append("        if (null != value) {\n");
+            if ("string".equals(binding.type)) {
+                sb.append(String.format("            %s = value.toString();\n", binding.field));
+            } else if ("int".equals(binding.type)) {
+                sb.append(String.format("            %s = Integer.parseInt(value.toString());\n", binding.field));
+            } else if ("long".equals(binding.type)) {
+                sb.append(String.format("            %s = Long.parseLong(value.toString());\n", binding.field));
+            } else if ("double".equals(binding.type)) {
+                sb.append(String.format("            %s = Double.parseDouble(value.toString());\n", binding.field));
+            } else {
+                sb.append(String.format("            %s = value instanceof List ? (List<String>) value : Arrays.asList(value.toString());\n", binding.field));
+            }
+            sb.append("        }\n");
+        }
+        sb.append("\n        return super.execute(input, output);\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        write(isEmpty(packageName) ? implName : packageName + "." + implName, sb.toString(), type);
+    }
+
+    private void generateRegistry(String packageName, List<String> implNames) {
+        StringBuilder sb = new StringBuilder();
+        if (!isEmpty(packageName)) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("import java.util.ArrayList;\n");
+        sb.append("import java.util.List;\n");
+        sb.append("import org.nanocom.console.command.Command;\n\n");
+        sb.append("/**\n * Generated by ").append(getClass().getName()).append(", do not edit.\n */\n");
+        sb.append("public final class ").append(REGISTRY_NAME).append(" {\n\n");
+        sb.append("    private ").append(REGISTRY_NAME).append("() {\n    }\n\n");
+        sb.append("    public static List<Command> createCommands() {\n");
+        sb.append("        List<Command> commands = new ArrayList<Command>();\n");
+        for (String implName : implNames) {
+            sb.append("        commands.add(new ").append(implName).append("());\n");
+        }
+        sb.append("\n        return commands;\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        write(isEmpty(packageName) ? REGISTRY_NAME : packageName + "." + REGISTRY_NAME, sb.toString(), null);
+    }
+
+    private void write(String className, String source, Element origin) {
+        Writer writer = null;
+        try {
+            writer = processingEnv.getFiler().createSourceFile(className, origin).openWriter();
+            writer.write(source);
+        } catch (IOException e) {
+            error(origin, String.format("Unable to write \"%s\": %s", className, e.getMessage()));
+        } finally {
+            if (null != writer) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    private void error(Element element, String message) {
+        Messager messager = processingEnv.getMessager();
+        if (null == element) {
+            messager.printMessage(Diagnostic.Kind.ERROR, message);
+        } else {
+            messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+        }
+    }
+
+    private String getPackageName(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+
+        return packageElement.isUnnamed() ? EMPTY : packageElement.getQualifiedName().toString();
+    }
+
+    private static String defaultValue(Binding binding) {
+        if (isEmpty(binding.defaultValue)) {
+            return "null";
+        }
+
+        return "list".equals(binding.type) ? "Arrays.asList(" + literal(binding.defaultValue) + ")" : literal(binding.defaultValue);
+    }
+
+    private static String toDashed(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : name.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                sb.append('-').append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+
+    /**
+     * A field bound to an argument or an option.
+     */
+    private static class Binding {
+
+        private final String field;
+        private final String type;
+        private final boolean option;
+        private String name;
+        private String shortcut;
+        private String mode;
+        private String description;
+        private String defaultValue;
+
+        Binding(String field, String type, boolean option) {
+            this.field = field;
+            this.type = type;
+            this.option = option;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a command whose definition and binding are generated at compile time.
+ *
+ * The annotated class must be an abstract, top-level subclass of Command.
+ * The CommandProcessor generates a concrete "Impl" subclass of it, and a
+ * ConsoleCommands registry for its package.
+ *
+ * Usage:
+ *
+ *     @ConsoleCommand(name = "greet", description = "Greets someone")
+ *     public abstract class GreetCommand extends Command {
+ *
+ *         @Argument(required = true, description = "Who to greet")
+ *         String who;
+ *
+ *         @Option(shortcut = "y", description = "Yell")
+ *         boolean yell;
+ *
+ *         @Override
+ *         protected int execute(InputInterface input, OutputInterface output) {
+ *             ...
+ *         }
+ *     }
+ *
+ *     application.addCommands(ConsoleCommands.createCommands());
+ *
+ * @see CommandProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface ConsoleCommand {
+
+    /**
+     * The command name.
+     */
+    String name();
+
+    /**
+     * The command description.
+     */
+    String description() default "";
+
+    /**
+     * The command help.
+     */
+    String help() default "";
+
+    /**
+     * The command aliases.
+     */
+    String[] aliases() default {};
+}
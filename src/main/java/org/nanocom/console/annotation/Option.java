@@ -0,0 +1,53 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a field of a ConsoleCommand to an option.
+ *
+ * A boolean field declares an option without value, a List<String> field
+ * an option accepting several values. Other supported field types are
+ * String, int, long, double and their wrappers.
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Option {
+
+    /**
+     * The option name, the field name in dashed form ("dryRun" gives "dry-run") by default.
+     */
+    String name() default "";
+
+    /**
+     * The option shortcut, none if empty.
+     */
+    String shortcut() default "";
+
+    /**
+     * Whether the option requires a value when given.
+     */
+    boolean valueRequired() default false;
+
+    /**
+     * The option description.
+     */
+    String description() default "";
+
+    /**
+     * The default value, none if empty.
+     */
+    String defaultValue() default "";
+}
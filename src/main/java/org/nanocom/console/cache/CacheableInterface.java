@@ -0,0 +1,33 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.cache;
+
+/**
+ * CacheableInterface is implemented by the commands whose result can be cached.
+ *
+ * Such a command must be a pure function of its arguments and options: its
+ * status code and output are replayed from the ResultCache of the application
+ * when it is run again with the same input, without being executed.
+ *
+ */
+public interface CacheableInterface {
+
+    /**
+     * Gets the version of the command, which must change whenever its output does.
+     *
+     * @return The version
+     */
+    String getCacheVersion();
+
+    /**
+     * Gets how long a result stays valid.
+     *
+     * @return The time to live, in milliseconds
+     */
+    long getCacheTtl();
+}
@@ -0,0 +1,388 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.cache;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.TeeOutputStream;
+import org.nanocom.console.command.CancellationToken;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.ArgumentStream;
+import org.nanocom.console.input.FileValue;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.StreamOutput;
+
+/**
+ * The ResultCache stores the status code and raw output of cacheable commands on disk.
+ *
+ * Results are keyed on the command name and version, and on the bound
+ * arguments and options. Each result is a file holding its expiration
+ * date, status code and output bytes. The output is captured to that file
+ * while the command writes it, so that it is never held in memory.
+ *
+ * Expired results are deleted when read. Once the cache grows beyond its
+ * maximum size, the least recently used results are evicted.
+ *
+ * Only the successful runs of the commands writing to a StreamOutput are
+ * cached, since their raw output can be captured and replayed. The command
+ * looks its result up once its input is bound.
+ *
+ */
+public class ResultCache {
+
+    private static final String EXTENSION = ".result";
+    private static final int HEADER_SIZE = 12;
+
+    private final File directory;
+    private final long maxSize;
+
+    /**
+     * @param directory The directory storing the results
+     * @param maxSize   The maximum size of the cache, in bytes
+     */
+    public ResultCache(File directory, long maxSize) {
+        if (null == directory) {
+            throw new IllegalArgumentException("The cache directory cannot be null.");
+        }
+
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be positive.");
+        }
+
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns true if the result of a command run can be cached.
+     *
+     * The input must hold plain values: streamed arguments and file values
+     * are read by the command, so they cannot be part of the key.
+     *
+     * @param command The command
+     * @param input   A bound InputInterface instance
+     * @param output  An OutputInterface instance
+     *
+     * @return True if the result can be cached, false otherwise
+     */
+    public boolean supports(Command command, InputInterface input, OutputInterface output) {
+        if (!(command instanceof CacheableInterface) || !(output instanceof StreamOutput) || null == ((StreamOutput) output).getStream()) {
+            return false;
+        }
+
+        return isPlain(input.getArguments().values()) && isPlain(input.getOptions().values());
+    }
+
+    /**
+     * Replays a cached result.
+     *
+     * @param key    The key of the result
+     * @param output A StreamOutput instance
+     *
+     * @return The status code of the result, or null if there is no valid result
+     */
+    public Integer replay(String key, OutputInterface output) {
+        File file = new File(directory, key + EXTENSION);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        PrintStream stream = ((StreamOutput) output).getStream();
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            DataInputStream data = new DataInputStream(in);
+            long expiresAt = data.readLong();
+            int statusCode = data.readInt();
+
+            if (expiresAt < System.currentTimeMillis()) {
+                IOUtils.closeQuietly(in);
+                file.delete();
+
+                return null;
+            }
+
+            IOUtils.copy(in, stream);
+            stream.flush();
+            file.setLastModified(System.currentTimeMillis());
+
+            return statusCode;
+        } catch (IOException e) {
+            // A corrupted result is run again
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Starts recording the output of a command run.
+     *
+     * @param key    The key of the result
+     * @param ttl    The time to live of the result, in milliseconds
+     * @param output A StreamOutput instance
+     *
+     * @return A Recording instance, or null if the cache is not writable
+     */
+    public Recording record(String key, long ttl, OutputInterface output) {
+        try {
+            return new Recording(key, ttl, (StreamOutput) output);
+        } catch (IOException e) {
+            // The cache is not writable, run the command anyway
+            return null;
+        }
+    }
+
+    /**
+     * Deletes all the results.
+     */
+    public synchronized void clear() {
+        for (File file : listResults()) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Computes the key of a result.
+     *
+     * Each value is written with its length, and null with its own marker,
+     * so that two different inputs never give the same key.
+     *
+     * @param command A cacheable command
+     * @param input   A bound InputInterface instance
+     * @param output  An OutputInterface instance
+     *
+     * @return The key
+     */
+    public String getKey(Command command, InputInterface input, OutputInterface output) {
+        StringBuilder sb = new StringBuilder();
+        encode(command.getName(), sb);
+        encode(((CacheableInterface) command).getCacheVersion(), sb);
+        encode(output.getVerbosity(), sb);
+        encode(output.isDecorated(), sb);
+        encode(new TreeMap<String, Object>(input.getArguments()), sb);
+        encode(new TreeMap<String, Object>(input.getOptions()), sb);
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void encode(Object value, StringBuilder sb) {
+        if (null == value) {
+            sb.append('N');
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            sb.append('M').append(map.size()).append(':');
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                encode(entry.getKey(), sb);
+                encode(entry.getValue(), sb);
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            sb.append('L').append(values.size()).append(':');
+            for (Object element : values) {
+                encode(element, sb);
+            }
+        } else {
+            String string = value.toString();
+            sb.append('S').append(string.length()).append(':').append(string);
+        }
+    }
+
+    private static boolean isPlain(Collection<?> values) {
+        for (Object value : values) {
+            if (value instanceof ArgumentStream || value instanceof FileValue) {
+                return false;
+            }
+            if (value instanceof Collection && !isPlain((Collection<?>) value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * A result being recorded, while the command writes its output.
+     */
+    public class Recording {
+
+        private final String key;
+        private final long ttl;
+        private final File file;
+        private final OutputStream out;
+        private final PrintStream tee;
+        private final StreamOutput output;
+        private boolean closed;
+
+        private Recording(String key, long ttl, StreamOutput output) throws IOException {
+            this.key = key;
+            this.ttl = ttl;
+            FileUtils.forceMkdir(directory);
+            file = File.createTempFile(key, ".tmp", directory);
+            out = new FileOutputStream(file);
+            out.write(new byte[HEADER_SIZE]);
+            tee = new PrintStream(new TeeOutputStream(output.getStream(), out), true);
+            this.output = new StreamOutput(tee, output.getVerbosity(), output.isDecorated(), output.getFormatter());
+        }
+
+        /**
+         * Returns the output to give to the command.
+         *
+         * @return A StreamOutput instance writing to the original output and to the result
+         */
+        public StreamOutput getOutput() {
+            return output;
+        }
+
+        /**
+         * Stores the result.
+         *
+         * Only the successful runs are stored, cancelled runs are not.
+         *
+         * @param statusCode The status code of the command
+         */
+        public void commit(int statusCode) {
+            if (closed) {
+                return;
+            }
+            if (0 != statusCode || CancellationToken.current().isCancelled()) {
+                discard();
+
+                return;
+            }
+
+            closed = true;
+            boolean stored = false;
+            try {
+                tee.flush();
+                IOUtils.closeQuietly(out);
+
+                RandomAccessFile header = new RandomAccessFile(file, "rw");
+                try {
+                    header.writeLong(System.currentTimeMillis() + ttl);
+                    header.writeInt(statusCode);
+                } finally {
+                    header.close();
+                }
+
+                synchronized (ResultCache.this) {
+                    File result = new File(directory, key + EXTENSION);
+                    result.delete();
+                    stored = file.renameTo(result);
+                    evict(result);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } finally {
+                if (!stored) {
+                    file.delete();
+                }
+            }
+        }
+
+        /**
+         * Throws the result away, unless it was stored.
+         */
+        public void discard() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            tee.flush();
+            IOUtils.closeQuietly(out);
+            file.delete();
+        }
+    }
+
+    /**
+     * Deletes the least recently used results until the cache fits in its maximum size.
+     *
+     * @param current The result just stored, which is kept
+     */
+    private void evict(File current) {
+        File[] files = listResults();
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+
+        if (size <= maxSize) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+
+            @Override
+            public int compare(File a, File b) {
+                long diff = a.lastModified() - b.lastModified();
+
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+
+        for (File file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+
+            if (file.equals(current)) {
+                continue;
+            }
+
+            size -= file.length();
+            file.delete();
+        }
+    }
+
+    private File[] listResults() {
+        File[] files = directory.listFiles();
+        if (null == files) {
+            return new File[0];
+        }
+
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(EXTENSION)) {
+                files[count++] = file;
+            }
+        }
+
+        return Arrays.copyOf(files, count);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.nanocom.console.exception.CancelledException;
+
+/**
+ * A CancellationToken tells a running command that it must stop.
+ *
+ * The application creates a token for each run, cancelled on SIGINT or
+ * SIGTERM or by Application.cancel(). A command gets it from
+ * CancellationToken.current() and either polls it:
+ *
+ *     for (Object item : items) {
+ *         token.throwIfCancelled();
+ *         process(item);
+ *     }
+ *
+ * or registers listeners, run once on cancellation, to release resources.
+ * Cancelling also interrupts the thread running the command, so that it
+ * wakes up from blocking calls.
+ *
+ */
+public class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<CancellationToken>();
+
+    private Thread thread;
+    private final List<Runnable> listeners = new ArrayList<Runnable>();
+    private volatile boolean cancelled;
+
+    /**
+     * @param thread The thread to interrupt on cancellation, or null
+     */
+    public CancellationToken(Thread thread) {
+        this.thread = thread;
+    }
+
+    public CancellationToken() {
+        this(null);
+    }
+
+    /**
+     * Gets the token of the command run by the current thread.
+     *
+     * @return The token, or a token never cancelled if no command is run
+     */
+    public static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+
+        return null == token ? new CancellationToken() : token;
+    }
+
+    /**
+     * Makes a token the one of the current thread.
+     *
+     * @param token The token, or null
+     *
+     * @return The previous token of the current thread, to restore once done
+     */
+    public static CancellationToken attach(CancellationToken token) {
+        CancellationToken previous = CURRENT.get();
+        if (null == token) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(token);
+        }
+
+        return previous;
+    }
+
+    /**
+     * Returns true if the command was cancelled.
+     *
+     * @return True if cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws a CancelledException if the command was cancelled.
+     *
+     * @throws CancelledException When the command was cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancelledException();
+        }
+    }
+
+    /**
+     * Cancels the command.
+     *
+     * The listeners are run once, in registration order, then the thread is interrupted.
+     */
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+
+            cancelled = true;
+            toRun = new ArrayList<Runnable>(listeners);
+            listeners.clear();
+        }
+
+        for (Runnable listener : toRun) {
+            listener.run();
+        }
+
+        synchronized (this) {
+            // The thread is only interrupted while it still runs the command
+            if (null != thread) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Detaches the thread once it stopped running the command.
+     *
+     * A later cancellation no longer interrupts it.
+     */
+    public synchronized void detach() {
+        thread = null;
+    }
+
+    /**
+     * Registers a listener run on cancellation.
+     *
+     * It is run immediately if the command was already cancelled.
+     *
+     * @param listener The listener
+     */
+    public void addListener(Runnable listener) {
+        synchronized (this) {
+            if (!cancelled) {
+                listeners.add(listener);
+
+                return;
+            }
+        }
+
+        listener.run();
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener
+     */
+    public synchronized void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+}
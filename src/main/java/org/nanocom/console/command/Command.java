@@ -7,19 +7,28 @@
 
 package org.nanocom.console.command;
 
+import java.lang.ref.SoftReference;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
 import static org.apache.commons.lang3.StringUtils.*;
 import org.apache.commons.lang3.SystemUtils;
 import org.nanocom.console.Application;
+import org.nanocom.console.cache.CacheableInterface;
+import org.nanocom.console.cache.ResultCache;
 import org.nanocom.console.exception.LogicException;
 import org.nanocom.console.helper.HelperSet;
+import org.nanocom.console.helper.RecordHelper;
+import org.nanocom.console.input.FrozenInputDefinition;
 import org.nanocom.console.input.InputArgument;
 import org.nanocom.console.input.InputDefinition;
 import org.nanocom.console.input.InputInterface;
 import org.nanocom.console.input.InputOption;
+import org.nanocom.console.input.LayeredInputDefinition;
 import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.resource.TextResource;
+import org.nanocom.console.stats.CommandStats;
+import org.nanocom.console.stats.StatsSinkInterface;
 
 /**
  * Base class for all commands.
@@ -28,6 +37,8 @@ import org.nanocom.console.output.OutputInterface;
  */
 public class Command extends Executable {
 
+    private static volatile String jarName;
+
     private Application application;
     private String name;
     private List<String> aliases;
@@ -35,10 +46,16 @@ public class Command extends Executable {
     private String help;
     private String description;
     private Boolean ignoreValidationErrors;
-    private Boolean applicationDefinitionMerged;
+    private volatile LayeredInputDefinition mergedDefinition;
+    private volatile FrozenInputDefinition frozenDefinition;
 	private Executable code;
     private String synopsis;
+    private int synopsisModificationCount;
+    private SoftReference<String> processedHelp;
+    private SoftReference<String> text;
+    private int textModificationCount;
     private HelperSet helperSet;
+    private StatsSinkInterface statsSink;
 
     /**
      * @param name The name of the command
@@ -56,7 +73,6 @@ public class Command extends Executable {
     private void init(String name) {
         definition = new InputDefinition();
         ignoreValidationErrors = false;
-        applicationDefinitionMerged = false;
         aliases = new ArrayList<String>();
 
         if (null != name) {
@@ -86,6 +102,9 @@ public class Command extends Executable {
      */
     public void setApplication(Application application) {
         this.application = application;
+        mergedDefinition = null;
+        frozenDefinition = null;
+        invalidate();
         if (null != application) {
             setHelperSet(application.getHelperSet());
         } else {
@@ -160,6 +179,18 @@ public class Command extends Executable {
         throw new LogicException("You must override the execute() method in the concrete command class.");
     }
 
+    /**
+     * Gets the cancellation token of the current run.
+     *
+     * Long running commands should check it regularly, or register a
+     * listener on it, to stop cleanly when cancelled.
+     *
+     * @return A CancellationToken instance
+     */
+    protected CancellationToken getCancellationToken() {
+        return CancellationToken.current();
+    }
+
     /**
      * Interacts with the user.
      *
@@ -195,19 +226,50 @@ public class Command extends Executable {
      * @see execute()
      */
     public int run(InputInterface input, OutputInterface output) {
-        // Force the creation of the synopsis before the merge with the app definition
-        getSynopsis();
+        StatsSinkInterface sink = getStatsSink();
+        if (null == sink) {
+            return doRun(input, output, null);
+        }
+
+        CommandStats stats = new CommandStats(getName());
+        try {
+            return doRun(input, output, stats);
+        } finally {
+            sink.record(stats, output);
+        }
+    }
+
+    /**
+     * Runs the command, measuring its phases if stats are given.
+     *
+     * @param input  An InputInterface instance
+     * @param output An OutputInterface instance
+     * @param stats  A CommandStats instance, or null
+     *
+     * @return The command exit code
+     */
+    private int doRun(InputInterface input, OutputInterface output, CommandStats stats) {
+        if (null != stats) {
+            stats.begin();
+        }
 
         // Add the application arguments and options
         mergeApplicationDefinition();
 
         // Bind the input against the command specific arguments/options
+        boolean bound = true;
         try {
-            input.bind(this.definition);
+            input.bind(getFrozenDefinition());
         } catch (RuntimeException e) {
             if (!ignoreValidationErrors) {
                 throw e;
             }
+            bound = false;
+        }
+
+        if (null != stats) {
+            stats.end(CommandStats.BIND);
+            stats.begin();
         }
 
         initialize(input, output);
@@ -218,13 +280,74 @@ public class Command extends Executable {
 
         input.validate();
 
-		if (null != code) {
-            return code.execute(input, output);
+        if (null != stats) {
+            stats.end(CommandStats.INTERACT);
+            stats.begin();
         }
 
-        return execute(input, output);
+        // Replay the cached result, or record it. The key is computed once the
+        // user answered the prompts, so that the answers are part of it.
+        ResultCache cache = null == application ? null : application.getResultCache();
+        ResultCache.Recording recording = null;
+        if (bound && null != cache && cache.supports(this, input, output)) {
+            String key = cache.getKey(this, input, output);
+            Integer statusCode = cache.replay(key, output);
+            if (null != statusCode) {
+                if (null != stats) {
+                    stats.end(CommandStats.EXECUTE);
+                }
+
+                return statusCode;
+            }
+
+            recording = cache.record(key, ((CacheableInterface) this).getCacheTtl(), output);
+            if (null != recording) {
+                output = recording.getOutput();
+            }
+        }
+
+        try {
+            int statusCode = null != code ? code.execute(input, output) : execute(input, output);
+
+            if (null != stats) {
+                stats.end(CommandStats.EXECUTE);
+            }
+
+            if (null != recording) {
+                recording.commit(statusCode);
+            }
+
+            return statusCode;
+        } finally {
+            if (null != recording) {
+                recording.discard();
+            }
+        }
     }
 
+    /**
+     * Sets the sink receiving the resources used by each run of this command.
+     *
+     * Accounting is disabled when neither the command nor its application has a sink.
+     *
+     * @param statsSink A StatsSinkInterface instance, or null to use the one of the application
+     */
+    public void setStatsSink(StatsSinkInterface statsSink) {
+        this.statsSink = statsSink;
+    }
+
+    /**
+     * Gets the sink receiving the resources used by each run of this command.
+     *
+     * @return A StatsSinkInterface instance, or null if accounting is disabled
+     */
+    public StatsSinkInterface getStatsSink() {
+        if (null != statsSink) {
+            return statsSink;
+        }
+
+        return null == application ? null : application.getStatsSink();
+    }
 
    /**
 	* Sets the code to execute when running this command.
@@ -241,29 +364,66 @@ public class Command extends Executable {
     public Command setCode(Executable code) {
         this.code = code;
 
+        if (code instanceof RecordExecutable) {
+            ((RecordExecutable) code).setCommand(this);
+        }
+
         return this;
     }
 
     /**
      * Merges the application definition with the command definition.
+     *
+     * The merged definition references the application definition instead
+     * of copying it, so that merging costs the same whatever the number of
+     * commands of the application.
+     *
+     * Synchronized as the same command can be run from several threads (see Scheduler).
      */
-    private void mergeApplicationDefinition() {
-        if (null == application || true == applicationDefinitionMerged) {
+    private synchronized void mergeApplicationDefinition() {
+        if (null == application || null != mergedDefinition) {
             return;
         }
 
-        List<InputArgument> currentArguments = new ArrayList<InputArgument>();
-        currentArguments.addAll(definition.getArguments().values());
-        List<InputArgument> applicationArguments = new ArrayList<InputArgument>();
-        applicationArguments.addAll(application.getDefinition().getArguments().values());
-        definition.setArguments(applicationArguments);
-        definition.addArguments(currentArguments);
+        addFormatOption();
+        mergedDefinition = new LayeredInputDefinition(application.getDefinition(), definition);
+        frozenDefinition = null;
+        text = null;
+    }
 
-        List<InputOption> applicationOptions = new ArrayList<InputOption>();
-        applicationOptions.addAll(application.getDefinition().getOptions().values());
-        definition.addOptions(applicationOptions);
+    /**
+     * Adds the --format option to a command producing records.
+     *
+     * It is left out when the command or the application already defines
+     * an option with the same name.
+     */
+    private void addFormatOption() {
+        if (!(code instanceof RecordExecutable) || definition.hasOption(RecordHelper.FORMAT_OPTION)) {
+            return;
+        }
+        if (null != application && application.getDefinition().hasOption(RecordHelper.FORMAT_OPTION)) {
+            return;
+        }
 
-        applicationDefinitionMerged = true;
+        definition.addOption(new InputOption(RecordHelper.FORMAT_OPTION, null, InputOption.VALUE_REQUIRED, "The format of the records (txt, json, ndjson or csv)."));
+    }
+
+    /**
+     * Gets the compiled definition the input is bound to.
+     *
+     * It is compiled again whenever the definition changed.
+     *
+     * @return A FrozenInputDefinition instance
+     */
+    private FrozenInputDefinition getFrozenDefinition() {
+        InputDefinition current = getDefinition();
+        FrozenInputDefinition frozen = frozenDefinition;
+        if (null == frozen || frozen.isStale(current)) {
+            frozen = current.freeze();
+            frozenDefinition = frozen;
+        }
+
+        return frozen;
     }
 
     /**
@@ -275,13 +435,17 @@ public class Command extends Executable {
      */
     @SuppressWarnings("unchecked")
     public Command setDefinition(Object definition) {
-        if (definition instanceof InputDefinition) {
+        if (definition instanceof LayeredInputDefinition) {
+            this.definition = ((LayeredInputDefinition) definition).getLayer();
+        } else if (definition instanceof InputDefinition) {
             this.definition = (InputDefinition) definition;
         } else if (definition instanceof List) {
             this.definition.setDefinition((List<Object>) definition);
         }
 
-        applicationDefinitionMerged = false;
+        mergedDefinition = null;
+        frozenDefinition = null;
+        invalidate();
 
         return this;
     }
@@ -289,10 +453,14 @@ public class Command extends Executable {
     /**
      * Gets the InputDefinition attached to this Command.
      *
+     * Once the command has run, it includes the application arguments and options.
+     *
      * @return An InputDefinition instance
      */
     public InputDefinition getDefinition() {
-        return definition;
+        LayeredInputDefinition merged = mergedDefinition;
+
+        return null != merged ? merged : definition;
     }
 
     /**
@@ -317,6 +485,7 @@ public class Command extends Executable {
      */
     public void addArgument(String name, int mode, String description, Object defaultValue) {
         definition.addArgument(new InputArgument(name, mode, description, defaultValue));
+        invalidate();
     }
 
     public void addArgument(String name, int mode, String description) {
@@ -342,6 +511,7 @@ public class Command extends Executable {
      */
     public void addOption(String name, String shortcut, int mode, String description, Object defaultValue) {
         definition.addOption(new InputOption(name, shortcut, mode, description, defaultValue));
+        invalidate();
     }
 
     public void addOption(String name, String shortcut, int mode, String description) {
@@ -377,6 +547,7 @@ public class Command extends Executable {
     public void setName(String name) {
         validateName(name);
         this.name = name;
+        invalidate();
     }
 
     /**
@@ -405,18 +576,22 @@ public class Command extends Executable {
      * @return The description for the command
      */
     public String getDescription() {
-        return description;
+        return TextResource.resolve(description, getClass().getClassLoader());
     }
 
     /**
      * Sets the help for the command.
      *
+     * The help, as the description, can reference a resource to load it
+     * only when displayed (see TextResource).
+     *
      * @param help The help for the command
      *
      * @return The current instance
      */
     public void setHelp(String help) {
         this.help = help;
+        invalidate();
     }
 
     /**
@@ -425,36 +600,35 @@ public class Command extends Executable {
      * @return The help for the command
      */
     public String getHelp() {
-        return help;
+        return TextResource.resolve(help, getClass().getClassLoader());
     }
 
     /**
      * Returns the processed help for the command replacing the %command.name% pattern
      * with the real value dynamically.
      *
+     * The result is softly cached until the name or the help of the command
+     * changes, so that it does not stay resident once displayed.
+     *
      * @return The processed help for the command
      */
-    public String getProcessedHelp() {
-        String jar;
-        try {
-            jar = Command.class.getProtectionDomain().getCodeSource().getLocation().toURI().toString();
-        } catch (URISyntaxException e) {
-            jar = "my-jar.jar";
+    public synchronized String getProcessedHelp() {
+        String result = null == processedHelp ? null : processedHelp.get();
+        if (null == result) {
+            String[] placeholders = new String[] {
+                "%command.name%",
+                "%command.full_name%"
+            };
+            String[] replacements = new String[] {
+                name,
+                String.format("%s %s", getJarName(), name)
+            };
+
+            result = replaceEach(getHelp(), placeholders, replacements);
+            processedHelp = new SoftReference<String>(result);
         }
 
-        String[] path = split(jar, SystemUtils.FILE_SEPARATOR);
-        jar = path[path.length - 1];
-
-        String[] placeholders = new String[] {
-            "%command.name%",
-            "%command.full_name%"
-        };
-        String[] replacements = new String[] {
-            name,
-            String.format("%s %s", jar, name)
-        };
-
-        return replaceEach(getHelp(), placeholders, replacements);
+        return result;
     }
 
     /**
@@ -470,6 +644,7 @@ public class Command extends Executable {
         }
 
         this.aliases = aliases;
+        invalidate();
     }
 
     /**
@@ -484,14 +659,18 @@ public class Command extends Executable {
     /**
      * Returns the synopsis for the command.
      *
+     * The synopsis only covers the command definition, not the application one.
+     * It is cached until the command or its definition changes.
+     *
      * @return The synopsis
      */
-    public String getSynopsis() {
-        if (null == synopsis) {
+    public synchronized String getSynopsis() {
+        if (null == synopsis || synopsisModificationCount != definition.getModificationCount()) {
             synopsis = String.format("%s %s", name, definition.getSynopsis()).trim();
+            synopsisModificationCount = definition.getModificationCount();
         }
 
-        return this.synopsis;
+        return synopsis;
     }
 
     /**
@@ -510,9 +689,24 @@ public class Command extends Executable {
     /**
      * Returns a text representation of the command.
      *
+     * It is softly cached until the command or its definition changes.
+     *
      * @return A string representing the command
      */
-    public String asText() {
+    public synchronized String asText() {
+        addFormatOption();
+        InputDefinition nativeDefinition = getNativeDefinition();
+        String result = null == text ? null : text.get();
+        if (null == result || textModificationCount != nativeDefinition.getModificationCount()) {
+            result = renderText(nativeDefinition);
+            text = new SoftReference<String>(result);
+            textModificationCount = nativeDefinition.getModificationCount();
+        }
+
+        return result;
+    }
+
+    private String renderText(InputDefinition nativeDefinition) {
         List<String> messages = new ArrayList<String>();
         messages.add("<comment>Usage:</comment>");
         messages.add(' ' + getSynopsis());
@@ -522,7 +716,7 @@ public class Command extends Executable {
             messages.add("<comment>Aliases:</comment> <info>" + join(getAliases(), ", ") + "</info>");
         }
 
-        messages.add(getNativeDefinition().asText());
+        messages.add(nativeDefinition.asText(getClass().getClassLoader()));
 
         String processedHelp = getProcessedHelp();
         if (null != processedHelp && !processedHelp.isEmpty()) {
@@ -533,6 +727,36 @@ public class Command extends Executable {
         return join(messages, "\n");
     }
 
+    /**
+     * Drops the cached synopsis, processed help and text representation.
+     */
+    private synchronized void invalidate() {
+        synopsis = null;
+        processedHelp = null;
+        text = null;
+    }
+
+    /**
+     * Gets the name of the jar the console is run from, resolved once per process.
+     *
+     * @return The jar name
+     */
+    private static String getJarName() {
+        if (null == jarName) {
+            String jar;
+            try {
+                jar = Command.class.getProtectionDomain().getCodeSource().getLocation().toURI().toString();
+            } catch (URISyntaxException e) {
+                jar = "my-jar.jar";
+            }
+
+            String[] path = split(jar, SystemUtils.FILE_SEPARATOR);
+            jarName = path[path.length - 1];
+        }
+
+        return jarName;
+    }
+
     private void validateName(String name) throws IllegalArgumentException {
         if (isEmpty(name) || !name.matches("^[^\\:]+(\\:[^\\:]+)*$")) {
             throw new IllegalArgumentException(String.format("Command name \"%s\" is invalid.", name));
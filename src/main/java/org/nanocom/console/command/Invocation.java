@@ -0,0 +1,170 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.nanocom.console.Application;
+import org.nanocom.console.input.TypedInput;
+import org.nanocom.console.output.NullOutput;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * Invocation runs a command in-process with typed values.
+ *
+ * The values are bound as they are to the command definition, without
+ * going through string parsing, and the command runs non-interactively.
+ * A command attached to an application runs through it, so that the
+ * listeners are notified and the run can be cancelled.
+ *
+ * Usage:
+ *
+ *     int statusCode = Invocation.of(command)
+ *         .arg("name", "foo")
+ *         .opt("count", 3)
+ *         .opt("force")
+ *         .run(output);
+ *
+ * An invocation can be run several times, but not concurrently.
+ *
+ */
+public class Invocation {
+
+    private final Command command;
+    private final Map<String, Object> arguments = new LinkedHashMap<String, Object>();
+    private final Map<String, Object> options = new LinkedHashMap<String, Object>();
+
+    /**
+     * Constructor.
+     *
+     * @param command The command to run
+     */
+    public Invocation(Command command) {
+        if (null == command) {
+            throw new IllegalArgumentException("The command cannot be null.");
+        }
+
+        this.command = command;
+    }
+
+    /**
+     * Creates an invocation of the given command.
+     *
+     * @param command The command to run
+     *
+     * @return A new Invocation instance
+     */
+    public static Invocation of(Command command) {
+        return new Invocation(command);
+    }
+
+    /**
+     * Sets an argument value.
+     *
+     * @param name  The argument name
+     * @param value The value, a List, an array or a single value for an array argument
+     *
+     * @return The current instance
+     */
+    public Invocation arg(String name, Object value) {
+        arguments.put(name, value);
+
+        return this;
+    }
+
+    /**
+     * Sets the values of an array argument.
+     *
+     * @param name   The argument name
+     * @param values The values
+     *
+     * @return The current instance
+     */
+    public Invocation arg(String name, Object... values) {
+        arguments.put(name, Arrays.asList(values));
+
+        return this;
+    }
+
+    /**
+     * Sets an option value.
+     *
+     * @param name  The option name, without the dashes
+     * @param value The value, a List, an array or a single value for an array option
+     *
+     * @return The current instance
+     */
+    public Invocation opt(String name, Object value) {
+        options.put(name, value);
+
+        return this;
+    }
+
+    /**
+     * Sets the values of an array option.
+     *
+     * @param name   The option name, without the dashes
+     * @param values The values
+     *
+     * @return The current instance
+     */
+    public Invocation opt(String name, Object... values) {
+        options.put(name, Arrays.asList(values));
+
+        return this;
+    }
+
+    /**
+     * Sets a flag, or an option to its default value.
+     *
+     * @param name The option name, without the dashes
+     *
+     * @return The current instance
+     */
+    public Invocation opt(String name) {
+        options.put(name, null);
+
+        return this;
+    }
+
+    /**
+     * Runs the command, discarding its output.
+     *
+     * @return The command exit code
+     */
+    public int run() {
+        return run(new NullOutput());
+    }
+
+    /**
+     * Runs the command.
+     *
+     * @param output An OutputInterface instance
+     *
+     * @return The command exit code
+     *
+     * @throws IllegalArgumentException When an argument or an option does not exist
+     */
+    public int run(OutputInterface output) throws IllegalArgumentException {
+        Application application = command.getApplication();
+        if (null == application) {
+            return command.run(new TypedInput(arguments, options), output);
+        }
+
+        // The application definition requires the command name
+        Map<String, Object> values = arguments;
+        if (application.getDefinition().hasArgument("command") && !arguments.containsKey("command")) {
+            values = new LinkedHashMap<String, Object>();
+            values.put("command", command.getName());
+            values.putAll(arguments);
+        }
+
+        return application.doRun(command, new TypedInput(values, options), output);
+    }
+}
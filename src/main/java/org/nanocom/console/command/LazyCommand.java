@@ -0,0 +1,139 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.nanocom.console.Application;
+import org.nanocom.console.input.InputDefinition;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * LazyCommand stands for a command which is only instantiated when it is needed.
+ *
+ * Its name, description and aliases are known up front, so that listing the
+ * commands of the application does not create them. The real command is
+ * created on first use by createCommand(), and then receives every call
+ * requiring its definition, its help or its code.
+ *
+ * The real command is assumed to be enabled.
+ *
+ */
+public abstract class LazyCommand extends Command {
+
+    private Command command;
+
+    /**
+     * @param name        The command name
+     * @param description The command description
+     * @param aliases     The command aliases
+     */
+    public LazyCommand(String name, String description, List<String> aliases) {
+        super(name);
+        setDescription(description);
+        setAliases(null == aliases ? new ArrayList<String>() : aliases);
+    }
+
+    /**
+     * Creates the real command.
+     *
+     * @return A Command instance
+     */
+    protected abstract Command createCommand();
+
+    /**
+     * Returns the real command, creating it on first call.
+     *
+     * @return A Command instance
+     */
+    public synchronized Command getCommand() {
+        if (null == command) {
+            command = createCommand();
+            command.setName(getName());
+            command.setApplication(getApplication());
+        }
+
+        return command;
+    }
+
+    /**
+     * Returns true if the real command has been created.
+     *
+     * @return True if the real command exists, false otherwise
+     */
+    public synchronized boolean isLoaded() {
+        return null != command;
+    }
+
+    /**
+     * Forgets the real command, so that the next call creates it again.
+     */
+    protected synchronized void unload() {
+        command = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setApplication(Application application) {
+        super.setApplication(application);
+        if (null != command) {
+            command.setApplication(application);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int run(InputInterface input, OutputInterface output) {
+        return getCommand().run(input, output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputDefinition getDefinition() {
+        return getCommand().getDefinition();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getHelp() {
+        return getCommand().getHelp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getProcessedHelp() {
+        return getCommand().getProcessedHelp();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSynopsis() {
+        return getCommand().getSynopsis();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String asText() {
+        return getCommand().asText();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import org.nanocom.console.helper.HelperSet;
+import org.nanocom.console.helper.RecordHelper;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.record.RecordWriterInterface;
+import org.nanocom.console.record.TextRecordWriter;
+
+/**
+ * Base class to inject code producing records inside a command.
+ *
+ * Instead of writing to the output, the code returns an iterator over its
+ * records, which are pulled and rendered one at a time. Records can thus
+ * be computed lazily: the memory used does not depend on their number, and
+ * a slow output simply slows down their production.
+ *
+ * Usage:
+ *
+ *     command.setCode(new RecordExecutable() {
+ *         protected Iterator<?> records(InputInterface input, OutputInterface output) {
+ *             return repository.iterateUsers();
+ *         }
+ *     });
+ *
+ */
+public abstract class RecordExecutable extends Executable {
+
+    private Command command;
+
+    /**
+     * Sets the command running this code.
+     *
+     * @param command A Command instance
+     */
+    void setCommand(Command command) {
+        this.command = command;
+    }
+
+    /**
+     * Produces the records of the command.
+     *
+     * If the iterator is Closeable, it is closed once rendered.
+     *
+     * @param input  An InputInterface instance
+     * @param output An OutputInterface instance
+     *
+     * @return An iterator over the records
+     */
+    protected abstract Iterator<?> records(InputInterface input, OutputInterface output);
+
+    /**
+     * Creates the writer rendering the records.
+     *
+     * The writer is created by the "record" helper of the command, if any,
+     * so that it follows the --format option.
+     *
+     * @param input  An InputInterface instance
+     * @param output An OutputInterface instance
+     *
+     * @return A RecordWriterInterface instance
+     */
+    protected RecordWriterInterface createWriter(InputInterface input, OutputInterface output) {
+        HelperSet helperSet = null == command ? null : command.getHelperSet();
+        if (null != helperSet && helperSet.has("record")) {
+            return ((RecordHelper) helperSet.get("record")).createWriter(input, output);
+        }
+
+        return new TextRecordWriter(output);
+    }
+
+    /**
+     * Renders the records.
+     *
+     * @param input  An InputInterface instance
+     * @param output An OutputInterface instance
+     *
+     * @return 0
+     */
+    @Override
+    protected final int execute(InputInterface input, OutputInterface output) {
+        // Check the format before opening the records
+        RecordWriterInterface writer = createWriter(input, output);
+        Iterator<?> records = records(input, output);
+
+        try {
+            while (records.hasNext()) {
+                writer.write(records.next());
+            }
+
+            writer.close();
+        } finally {
+            if (records instanceof Closeable) {
+                try {
+                    ((Closeable) records).close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        return 0;
+    }
+}
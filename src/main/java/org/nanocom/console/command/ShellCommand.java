@@ -0,0 +1,47 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import static org.apache.commons.lang3.SystemUtils.LINE_SEPARATOR;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.shell.Shell;
+
+/**
+ * ShellCommand starts an interactive shell on the application.
+ *
+ * It is not registered by default, add it to the application to enable it:
+ *
+ *     application.add(new ShellCommand());
+ *
+ */
+public class ShellCommand extends Command {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void configure() {
+        setName("shell");
+        setDescription("Starts an interactive shell");
+        String lineSeparator = LINE_SEPARATOR + LINE_SEPARATOR;
+        setHelp("The <info>%command.name%</info> command reads commands from the terminal and runs them"
+            + " without restarting the application:" + lineSeparator
+            + "  <info>java -jar %command.full_name%</info>" + lineSeparator
+            + "Type <comment>history</comment> to list the previous commands, <comment>!prefix</comment> to run"
+            + " the last one starting with prefix and <comment>exit</comment> to leave the shell.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int execute(InputInterface input, OutputInterface output) {
+        return new Shell(getApplication(), System.in, output).run();
+    }
+}
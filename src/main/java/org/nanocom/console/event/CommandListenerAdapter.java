@@ -0,0 +1,43 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.event;
+
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * An empty implementation of CommandListenerInterface, to extend for the events of interest.
+ *
+ */
+public abstract class CommandListenerAdapter implements CommandListenerInterface {
+
+    @Override
+    public void beforeDispatch(InputInterface input, OutputInterface output) {
+    }
+
+    @Override
+    public void afterResolve(Command command, InputInterface input, OutputInterface output) {
+    }
+
+    @Override
+    public void beforeExecute(Command command, InputInterface input, OutputInterface output) {
+    }
+
+    @Override
+    public void afterExecute(Command command, InputInterface input, OutputInterface output, int statusCode) {
+    }
+
+    @Override
+    public void onException(Command command, InputInterface input, OutputInterface output, RuntimeException exception) {
+    }
+
+    @Override
+    public void onTerminate(Command command, InputInterface input, OutputInterface output, int statusCode) {
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.event;
+
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * CommandListenerInterface is the interface all command lifecycle listeners must implement.
+ *
+ * Extend CommandListenerAdapter to only implement some of the events.
+ *
+ */
+public interface CommandListenerInterface {
+
+    /**
+     * Called when the application starts handling an input, before anything else.
+     *
+     * @param input  An InputInterface instance
+     * @param output An OutputInterface instance
+     */
+    void beforeDispatch(InputInterface input, OutputInterface output);
+
+    /**
+     * Called once the command to run has been found.
+     *
+     * @param command The command
+     * @param input   An InputInterface instance
+     * @param output  An OutputInterface instance
+     */
+    void afterResolve(Command command, InputInterface input, OutputInterface output);
+
+    /**
+     * Called right before the command runs.
+     *
+     * @param command The command
+     * @param input   An InputInterface instance
+     * @param output  An OutputInterface instance
+     */
+    void beforeExecute(Command command, InputInterface input, OutputInterface output);
+
+    /**
+     * Called after the command returned.
+     *
+     * @param command    The command
+     * @param input      An InputInterface instance
+     * @param output     An OutputInterface instance
+     * @param statusCode The command status code
+     */
+    void afterExecute(Command command, InputInterface input, OutputInterface output, int statusCode);
+
+    /**
+     * Called when an exception is thrown while handling an input.
+     *
+     * Exceptions thrown by the listeners themselves are not reported.
+     *
+     * @param command   The command, or null if it was not found yet
+     * @param input     An InputInterface instance
+     * @param output    An OutputInterface instance
+     * @param exception The exception
+     */
+    void onException(Command command, InputInterface input, OutputInterface output, RuntimeException exception);
+
+    /**
+     * Called when the application is done with an input, whatever happened.
+     *
+     * @param command    The command, or null if none was run
+     * @param input      An InputInterface instance
+     * @param output     An OutputInterface instance
+     * @param statusCode The status code, 1 if an exception was thrown
+     */
+    void onTerminate(Command command, InputInterface input, OutputInterface output, int statusCode);
+}
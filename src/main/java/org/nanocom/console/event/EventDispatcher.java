@@ -0,0 +1,121 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.event;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * The EventDispatcher forwards the command lifecycle events to the registered listeners.
+ *
+ * Listeners are kept in a flat array, copied on registration, so that
+ * dispatching an event is a plain loop: it neither locks nor allocates,
+ * and costs a single array length check when no listener is registered.
+ * Listeners are called in registration order.
+ *
+ */
+public class EventDispatcher implements CommandListenerInterface {
+
+    private static final CommandListenerInterface[] EMPTY = new CommandListenerInterface[0];
+
+    private volatile CommandListenerInterface[] listeners = EMPTY;
+
+    /**
+     * Registers a listener.
+     *
+     * @param listener A CommandListenerInterface instance
+     */
+    public synchronized void addListener(CommandListenerInterface listener) {
+        if (null == listener) {
+            throw new IllegalArgumentException("The listener cannot be null.");
+        }
+
+        listeners = ArrayUtils.add(listeners, listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener A CommandListenerInterface instance
+     */
+    public synchronized void removeListener(CommandListenerInterface listener) {
+        CommandListenerInterface[] removed = ArrayUtils.removeElement(listeners, listener);
+        listeners = 0 == removed.length ? EMPTY : removed;
+    }
+
+    /**
+     * Returns true if some listeners are registered.
+     *
+     * @return True if some listeners are registered, false otherwise
+     */
+    public boolean hasListeners() {
+        return 0 != listeners.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeDispatch(InputInterface input, OutputInterface output) {
+        for (CommandListenerInterface listener : listeners) {
+            listener.beforeDispatch(input, output);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterResolve(Command command, InputInterface input, OutputInterface output) {
+        for (CommandListenerInterface listener : listeners) {
+            listener.afterResolve(command, input, output);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeExecute(Command command, InputInterface input, OutputInterface output) {
+        for (CommandListenerInterface listener : listeners) {
+            listener.beforeExecute(command, input, output);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterExecute(Command command, InputInterface input, OutputInterface output, int statusCode) {
+        for (CommandListenerInterface listener : listeners) {
+            listener.afterExecute(command, input, output, statusCode);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onException(Command command, InputInterface input, OutputInterface output, RuntimeException exception) {
+        for (CommandListenerInterface listener : listeners) {
+            listener.onException(command, input, output, exception);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onTerminate(Command command, InputInterface input, OutputInterface output, int statusCode) {
+        for (CommandListenerInterface listener : listeners) {
+            listener.onTerminate(command, input, output, statusCode);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.exception;
+
+/**
+ * Thrown by a command to stop as it was cancelled.
+ *
+ */
+public class CancelledException extends RuntimeException {
+
+    static final long serialVersionUID = 4715962319804427413L;
+
+    public CancelledException(String message) {
+        super(message);
+    }
+
+    public CancelledException() {
+        this("The command was cancelled.");
+    }
+}
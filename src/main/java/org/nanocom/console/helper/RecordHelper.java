@@ -0,0 +1,77 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.helper;
+
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.record.CsvRecordWriter;
+import org.nanocom.console.record.JsonRecordWriter;
+import org.nanocom.console.record.NdjsonRecordWriter;
+import org.nanocom.console.record.RecordWriterInterface;
+import org.nanocom.console.record.TextRecordWriter;
+
+/**
+ * The RecordHelper class creates the writers rendering the records of a command.
+ *
+ * The format is read from the --format option: txt (the default), json,
+ * ndjson or csv. Except txt, all of them bypass the output formatter.
+ *
+ */
+public class RecordHelper extends Helper {
+
+    public static final String FORMAT_OPTION = "format";
+    public static final String DEFAULT_FORMAT = "txt";
+
+    /**
+     * Creates a writer for the format given in the input.
+     *
+     * @param input  An InputInterface instance
+     * @param output An OutputInterface instance
+     *
+     * @return A RecordWriterInterface instance
+     *
+     * @throws IllegalArgumentException When the format is not supported
+     */
+    public RecordWriterInterface createWriter(InputInterface input, OutputInterface output) {
+        Object format = null == input || !input.hasOption(FORMAT_OPTION) ? null : input.getOption(FORMAT_OPTION);
+
+        return createWriter(null == format ? DEFAULT_FORMAT : format.toString(), output);
+    }
+
+    /**
+     * Creates a writer for a format.
+     *
+     * @param format The format: txt, json, ndjson or csv
+     * @param output An OutputInterface instance
+     *
+     * @return A RecordWriterInterface instance
+     *
+     * @throws IllegalArgumentException When the format is not supported
+     */
+    public RecordWriterInterface createWriter(String format, OutputInterface output) {
+        if ("txt".equals(format)) {
+            return new TextRecordWriter(output);
+        } else if ("json".equals(format)) {
+            return new JsonRecordWriter(output);
+        } else if ("ndjson".equals(format)) {
+            return new NdjsonRecordWriter(output);
+        } else if ("csv".equals(format)) {
+            return new CsvRecordWriter(output);
+        }
+
+        throw new IllegalArgumentException(String.format("The \"%s\" format is not supported, use txt, json, ndjson or csv.", format));
+    }
+
+    /**
+     * Returns the helper's canonical name.
+     */
+    @Override
+    public String getName() {
+        return "record";
+    }
+}
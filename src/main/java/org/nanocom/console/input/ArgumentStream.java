@@ -0,0 +1,149 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.nanocom.console.exception.LogicException;
+
+/**
+ * ArgumentStream is the value of a streamed array argument.
+ *
+ * The values are read on demand from the remaining tokens of the input,
+ * response files included, and from the standard input for a "-" token,
+ * so that a command can process any number of values in constant memory.
+ * The values can only be iterated once.
+ *
+ */
+public class ArgumentStream implements Iterable<String> {
+
+    private final String name;
+    private final Iterator<String> tokens;
+    private final InputStream stdin;
+    private String first;
+    private boolean iterated;
+
+    /**
+     * Constructor.
+     *
+     * @param name   The argument name
+     * @param first  The first value
+     * @param tokens The remaining tokens
+     * @param stdin  The stream to read for a "-" token
+     */
+    ArgumentStream(String name, String first, Iterator<String> tokens, InputStream stdin) {
+        this.name = name;
+        this.first = first;
+        this.tokens = tokens;
+        this.stdin = stdin;
+    }
+
+    /**
+     * Returns the argument name.
+     *
+     * @return The argument name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns an iterator over the values.
+     *
+     * @return An iterator over the values
+     *
+     * @throws LogicException When the values were already iterated
+     */
+    @Override
+    public synchronized Iterator<String> iterator() throws LogicException {
+        if (iterated) {
+            throw new LogicException(String.format("The \"%s\" argument values can only be iterated once.", name));
+        }
+        iterated = true;
+
+        return new Iterator<String>() {
+
+            private BufferedReader reader;
+            private String next;
+
+            @Override
+            public boolean hasNext() {
+                while (null == next) {
+                    if (null != reader) {
+                        next = readLine();
+                        if (null != next) {
+                            break;
+                        }
+                        reader = null;
+                    }
+
+                    String token;
+                    if (null != first) {
+                        token = first;
+                        first = null;
+                    } else if (tokens.hasNext()) {
+                        token = tokens.next();
+                    } else {
+                        return false;
+                    }
+
+                    if ("-".equals(token)) {
+                        reader = createReader();
+                    } else {
+                        next = token;
+                    }
+                }
+
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                String value = next;
+                next = null;
+
+                return value;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            private String readLine() {
+                try {
+                    return reader.readLine();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    private BufferedReader createReader() {
+        try {
+            return new BufferedReader(new InputStreamReader(stdin, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("<%s stream>", name);
+    }
+}
@@ -7,12 +7,15 @@
 
 package org.nanocom.console.input;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import static org.apache.commons.lang3.StringUtils.*;
+import java.util.NoSuchElementException;
 
 /**
  * ArgvInput represents an input coming from the CLI arguments.
@@ -30,12 +33,23 @@ import static org.apache.commons.lang3.StringUtils.*;
  * the same rules as the args one. It's almost always better to use the
  * `StringInput` when you want to provide your own input.
  *
+ * A `@path` token is replaced by the tokens of the `path` response file,
+ * read lazily as the parsing goes (see ResponseFile), which works around
+ * the length limit of the command line. Use `@@` for a literal `@` token,
+ * and note that the tokens following `--` are never expanded.
+ *
  * @author Arnaud Kleinpeter <arnaud.kleinpeter at gmail dot com>
  */
 public class ArgvInput extends Input {
 
     protected List<String> tokens;
-    private List<String> parsed;
+    private String[] argv;
+    private TokenTable table;
+    private int cursor;
+    private List<Object> arrayArgument;
+    private boolean streaming;
+    private Map<String, Integer> optionPositions;
+    private List<String> optionValues;
 
     /**
      * Constructor.
@@ -54,104 +68,97 @@ public class ArgvInput extends Input {
      * @param definition An InputDefinition instance
      */
     public ArgvInput(String[] argv, InputDefinition definition) {
-        tokens = new ArrayList<String>(Arrays.asList(argv));
+        setTokens(argv);
         super.init(definition);
     }
 
     protected void setTokens(String[] tokens) {
-        this.tokens = new ArrayList<String>(Arrays.asList(tokens));
+        argv = tokens.clone();
+        this.tokens = Collections.unmodifiableList(Arrays.asList(argv));
+        optionPositions = null;
+        optionValues = null;
+        table = null;
     }
 
     /**
      * Processes command line arguments.
+     *
+     * The tokens are classified once into a token table, which is kept,
+     * so that binding the input again only resolves the option and argument
+     * names against the new definition. The table is read in a single pass
+     * with a cursor, and short options are read char by char without
+     * allocating.
      */
     @Override
     protected void parse() {
-        boolean parseOptions = true;
-        parsed = new ArrayList<String>(tokens);
-        String token;
-
-        while (!parsed.isEmpty()) {
-            token = parsed.remove(0);
-            if (parseOptions && EMPTY.equals(token)) {
-                parseArgument(token);
-            } else if (parseOptions && "--".equals(token)) {
-                parseOptions = false;
-            } else if (parseOptions && 0 == token.indexOf("--")) {
-                parseLongOption(token);
-            } else if (parseOptions && '-' == token.charAt(0)) {
-                parseShortOption(token);
-            } else {
-                parseArgument(token);
+        arrayArgument = null;
+        streaming = false;
+        cursor = 0;
+        TokenTable table = getTable();
+
+        // A streamed argument owns the remaining tokens
+        while (!streaming && table.has(cursor)) {
+            int position = cursor++;
+
+            switch (table.getKind(position)) {
+                case TokenTable.ARGUMENT:
+                    parseArgument(table.getToken(position));
+                    break;
+                case TokenTable.SHORT_OPTIONS:
+                    parseShortOption(table.getToken(position));
+                    break;
+                case TokenTable.LONG_OPTION:
+                    addOption(findOption(table.getName(position)), table.getValue(position));
+                    break;
+                default:
+                    // The end of the options
+                    break;
             }
         }
+
+        arrayArgument = null;
     }
 
     /**
      * Parses a short option.
      *
-     * @param token The current token.
+     * @param token The current token, a dash followed by at least one char
      */
     private void parseShortOption(String token) {
-        String name = token.substring(1);
-
-        if (name.length() > 1) {
-            if (
-                    definition.hasShortcut(name.substring(0, 1))
-                    && definition.getOptionForShortcut(name.substring(0, 1)).acceptValue()
-            ) {
+        if (token.length() > 2) {
+            char shortcut = token.charAt(1);
+            if (definition.hasShortcut(shortcut) && definition.getOptionForShortcut(shortcut).acceptValue()) {
                 // An option with a value (with no space)
-                addShortOption(name.substring(0, 1), name.substring(1));
+                addOption(definition.getOptionForShortcut(shortcut), token.substring(2));
             } else {
-                parseShortOptionSet(name);
+                parseShortOptionSet(token);
             }
         } else {
-            addShortOption(name, null);
+            addOption(findOptionForShortcut(token.charAt(1)), null);
         }
     }
 
     /**
      * Parses a short option set.
      *
-     * @param name The current token
+     * @param token The current token
      *
      * @throws RuntimeException When option given doesn't exist
      */
-    private void parseShortOptionSet(String name) throws RuntimeException {
-        int nameLength = name.length();
-        for (int i = 0; i < nameLength; i++) {
-            if (!definition.hasShortcut(name.substring(i, i + 1))) {
-                throw new RuntimeException(String.format("The \"-%s\" option does not exist.", name.substring(i, i + 1)));
-            }
-
-            InputOption option = definition.getOptionForShortcut(name.substring(i, i + 1));
+    private void parseShortOptionSet(String token) throws RuntimeException {
+        int length = token.length();
+        for (int i = 1; i < length; i++) {
+            InputOption option = findOptionForShortcut(token.charAt(i));
             if (option.acceptValue()) {
-                addLongOption(option.getName(), i == nameLength - 1 ? null : name.substring(i + 1));
+                addOption(option, i == length - 1 ? null : token.substring(i + 1));
 
                 break;
             } else {
-                addLongOption(option.getName(), true);
+                addOption(option, true);
             }
         }
     }
 
-    /**
-     * Parses a long option.
-     *
-     * @param token The current token
-     */
-    private void parseLongOption(String token)
-    {
-        String name = token.substring(2);
-
-        int index = name.indexOf('=');
-        if (-1 != index) {
-            addLongOption(name.substring(0, index), name.substring(index + 1));
-        } else {
-            addLongOption(name, null);
-        }
-    }
-
     /**
      * Parses an argument.
      *
@@ -160,25 +167,30 @@ public class ArgvInput extends Input {
      * @throws RuntimeException When too many arguments are given
      */
     private void parseArgument(String token) throws RuntimeException {
+        // If the last argument is an array, append the token to it
+        if (null != arrayArgument) {
+            arrayArgument.add(token);
+
+            return;
+        }
+
         int c = arguments.size();
 
         // If input is expecting another argument, add it
         if (definition.hasArgument(c)) {
             InputArgument arg = definition.getArgument(c);
 
-            if (arg.isArray()) {
-                ArrayList<String> tokenAsList = new ArrayList<String>();
-                tokenAsList.add(token);
-                arguments.put(arg.getName(), tokenAsList);
+            if (arg.isStream()) {
+                arguments.put(arg.getName(), new ArgumentStream(arg.getName(), token, table.detach(cursor), getInputStream()));
+                streaming = true;
+            } else if (arg.isArray()) {
+                arrayArgument = new ArrayList<Object>();
+                arrayArgument.add(token);
+                arguments.put(arg.getName(), arrayArgument);
             } else {
                 arguments.put(arg.getName(), token);
             }
 
-        // If last argument isArray(), append token to last argument
-        } else if (definition.hasArgument(c - 1) && definition.getArgument(c - 1).isArray()) {
-            InputArgument arg = definition.getArgument(c - 1);
-            arguments.put(arg.getName(), token);
-
         // Unexpected argument
         } else {
             throw new RuntimeException("Too many arguments.");
@@ -186,46 +198,58 @@ public class ArgvInput extends Input {
     }
 
     /**
-     * Adds a short option value.
+     * Gets an option by shortcut.
+     *
+     * @param shortcut The shortcut
      *
-     * @param shortcut The short option key
-     * @param value    The value for the option
+     * @return An InputOption instance
      *
      * @throws RuntimeException When option given doesn't exist
      */
-    private void addShortOption(String shortcut, Object value) throws RuntimeException {
+    private InputOption findOptionForShortcut(char shortcut) throws RuntimeException {
         if (!definition.hasShortcut(shortcut)) {
             throw new RuntimeException(String.format("The \"-%s\" option does not exist.", shortcut));
         }
 
-        addLongOption(definition.getOptionForShortcut(shortcut).getName(), value);
+        return definition.getOptionForShortcut(shortcut);
     }
 
     /**
-     * Adds a long option value.
+     * Gets an option by name.
      *
-     * @param name  The long option key
-     * @param value The value for the option
+     * @param name The option name
+     *
+     * @return An InputOption instance
      *
      * @throws RuntimeException When option given doesn't exist
      */
-    @SuppressWarnings("unchecked")
-    private void addLongOption(String name, Object value) throws RuntimeException {
+    private InputOption findOption(String name) throws RuntimeException {
         if (!definition.hasOption(name)) {
             throw new RuntimeException(String.format("The \"--%s\" option does not exist.", name));
         }
 
-        InputOption option = definition.getOption(name);
+        return definition.getOption(name);
+    }
 
-        if (null == value && option.acceptValue()) {
+    /**
+     * Adds an option value.
+     *
+     * @param option The option
+     * @param value  The value for the option
+     *
+     * @throws RuntimeException When a required value is missing
+     */
+    @SuppressWarnings("unchecked")
+    private void addOption(InputOption option, Object value) throws RuntimeException {
+        String name = option.getName();
+
+        if (null == value && option.acceptValue() && table.has(cursor)) {
             // If option accepts an optional or mandatory argument
             // Let's see if there is one provided
-            if (!parsed.isEmpty()) {
-                String next = parsed.get(0);
-                if (!next.startsWith("-")) {
-                    value = next;
-                    parsed.remove(0);
-                }
+            String next = table.getToken(cursor);
+            if (!next.startsWith("-")) {
+                value = next;
+                cursor++;
             }
         }
 
@@ -238,7 +262,12 @@ public class ArgvInput extends Input {
         }
 
         if (option.isArray()) {
-            ((List<Object>) options.get(name)).add(value);
+            List<Object> values = (List<Object>) options.get(name);
+            if (null == values) {
+                values = new ArrayList<Object>();
+                options.put(name, values);
+            }
+            values.add(value);
         } else {
             options.put(name, value);
         }
@@ -251,7 +280,9 @@ public class ArgvInput extends Input {
      */
     @Override
     public String getFirstArgument() {
-        for (String token : tokens) {
+        TokenTable table = getTable();
+        for (int position = 0; table.has(position); position++) {
+            String token = table.getToken(position);
             if (!token.isEmpty() && '-' == token.charAt(0)) {
                 continue;
             }
@@ -268,19 +299,34 @@ public class ArgvInput extends Input {
      * This method is to be used to introspect the input parameters
      * before they have been validated. It must be used carefully.
      *
+     * The option tokens are indexed on the first call, so that looking
+     * for an option does not depend on the number of tokens. An option
+     * given with an inline value, as in --foo=bar, contains --foo. The
+     * tokens after -- are arguments, they are not indexed.
+     *
      * @param values The value(s) to look for in the raw parameters (can be an array)
      *
      * @return True if the value is contained in the raw parameters
      */
     @Override
     public boolean hasParameterOption(String value) {
-        return hasParameterOption(Arrays.asList(value));
+        if (isOptionToken(value)) {
+            return getOptionPositions().containsKey(value);
+        }
+
+        for (Tokens tokens = new Tokens(); tokens.hasNext();) {
+            if (value.equals(tokens.next())) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     @Override
     public boolean hasParameterOption(List<String> values) {
-        for (String value : tokens) {
-            if (values.contains(value)) {
+        for (int i = 0, size = values.size(); i < size; i++) {
+            if (hasParameterOption(values.get(i))) {
                 return true;
             }
         }
@@ -290,8 +336,8 @@ public class ArgvInput extends Input {
 
     @Override
     public boolean hasParameterOption(Map<String, String> values) {
-        for (String value : tokens) {
-            if (values.containsValue(value)) {
+        for (String value : values.values()) {
+            if (hasParameterOption(value)) {
                 return true;
             }
         }
@@ -312,20 +358,37 @@ public class ArgvInput extends Input {
      */
     @Override
     public Object getParameterOption(List<String> values, Object defaultValue) {
-        LinkedList<String> locTokens = new LinkedList<String>();
-        locTokens.addAll(tokens);
+        int first = Integer.MAX_VALUE;
+        for (int i = 0, size = values.size(); i < size; i++) {
+            String value = values.get(i);
+            if (!isOptionToken(value)) {
+                return scanParameterOption(values, defaultValue);
+            }
+
+            Integer position = getOptionPositions().get(value);
+            if (null != position && position < first) {
+                first = position;
+            }
+        }
 
-        while (!locTokens.isEmpty()) {
-            String token = locTokens.poll();
+        if (Integer.MAX_VALUE == first) {
+            return defaultValue;
+        }
 
-            for (String value : values) {
-                if (value.startsWith(token)) {
-                    int pos = token.indexOf("=");
-                    if (pos > -1) {
-                        return token.substring(pos + 1);
-                    }
+        String value = optionValues.get(first);
+
+        return null == value ? defaultValue : value;
+    }
 
-                    return locTokens.poll();
+    private Object scanParameterOption(List<String> values, Object defaultValue) {
+        for (Tokens tokens = new Tokens(); tokens.hasNext();) {
+            String token = tokens.next();
+
+            for (String value : values) {
+                if (token.equals(value)) {
+                    return tokens.hasNext() ? tokens.next() : defaultValue;
+                } else if (token.startsWith(value) && token.length() > value.length() && '=' == token.charAt(value.length())) {
+                    return token.substring(value.length() + 1);
                 }
             }
         }
@@ -333,6 +396,69 @@ public class ArgvInput extends Input {
         return defaultValue;
     }
 
+    private static boolean isOptionToken(String value) {
+        return value.length() > 1 && '-' == value.charAt(0) && -1 == value.indexOf('=');
+    }
+
+    /**
+     * Indexes the option tokens in a single pass.
+     *
+     * The pass does not keep the tokens it reads, so that looking up the
+     * global options before binding does not hold the tokens of a streamed
+     * argument or of the response files in memory. It stops at --.
+     *
+     * Each option maps to the position of its first occurrence in the
+     * value table, which holds the following token for a bare option, the
+     * text after the = sign for an option with an inline value, or null
+     * when the option is the last token.
+     *
+     * @return The first position of each option in the value table
+     */
+    private Map<String, Integer> getOptionPositions() {
+        if (null != optionPositions) {
+            return optionPositions;
+        }
+
+        Map<String, Integer> positions = new HashMap<String, Integer>();
+        List<String> values = new ArrayList<String>();
+        int pending = -1;
+
+        for (Tokens tokens = new Tokens(); tokens.hasNext();) {
+            String token = tokens.next();
+            if (-1 != pending) {
+                values.set(pending, token);
+                pending = -1;
+            }
+            if ("--".equals(token)) {
+                break;
+            }
+
+            if (token.length() < 2 || '-' != token.charAt(0)) {
+                continue;
+            }
+
+            int index = token.indexOf('=');
+            String name = -1 == index ? token : token.substring(0, index);
+            if (positions.containsKey(name)) {
+                // Only the first occurrence of an option is looked up
+                continue;
+            }
+
+            positions.put(name, values.size());
+            if (-1 == index) {
+                values.add(null);
+                pending = values.size() - 1;
+            } else {
+                values.add(token.substring(index + 1));
+            }
+        }
+
+        optionValues = values;
+        optionPositions = positions;
+
+        return positions;
+    }
+
     @Override
     public Object getParameterOption(List<String> values) {
         return getParameterOption(values, false);
@@ -347,4 +473,90 @@ public class ArgvInput extends Input {
     public Object getParameterOption(String value, Object defaultValue) {
         return getParameterOption(Arrays.asList(value), defaultValue);
     }
+
+    /**
+     * Gets the token table, filled as the tokens are needed.
+     *
+     * getFirstArgument() and the parsing share it. A table taken over by
+     * a streamed argument is replaced by a new one.
+     *
+     * @return A TokenTable instance
+     */
+    private TokenTable getTable() {
+        if (null == table || table.isDetached()) {
+            table = new TokenTable(new Tokens());
+        }
+
+        return table;
+    }
+
+    /**
+     * Gets the token table of the last parsing.
+     *
+     * This is mainly useful for testing purpose.
+     *
+     * @return A TokenTable instance, or null
+     */
+    TokenTable getTokenTable() {
+        return table;
+    }
+
+    /**
+     * Iterates over the tokens, expanding the response files on the way.
+     */
+    private class Tokens implements Iterator<String> {
+
+        private int index;
+        private boolean expand = true;
+        private ResponseFile responseFile;
+        private String next;
+
+        @Override
+        public boolean hasNext() {
+            while (null == next) {
+                if (null != responseFile) {
+                    if (responseFile.hasNext()) {
+                        next = responseFile.next();
+                        expand = expand && !"--".equals(next);
+                        break;
+                    }
+                    responseFile = null;
+                }
+
+                if (index == argv.length) {
+                    return false;
+                }
+
+                String token = argv[index++];
+                if (!expand || token.length() < 2 || '@' != token.charAt(0)) {
+                    // Nothing is expanded after the end of the options
+                    expand = expand && !"--".equals(token);
+                    next = token;
+                } else if ('@' == token.charAt(1)) {
+                    next = token.substring(1);
+                } else {
+                    responseFile = new ResponseFile(new File(token.substring(1)));
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            String token = next;
+            next = null;
+
+            return token;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -0,0 +1,29 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+/**
+ * ConverterInterface is the interface implemented by the argument and option value converters.
+ *
+ * A converter declared on an InputArgument or an InputOption runs once, when
+ * the input is bound, and the converted value is then returned by the input.
+ *
+ */
+public interface ConverterInterface {
+
+    /**
+     * Converts a raw value.
+     *
+     * @param value The raw value, never null
+     *
+     * @return The converted value
+     *
+     * @throws IllegalArgumentException When the value cannot be converted
+     */
+    Object convert(String value) throws IllegalArgumentException;
+}
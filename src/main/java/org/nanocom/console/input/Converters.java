@@ -0,0 +1,137 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * The built-in value converters.
+ *
+ */
+public final class Converters {
+
+    /**
+     * Converts to an Integer.
+     */
+    public static final ConverterInterface INTEGER = new ConverterInterface() {
+
+        @Override
+        public Object convert(String value) {
+            return Integer.valueOf(value.trim());
+        }
+    };
+
+    /**
+     * Converts to a Long.
+     */
+    public static final ConverterInterface LONG = new ConverterInterface() {
+
+        @Override
+        public Object convert(String value) {
+            return Long.valueOf(value.trim());
+        }
+    };
+
+    /**
+     * Converts to a Double.
+     */
+    public static final ConverterInterface DOUBLE = new ConverterInterface() {
+
+        @Override
+        public Object convert(String value) {
+            return Double.valueOf(value.trim());
+        }
+    };
+
+    /**
+     * Converts to a Boolean: true, yes, on and 1 are true, false, no, off, 0 and the empty string are false.
+     */
+    public static final ConverterInterface BOOLEAN = new ConverterInterface() {
+
+        @Override
+        public Object convert(String value) {
+            String lower = value.trim().toLowerCase(Locale.ROOT);
+            if ("true".equals(lower) || "yes".equals(lower) || "on".equals(lower) || "1".equals(lower)) {
+                return Boolean.TRUE;
+            }
+            if (lower.isEmpty() || "false".equals(lower) || "no".equals(lower) || "off".equals(lower) || "0".equals(lower)) {
+                return Boolean.FALSE;
+            }
+
+            throw new IllegalArgumentException(String.format("\"%s\" is not a boolean.", value));
+        }
+    };
+
+    /**
+     * Converts a duration to a Long number of milliseconds.
+     *
+     * A duration is a sequence of amounts followed by a unit, ms, s, m, h or d
+     * (as in "1h30m"); a bare amount is a number of milliseconds.
+     */
+    public static final ConverterInterface DURATION = new ConverterInterface() {
+
+        @Override
+        public Object convert(String value) {
+            String duration = value.trim();
+            int length = duration.length();
+            if (0 == length) {
+                throw new IllegalArgumentException("An empty string is not a duration.");
+            }
+
+            long total = 0;
+            int i = 0;
+            while (i < length) {
+                int start = i;
+                while (i < length && Character.isDigit(duration.charAt(i))) {
+                    i++;
+                }
+                if (start == i) {
+                    throw new IllegalArgumentException(String.format("\"%s\" is not a duration.", value));
+                }
+                long amount = Long.parseLong(duration.substring(start, i));
+
+                long unit;
+                if (i == length) {
+                    unit = 1;
+                } else if (duration.startsWith("ms", i)) {
+                    unit = 1;
+                    i += 2;
+                } else {
+                    switch (duration.charAt(i)) {
+                        case 's': unit = 1000L; break;
+                        case 'm': unit = 60000L; break;
+                        case 'h': unit = 3600000L; break;
+                        case 'd': unit = 86400000L; break;
+                        default:
+                            throw new IllegalArgumentException(String.format("\"%s\" is not a duration.", value));
+                    }
+                    i++;
+                }
+
+                total += amount * unit;
+            }
+
+            return total;
+        }
+    };
+
+    /**
+     * Converts to a File.
+     */
+    public static final ConverterInterface PATH = new ConverterInterface() {
+
+        @Override
+        public Object convert(String value) {
+            return new File(value);
+        }
+    };
+
+    private Converters() {
+    }
+}
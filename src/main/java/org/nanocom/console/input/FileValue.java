@@ -0,0 +1,191 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * FileValue is the value of an option given as a file reference.
+ *
+ * The value of an InputOption.VALUE_FROM_FILE option given as @path is
+ * the content of the path file, and @- is the standard input. Nothing is
+ * read until the value is used: openStream() streams the file from a
+ * memory mapping, without loading it on the heap, while the CharSequence
+ * methods decode the whole content once, as UTF-8.
+ *
+ */
+public class FileValue implements CharSequence {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final InputStream stdin;
+    private MappedByteBuffer buffer;
+    private CharSequence content;
+
+    /**
+     * Constructor.
+     *
+     * @param file The file holding the value
+     */
+    public FileValue(File file) {
+        this.file = file;
+        this.stdin = null;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param stdin The stream holding the value
+     */
+    public FileValue(InputStream stdin) {
+        this.file = null;
+        this.stdin = stdin;
+    }
+
+    /**
+     * Returns the file holding the value.
+     *
+     * @return The file, or null for the standard input
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Opens a stream over the raw value.
+     *
+     * The standard input can only be streamed once, unless the value was
+     * already loaded.
+     *
+     * @return An InputStream instance
+     */
+    public synchronized InputStream openStream() {
+        if (null != content) {
+            return new ByteArrayInputStream(content.toString().getBytes(UTF8));
+        }
+        if (null == file) {
+            return stdin;
+        }
+
+        return new ByteBufferInputStream(map().duplicate());
+    }
+
+    @Override
+    public int length() {
+        return getContent().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return getContent().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return getContent().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return getContent().toString();
+    }
+
+    private synchronized CharSequence getContent() {
+        if (null == content) {
+            if (null == file) {
+                content = read(stdin);
+            } else {
+                content = UTF8.decode(map().duplicate());
+            }
+        }
+
+        return content;
+    }
+
+    private MappedByteBuffer map() {
+        if (null != buffer) {
+            return buffer;
+        }
+
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new RuntimeException(String.format("The \"%s\" file is too large.", file.getPath()));
+                }
+                // The mapping stays valid once the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to read the \"%s\" file.", file.getPath()), e);
+        }
+
+        return buffer;
+    }
+
+    private static String read(InputStream stream) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        try {
+            for (int read = stream.read(chunk); -1 != read; read = stream.read(chunk)) {
+                bytes.write(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return new String(bytes.toByteArray(), UTF8);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (0 == length) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.nanocom.console.exception.LogicException;
+
+/**
+ * A FrozenInputDefinition is an immutable, compiled copy of an InputDefinition.
+ *
+ * Arguments are stored in position order in an array, options and
+ * shortcuts in precomputed hash tables (and a direct table for ASCII
+ * shortcuts), and the default values are computed once. Lookups do not
+ * allocate, and the definition can be shared between threads.
+ *
+ * Usage:
+ *
+ *     FrozenInputDefinition definition = command.getDefinition().freeze();
+ *
+ */
+public class FrozenInputDefinition extends InputDefinition {
+
+    private final InputArgument[] argumentArray;
+    private final Map<String, InputArgument> argumentMap;
+    private final int argumentCount;
+    private final int requiredCount;
+    private final Map<String, Object> argumentDefaults;
+    private final Map<String, InputOption> optionMap;
+    private final Map<String, InputOption> shortcutMap;
+    private final InputOption[] asciiShortcuts;
+    private final Map<String, Object> optionDefaults;
+    private final int sourceModificationCount;
+
+    /**
+     * @param definition The definition to compile
+     */
+    public FrozenInputDefinition(InputDefinition definition) {
+        sourceModificationCount = definition.getModificationCount();
+
+        Map<String, InputArgument> arguments = new LinkedHashMap<String, InputArgument>(definition.getArguments());
+        argumentArray = arguments.values().toArray(new InputArgument[arguments.size()]);
+        argumentMap = Collections.unmodifiableMap(arguments);
+        argumentCount = definition.getArgumentCount();
+        requiredCount = definition.getArgumentRequiredCount();
+        argumentDefaults = Collections.unmodifiableMap(new LinkedHashMap<String, Object>(definition.getArgumentDefaults()));
+
+        Map<String, InputOption> options = new LinkedHashMap<String, InputOption>(definition.getOptions());
+        Map<String, InputOption> shortcuts = new HashMap<String, InputOption>();
+        asciiShortcuts = new InputOption[128];
+        for (InputOption option : options.values()) {
+            String shortcut = option.getShortcut();
+            if (null != shortcut) {
+                shortcuts.put(shortcut, option);
+                if (1 == shortcut.length() && shortcut.charAt(0) < asciiShortcuts.length) {
+                    asciiShortcuts[shortcut.charAt(0)] = option;
+                }
+            }
+        }
+
+        optionMap = Collections.unmodifiableMap(options);
+        shortcutMap = shortcuts;
+        optionDefaults = Collections.unmodifiableMap(new LinkedHashMap<String, Object>(definition.getOptionDefaults()));
+    }
+
+    /**
+     * Returns true if the definition it was compiled from changed since.
+     *
+     * @param definition The definition this one was compiled from
+     *
+     * @return True if the frozen definition is stale, false otherwise
+     */
+    public boolean isStale(InputDefinition definition) {
+        return sourceModificationCount != definition.getModificationCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws LogicException As the definition is frozen
+     */
+    @Override
+    public void setArguments(List<InputArgument> arguments) {
+        // Called by the parent constructor, before the definition is compiled
+        if (null != argumentArray) {
+            throw new LogicException("A frozen definition cannot be modified.");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws LogicException As the definition is frozen
+     */
+    @Override
+    public void addArgument(InputArgument argument) {
+        throw new LogicException("A frozen definition cannot be modified.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputArgument getArgument(String name) {
+        InputArgument argument = argumentMap.get(name);
+        if (null == argument) {
+            throw new IllegalArgumentException(String.format("The \"%s\" argument does not exist.", name));
+        }
+
+        return argument;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputArgument getArgument(int position) {
+        if (!hasArgument(position)) {
+            throw new IllegalArgumentException(String.format("The \"%s\" argument does not exist.", position));
+        }
+
+        return argumentArray[position];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasArgument(String name) {
+        return argumentMap.containsKey(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasArgument(int position) {
+        return position >= 0 && position < argumentArray.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned map cannot be modified.
+     */
+    @Override
+    public Map<String, InputArgument> getArguments() {
+        return argumentMap;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getArgumentRequiredCount() {
+        return requiredCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> getArgumentDefaults() {
+        return new HashMap<String, Object>(argumentDefaults);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws LogicException As the definition is frozen
+     */
+    @Override
+    public void setOptions(List<InputOption> options) {
+        // Called by the parent constructor, before the definition is compiled
+        if (null != argumentArray) {
+            throw new LogicException("A frozen definition cannot be modified.");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws LogicException As the definition is frozen
+     */
+    @Override
+    public void addOption(InputOption option) {
+        throw new LogicException("A frozen definition cannot be modified.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputOption getOption(String name) {
+        InputOption option = optionMap.get(name);
+        if (null == option) {
+            throw new IllegalArgumentException("The \"--" + name + "\" option does not exist.");
+        }
+
+        return option;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOption(String name) {
+        return optionMap.containsKey(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned map cannot be modified.
+     */
+    @Override
+    public Map<String, InputOption> getOptions() {
+        return optionMap;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasShortcut(String name) {
+        return shortcutMap.containsKey(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasShortcut(char shortcut) {
+        return shortcut < asciiShortcuts.length ? null != asciiShortcuts[shortcut] : hasShortcut(String.valueOf(shortcut));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputOption getOptionForShortcut(String shortcut) {
+        InputOption option = shortcutMap.get(shortcut);
+        if (null == option) {
+            throw new IllegalArgumentException(String.format("The \"-%s\" option does not exist.", shortcut));
+        }
+
+        return option;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputOption getOptionForShortcut(char shortcut) {
+        if (shortcut < asciiShortcuts.length && null != asciiShortcuts[shortcut]) {
+            return asciiShortcuts[shortcut];
+        }
+
+        return getOptionForShortcut(String.valueOf(shortcut));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> getOptionDefaults() {
+        return new HashMap<String, Object>(optionDefaults);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getModificationCount() {
+        return sourceModificationCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A frozen definition is returned as is.
+     */
+    @Override
+    public FrozenInputDefinition freeze() {
+        return this;
+    }
+}
@@ -7,7 +7,11 @@
 
 package org.nanocom.console.input;
 
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +32,11 @@ abstract class Input implements InputInterface {
     protected Map<String, Object> arguments;
     protected Boolean             interactive = true;
 
+    private Map<String, Object> convertedArguments = new HashMap<String, Object>();
+    private Map<String, Object> convertedOptions = new HashMap<String, Object>();
+    private Map<String, TypedValues> typed = new HashMap<String, TypedValues>();
+    private InputStream inputStream = System.in;
+
     public Input() {
     	init(null);
     }
@@ -60,8 +69,48 @@ abstract class Input implements InputInterface {
         arguments = new HashMap<String, Object>();
         options = new HashMap<String, Object>();
         this.definition = definition;
+        convertedArguments = new HashMap<String, Object>();
+        convertedOptions = new HashMap<String, Object>();
+        typed = new HashMap<String, TypedValues>();
 
         parse();
+
+        for (InputOption option : definition.getOptions().values()) {
+            if (option.isValueFromFile() && options.containsKey(option.getName()) && isLoadingFileValues()) {
+                loadFileValues(option);
+            }
+        }
+        for (InputArgument argument : definition.getArguments().values()) {
+            if (null != argument.getConverter()) {
+                convertArgument(argument);
+            }
+        }
+        for (InputOption option : definition.getOptions().values()) {
+            if (null != option.getConverter()) {
+                convertOption(option);
+            }
+        }
+    }
+
+    /**
+     * Sets the stream read for the standard input, as for a "-" streamed
+     * argument value or a "@-" option value.
+     *
+     * This is mainly useful for testing purpose.
+     *
+     * @param stream The input stream
+     */
+    public void setInputStream(InputStream stream) {
+        this.inputStream = stream;
+    }
+
+    /**
+     * Returns the stream read for the standard input.
+     *
+     * @return The input stream
+     */
+    protected InputStream getInputStream() {
+        return inputStream;
     }
 
     /**
@@ -110,6 +159,7 @@ abstract class Input implements InputInterface {
     public Map<String, Object> getArguments() {
         Map<String, Object> toReturn = definition.getArgumentDefaults();
         toReturn.putAll(arguments);
+        toReturn.putAll(convertedArguments);
 
         return toReturn;
     }
@@ -129,6 +179,10 @@ abstract class Input implements InputInterface {
             throw new IllegalArgumentException(String.format("The \"%s\" argument does not exist.", name));
         }
 
+        if (convertedArguments.containsKey(name)) {
+            return convertedArguments.get(name);
+        }
+
         return arguments.containsKey(name) ? arguments.get(name) : definition.getArgument(name).getDefaultValue();
     }
 
@@ -147,6 +201,12 @@ abstract class Input implements InputInterface {
         }
 
         arguments.put(name, value);
+        typed.remove(name);
+
+        InputArgument argument = definition.getArgument(name);
+        if (null != argument.getConverter()) {
+            convertArgument(argument);
+        }
     }
 
     /**
@@ -182,6 +242,7 @@ abstract class Input implements InputInterface {
     public Map<String, Object> getOptions() {
         Map<String, Object> toReturn = definition.getOptionDefaults();
         toReturn.putAll(options);
+        toReturn.putAll(convertedOptions);
 
         return toReturn;
     }
@@ -201,6 +262,10 @@ abstract class Input implements InputInterface {
             throw new IllegalArgumentException(String.format("The \"%s\" option does not exist.", name));
         }
 
+        if (convertedOptions.containsKey(name)) {
+            return convertedOptions.get(name);
+        }
+
         return options.containsKey(name) ? options.get(name) : definition.getOption(name).getDefaultValue();
     }
 
@@ -219,6 +284,15 @@ abstract class Input implements InputInterface {
         }
 
         options.put(name, value);
+        typed.remove(name);
+
+        InputOption option = definition.getOption(name);
+        if (option.isValueFromFile() && isLoadingFileValues()) {
+            loadFileValues(option);
+        }
+        if (null != option.getConverter()) {
+            convertOption(option);
+        }
     }
 
     /**
@@ -232,4 +306,380 @@ abstract class Input implements InputInterface {
     public boolean hasOption(String name) {
         return definition.hasOption(name);
     }
+
+    /**
+     * Returns an argument or option value as an int.
+     *
+     * An argument takes precedence over an option of the same name. The value
+     * is converted on the first call and the result is cached until the input
+     * is bound again or the value is set.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not an integer
+     */
+    @Override
+    public int getInt(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (0 == (values.resolved & TypedValues.INT)) {
+            values.intValue = ((Number) getRequired(name, Converters.INTEGER, Number.class)).intValue();
+            values.resolved |= TypedValues.INT;
+        }
+
+        return values.intValue;
+    }
+
+    /**
+     * Returns an argument or option value as a long.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not an integer
+     */
+    @Override
+    public long getLong(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (0 == (values.resolved & TypedValues.LONG)) {
+            values.longValue = ((Number) getRequired(name, Converters.LONG, Number.class)).longValue();
+            values.resolved |= TypedValues.LONG;
+        }
+
+        return values.longValue;
+    }
+
+    /**
+     * Returns an argument or option value as a double.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not a number
+     */
+    @Override
+    public double getDouble(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (0 == (values.resolved & TypedValues.DOUBLE)) {
+            values.doubleValue = ((Number) getRequired(name, Converters.DOUBLE, Number.class)).doubleValue();
+            values.resolved |= TypedValues.DOUBLE;
+        }
+
+        return values.doubleValue;
+    }
+
+    /**
+     * Returns an argument or option value as a boolean.
+     *
+     * A missing value is false.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or is not a boolean
+     */
+    @Override
+    public boolean getBoolean(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (0 == (values.resolved & TypedValues.BOOLEAN)) {
+            values.booleanValue = Boolean.TRUE.equals(convert(name, getRaw(name), Converters.BOOLEAN, Boolean.class));
+            values.resolved |= TypedValues.BOOLEAN;
+        }
+
+        return values.booleanValue;
+    }
+
+    /**
+     * Returns an argument or option value as a duration in milliseconds.
+     *
+     * @param name The argument or option name
+     *
+     * @return The number of milliseconds
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not a duration
+     */
+    @Override
+    public long getDuration(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (0 == (values.resolved & TypedValues.DURATION)) {
+            values.duration = ((Number) getRequired(name, Converters.DURATION, Number.class)).longValue();
+            values.resolved |= TypedValues.DURATION;
+        }
+
+        return values.duration;
+    }
+
+    /**
+     * Returns an argument or option value as a path.
+     *
+     * @param name The argument or option name
+     *
+     * @return The path, or null if the parameter has no value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist
+     */
+    @Override
+    public File getPath(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (0 == (values.resolved & TypedValues.PATH)) {
+            values.path = (File) convert(name, getRaw(name), Converters.PATH, File.class);
+            values.resolved |= TypedValues.PATH;
+        }
+
+        return values.path;
+    }
+
+    /**
+     * Returns the values of an array argument or option as ints.
+     *
+     * @param name The argument or option name
+     *
+     * @return The cached values, which must not be modified
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or a value is not an integer
+     */
+    @Override
+    public int[] getIntArray(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (null == values.ints) {
+            List<?> elements = getElements(name);
+            int[] ints = new int[elements.size()];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = ((Number) convert(name, elements.get(i), Converters.INTEGER, Number.class)).intValue();
+            }
+            values.ints = ints;
+        }
+
+        return values.ints;
+    }
+
+    /**
+     * Returns the values of an array argument or option as longs.
+     *
+     * @param name The argument or option name
+     *
+     * @return The cached values, which must not be modified
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or a value is not an integer
+     */
+    @Override
+    public long[] getLongArray(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (null == values.longs) {
+            List<?> elements = getElements(name);
+            long[] longs = new long[elements.size()];
+            for (int i = 0; i < longs.length; i++) {
+                longs[i] = ((Number) convert(name, elements.get(i), Converters.LONG, Number.class)).longValue();
+            }
+            values.longs = longs;
+        }
+
+        return values.longs;
+    }
+
+    /**
+     * Returns the values of an array argument or option as doubles.
+     *
+     * @param name The argument or option name
+     *
+     * @return The cached values, which must not be modified
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or a value is not a number
+     */
+    @Override
+    public double[] getDoubleArray(String name) throws IllegalArgumentException {
+        TypedValues values = getTypedValues(name);
+        if (null == values.doubles) {
+            List<?> elements = getElements(name);
+            double[] doubles = new double[elements.size()];
+            for (int i = 0; i < doubles.length; i++) {
+                doubles[i] = ((Number) convert(name, elements.get(i), Converters.DOUBLE, Number.class)).doubleValue();
+            }
+            values.doubles = doubles;
+        }
+
+        return values.doubles;
+    }
+
+    /**
+     * Returns true if the @path values of the InputOption.VALUE_FROM_FILE options are loaded.
+     *
+     * Inputs holding values which are not parsed from text can keep them as given.
+     *
+     * @return True if the file values are loaded, false otherwise
+     */
+    protected boolean isLoadingFileValues() {
+        return true;
+    }
+
+    /**
+     * Replaces the @path values of an option by FileValue instances.
+     *
+     * @param option An InputOption.VALUE_FROM_FILE option
+     *
+     * @throws RuntimeException When a referenced file does not exist
+     */
+    @SuppressWarnings("unchecked")
+    private void loadFileValues(InputOption option) throws RuntimeException {
+        String name = option.getName();
+        Object value = options.get(name);
+
+        if (value instanceof List) {
+            List<Object> values = new ArrayList<Object>((List<Object>) value);
+            for (int i = 0; i < values.size(); i++) {
+                values.set(i, toFileValue(values.get(i)));
+            }
+            options.put(name, values);
+        } else {
+            options.put(name, toFileValue(value));
+        }
+    }
+
+    private Object toFileValue(Object value) throws RuntimeException {
+        if (!(value instanceof String)) {
+            return value;
+        }
+
+        String reference = (String) value;
+        if (reference.length() < 2 || '@' != reference.charAt(0)) {
+            return value;
+        }
+        if ('@' == reference.charAt(1)) {
+            return reference.substring(1);
+        }
+        if ("@-".equals(reference)) {
+            return new FileValue(inputStream);
+        }
+
+        File file = new File(reference.substring(1));
+        if (!file.isFile()) {
+            throw new RuntimeException(String.format("The \"%s\" file does not exist.", file.getPath()));
+        }
+
+        return new FileValue(file);
+    }
+
+    private void convertArgument(InputArgument argument) {
+        String name = argument.getName();
+        Object value = arguments.containsKey(name) ? arguments.get(name) : argument.getDefaultValue();
+        convertedArguments.put(name, convertAll(name, value, argument.getConverter()));
+    }
+
+    private void convertOption(InputOption option) {
+        String name = option.getName();
+        Object value = options.containsKey(name) ? options.get(name) : option.getDefaultValue();
+        convertedOptions.put(name, convertAll(name, value, option.getConverter()));
+    }
+
+    private static Object convertAll(String name, Object value, ConverterInterface converter) {
+        if (!(value instanceof List)) {
+            return convert(name, value, converter, Object.class);
+        }
+
+        List<?> values = (List<?>) value;
+        List<Object> converted = new ArrayList<Object>(values.size());
+        for (Object element : values) {
+            converted.add(convert(name, element, converter, Object.class));
+        }
+
+        return converted;
+    }
+
+    private static Object convert(String name, Object value, ConverterInterface converter, Class<?> type) {
+        if (value instanceof String) {
+            try {
+                value = converter.convert((String) value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("The \"%s\" value \"%s\" is not valid: %s", name, value, e.getMessage()), e);
+            }
+        }
+
+        if (null != value && !type.isInstance(value)) {
+            throw new IllegalArgumentException(String.format("The \"%s\" value cannot be read as a %s.", name, type.getSimpleName()));
+        }
+
+        return value;
+    }
+
+    private Object getRaw(String name) {
+        if (definition.hasArgument(name)) {
+            return getArgument(name);
+        }
+        if (definition.hasOption(name)) {
+            return getOption(name);
+        }
+
+        throw new IllegalArgumentException(String.format("The \"%s\" argument or option does not exist.", name));
+    }
+
+    private TypedValues getTypedValues(String name) {
+        TypedValues values = typed.get(name);
+        if (null == values) {
+            if (!definition.hasArgument(name) && !definition.hasOption(name)) {
+                throw new IllegalArgumentException(String.format("The \"%s\" argument or option does not exist.", name));
+            }
+            values = new TypedValues();
+            typed.put(name, values);
+        }
+
+        return values;
+    }
+
+    private Object getRequired(String name, ConverterInterface converter, Class<?> expected) {
+        Object value = convert(name, getRaw(name), converter, expected);
+        if (null == value) {
+            throw new IllegalArgumentException(String.format("The \"%s\" argument or option has no value.", name));
+        }
+
+        return value;
+    }
+
+    private List<?> getElements(String name) {
+        Object value = getRaw(name);
+        if (null == value) {
+            return new ArrayList<Object>();
+        }
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        if (value instanceof Iterable) {
+            // A streamed argument is read once and for all
+            List<Object> elements = new ArrayList<Object>();
+            for (Object element : (Iterable<?>) value) {
+                elements.add(element);
+            }
+
+            return elements;
+        }
+
+        throw new IllegalArgumentException(String.format("The \"%s\" argument or option is not an array.", name));
+    }
+
+    /**
+     * The values of an argument or option converted by the typed accessors.
+     */
+    private static final class TypedValues {
+
+        private static final int INT = 1;
+        private static final int LONG = 2;
+        private static final int DOUBLE = 4;
+        private static final int BOOLEAN = 8;
+        private static final int DURATION = 16;
+        private static final int PATH = 32;
+
+        private int resolved;
+        private int intValue;
+        private long longValue;
+        private double doubleValue;
+        private boolean booleanValue;
+        private long duration;
+        private File path;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+    }
 }
@@ -10,6 +10,7 @@ package org.nanocom.console.input;
 import java.util.ArrayList;
 import java.util.List;
 import org.nanocom.console.exception.LogicException;
+import org.nanocom.console.resource.TextResource;
 
 /**
  * Represents a command line argument.
@@ -21,11 +22,13 @@ public class InputArgument {
     public static final int REQUIRED = 1;
     public static final int OPTIONAL = 2;
     public static final int IS_ARRAY = 4;
+    public static final int IS_STREAM = 8;
 
     private String  name;
     private Integer mode;
     private Object  defaultValue;
     private String  description;
+    private ConverterInterface converter;
 
     /**
      * @param name         The argument name
@@ -52,7 +55,7 @@ public class InputArgument {
     }
 
     private void init(String name, int mode, String description, Object defaultValue) {
-        if (mode > 7 || mode < 1) {
+        if (mode > 15 || mode < 1) {
             throw new IllegalArgumentException(String.format("Argument mode \"%d\" is not valid.", mode));
         }
 
@@ -60,6 +63,10 @@ public class InputArgument {
         this.mode        = mode;
         this.description = description;
 
+        if (isStream() && !isArray()) {
+            throw new IllegalArgumentException("Impossible to have an argument mode IS_STREAM if the argument is not an array.");
+        }
+
         setDefaultValue(defaultValue);
     }
 
@@ -90,6 +97,21 @@ public class InputArgument {
         return IS_ARRAY == (IS_ARRAY & mode);
     }
 
+    /**
+     * Returns true if the argument values are streamed.
+     *
+     * The value of a streamed argument given on the command line is an
+     * ArgumentStream, which reads the remaining tokens on demand. Once the
+     * first value is reached, the remaining tokens are all values of the
+     * argument, options included, and a "-" value reads the lines of the
+     * standard input.
+     *
+     * @return True if mode is IS_STREAM, false otherwise
+     */
+    public boolean isStream() {
+        return IS_STREAM == (IS_STREAM & mode);
+    }
+
     /**
      * Sets the default value.
      *
@@ -122,12 +144,46 @@ public class InputArgument {
         return defaultValue;
     }
 
+    /**
+     * Sets the converter of the argument values.
+     *
+     * The values are converted once, when an input is bound to a definition
+     * holding this argument.
+     *
+     * @param converter A ConverterInterface instance, or null to keep the raw values
+     */
+    public void setConverter(ConverterInterface converter) {
+        this.converter = converter;
+    }
+
+    /**
+     * Returns the converter of the argument values.
+     *
+     * @return The ConverterInterface instance, or null if the raw values are kept
+     */
+    public ConverterInterface getConverter() {
+        return converter;
+    }
+
     /**
      * Returns the description text.
      *
+     * A description referencing a resource is loaded from it.
+     *
      * @return The description text
      */
     public String getDescription() {
-        return description;
+        return getDescription(null);
+    }
+
+    /**
+     * Returns the description text, loading a referenced one with the given class loader.
+     *
+     * @param classLoader The class loader of the command owning the argument, or null for the context one
+     *
+     * @return The description text
+     */
+    public String getDescription(ClassLoader classLoader) {
+        return TextResource.resolve(description, classLoader);
     }
 }
\ No newline at end of file
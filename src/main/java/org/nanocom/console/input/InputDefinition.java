@@ -28,11 +28,13 @@ import org.nanocom.console.exception.LogicException;
 public class InputDefinition {
 
     private Map<String, InputArgument> arguments;
+    private List<InputArgument>        argumentList;
     private Integer                    requiredCount;
     private Boolean                    hasAnArrayArgument = false;
     private Boolean                    hasOptional;
     private Map<String, InputOption>   options;
     private Map<String, String>        shortcuts;
+    private int                        modificationCount;
 
     /**
      * @param definition An array of InputArgument and InputOption instance
@@ -74,10 +76,12 @@ public class InputDefinition {
      * @param arguments An array of InputArgument objects
      */
     public void setArguments(List<InputArgument> arguments) {
-        this.arguments     = new HashMap<String, InputArgument>();
+        this.arguments     = new LinkedHashMap<String, InputArgument>();
+        argumentList       = new ArrayList<InputArgument>();
         requiredCount      = 0;
         hasOptional        = false;
         hasAnArrayArgument = false;
+        ++modificationCount;
         addArguments(arguments);
     }
 
@@ -125,6 +129,8 @@ public class InputDefinition {
         }
 
         arguments.put(argument.getName(), argument);
+        argumentList.add(argument);
+        ++modificationCount;
     }
 
     /**
@@ -158,10 +164,7 @@ public class InputDefinition {
             throw new IllegalArgumentException(String.format("The \"%s\" argument does not exist.", position));
         }
 
-        // TODO Optimize this awful shit
-        List<InputArgument> arrayArguments = new ArrayList<InputArgument>(arguments.values());
-
-        return arrayArguments.get(position);
+        return argumentList.get(position);
     }
 
     /**
@@ -183,7 +186,7 @@ public class InputDefinition {
      * @return True if the InputArgument object exists, false otherwise
      */
     public boolean hasArgument(int position) {
-        return arguments.size() > position;
+        return position >= 0 && argumentList.size() > position;
     }
 
     /**
@@ -235,6 +238,7 @@ public class InputDefinition {
     public void setOptions(List<InputOption> options) {
         this.options = new LinkedHashMap<String, InputOption>();
         shortcuts = new LinkedHashMap<String, String>();
+        ++modificationCount;
         addOptions(options);
     }
 
@@ -270,6 +274,8 @@ public class InputDefinition {
         if (null != option.getShortcut()) {
             shortcuts.put(option.getShortcut(), option.getName());
         }
+
+        ++modificationCount;
     }
 
     /**
@@ -318,6 +324,16 @@ public class InputDefinition {
         return shortcuts.containsKey(name);
     }
 
+    /**
+     * Returns true if an InputOption object exists by single character shortcut.
+     *
+     * @param shortcut The InputOption shortcut
+     * @return True if the InputOption object exists, false otherwise
+     */
+    public boolean hasShortcut(char shortcut) {
+        return hasShortcut(String.valueOf(shortcut));
+    }
+
     /**
      * Gets an InputOption by shortcut.
      *
@@ -329,6 +345,17 @@ public class InputDefinition {
         return getOption(shortcutToName(shortcut));
     }
 
+    /**
+     * Gets an InputOption by single character shortcut.
+     *
+     * @param shortcut The shortcut
+     *
+     * @return An InputOption object
+     */
+    public InputOption getOptionForShortcut(char shortcut) {
+        return getOptionForShortcut(String.valueOf(shortcut));
+    }
+
     /**
      * Gets an array of default values.
      *
@@ -343,6 +370,27 @@ public class InputDefinition {
         return values;
     }
 
+    /**
+     * Returns a number which changes whenever an argument or an option is added or replaced.
+     *
+     * @return The modification count
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Compiles the definition into an immutable one.
+     *
+     * The frozen definition is a snapshot: later changes to this definition
+     * are not seen by it.
+     *
+     * @return A FrozenInputDefinition instance
+     */
+    public FrozenInputDefinition freeze() {
+        return new FrozenInputDefinition(this);
+    }
+
     /**
      * Returns the InputOption name given a shortcut.
      *
@@ -366,7 +414,7 @@ public class InputDefinition {
      */
     public String getSynopsis() {
         StringBuilder sb = new StringBuilder();
-        for (InputOption option : options.values()) {
+        for (InputOption option : getOptions().values()) {
             String shortcut = (null != option.getShortcut()) ? "-" + option.getShortcut() + "|" : "";
             sb.append("[");
 
@@ -381,7 +429,7 @@ public class InputDefinition {
             sb.append("] ");
         }
 
-        for (InputArgument argument : arguments.values()) {
+        for (InputArgument argument : getArguments().values()) {
             if (argument.isRequired()) {
                 sb.append(String.format("%s%s", argument.getName(), argument.isArray() ? "1" : ""));
             } else {
@@ -401,8 +449,22 @@ public class InputDefinition {
      *
      * @return A string representing the InputDefinition
      */
+    public String asText() {
+        return asText(null);
+    }
+
+    /**
+     * Returns a textual representation of the InputDefinition.
+     *
+     * @param classLoader The class loader of the referenced descriptions, or null for the context one
+     *
+     * @return A string representing the InputDefinition
+     */
     @SuppressWarnings("unchecked")
-	public String asText() {
+	public String asText(ClassLoader classLoader) {
+        Map<String, InputArgument> arguments = getArguments();
+        Map<String, InputOption> options = getOptions();
+
         // Find the largest option or argument name
         int max = 0;
         for (InputOption option : options.values()) {
@@ -420,10 +482,10 @@ public class InputDefinition {
 
         List<String> text = new ArrayList<String>();
 
-        if (!getArguments().isEmpty()) {
+        if (!arguments.isEmpty()) {
             text.add("<comment>Arguments:</comment>");
             String defaultValue;
-            for (InputArgument argument : getArguments().values()) {
+            for (InputArgument argument : arguments.values()) {
                 if (null != argument.getDefaultValue()
                         && (
                                 !(argument.getDefaultValue() instanceof List)
@@ -435,7 +497,7 @@ public class InputDefinition {
                     defaultValue = EMPTY;
                 }
 
-                String description = argument.getDescription().replace("\n", "\n" + repeat(' ', max + 2));
+                String description = argument.getDescription(classLoader).replace("\n", "\n" + repeat(' ', max + 2));
 
                 text.add(String.format(" <info>%-" + max + "s</info> %s%s", argument.getName(), description, defaultValue));
             }
@@ -443,10 +505,10 @@ public class InputDefinition {
             text.add(EMPTY);
         }
 
-        if (!getOptions().isEmpty()) {
+        if (!options.isEmpty()) {
             text.add("<comment>Options:</comment>");
 
-            for (InputOption option : getOptions().values()) {
+            for (InputOption option : options.values()) {
                 String defaultValue;
                 if (
                         option.acceptValue()
@@ -462,7 +524,7 @@ public class InputDefinition {
                 }
 
                 String multiple = option.isArray() ? "<comment> (multiple values allowed)</comment>" : EMPTY;
-                String description = option.getDescription().replace("\n", "\n" + repeat(' ', max + 2));
+                String description = option.getDescription(classLoader).replace("\n", "\n" + repeat(' ', max + 2));
 
                 int optionMax = max - option.getName().length() - 2;
                 text.add(String.format(" <info>%s</info> %-" + optionMax + "s%s%s%s",
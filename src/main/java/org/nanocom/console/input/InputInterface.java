@@ -7,6 +7,7 @@
 
 package org.nanocom.console.input;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
@@ -152,6 +153,108 @@ public interface InputInterface {
      */
     boolean hasOption(String name);
 
+    /**
+     * Returns an argument or option value as an int.
+     *
+     * An argument takes precedence over an option of the same name, and the
+     * converted value is cached.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not an integer
+     */
+    int getInt(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns an argument or option value as a long.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not an integer
+     */
+    long getLong(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns an argument or option value as a double.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not a number
+     */
+    double getDouble(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns an argument or option value as a boolean, false if it has no value.
+     *
+     * @param name The argument or option name
+     *
+     * @return The value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or is not a boolean
+     */
+    boolean getBoolean(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns an argument or option value as a duration, such as "1h30m", in milliseconds.
+     *
+     * @param name The argument or option name
+     *
+     * @return The number of milliseconds
+     *
+     * @throws IllegalArgumentException When the parameter does not exist, has no value or is not a duration
+     */
+    long getDuration(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns an argument or option value as a path.
+     *
+     * @param name The argument or option name
+     *
+     * @return The path, or null if the parameter has no value
+     *
+     * @throws IllegalArgumentException When the parameter does not exist
+     */
+    File getPath(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns the values of an array argument or option as ints.
+     *
+     * @param name The argument or option name
+     *
+     * @return The values
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or a value is not an integer
+     */
+    int[] getIntArray(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns the values of an array argument or option as longs.
+     *
+     * @param name The argument or option name
+     *
+     * @return The values
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or a value is not an integer
+     */
+    long[] getLongArray(String name) throws IllegalArgumentException;
+
+    /**
+     * Returns the values of an array argument or option as doubles.
+     *
+     * @param name The argument or option name
+     *
+     * @return The values
+     *
+     * @throws IllegalArgumentException When the parameter does not exist or a value is not a number
+     */
+    double[] getDoubleArray(String name) throws IllegalArgumentException;
+
     /**
      * Is this input means interactive?
      *
@@ -10,6 +10,7 @@ package org.nanocom.console.input;
 import java.util.ArrayList;
 import java.util.List;
 import org.nanocom.console.exception.LogicException;
+import org.nanocom.console.resource.TextResource;
 
 /**
  * Represents a command line option.
@@ -18,16 +19,18 @@ import org.nanocom.console.exception.LogicException;
  */
 public class InputOption {
 
-    public static final int VALUE_NONE     = 1;
-    public static final int VALUE_REQUIRED = 2;
-    public static final int VALUE_OPTIONAL = 4;
-    public static final int VALUE_IS_ARRAY = 8;
+    public static final int VALUE_NONE      = 1;
+    public static final int VALUE_REQUIRED  = 2;
+    public static final int VALUE_OPTIONAL  = 4;
+    public static final int VALUE_IS_ARRAY  = 8;
+    public static final int VALUE_FROM_FILE = 16;
 
     private String  name;
     private String  shortcut;
     private Integer mode;
     private Object  defaultValue;
     private String  description;
+    private ConverterInterface converter;
 
     /**
      * @param name         The option name
@@ -76,7 +79,7 @@ public class InputOption {
             }
         }
 
-        if (mode > 15 || mode < 1) {
+        if (mode > 31 || mode < 1) {
             throw new IllegalArgumentException(String.format("Option mode \"%d\" is not valid.", mode));
         }
 
@@ -89,6 +92,10 @@ public class InputOption {
             throw new IllegalArgumentException("Impossible to have an option mode VALUE_IS_ARRAY if the option does not accept a value.");
         }
 
+        if (isValueFromFile() && !acceptValue()) {
+            throw new IllegalArgumentException("Impossible to have an option mode VALUE_FROM_FILE if the option does not accept a value.");
+        }
+
         setDefaultValue(defaultValue);
     }
 
@@ -146,6 +153,20 @@ public class InputOption {
         return VALUE_IS_ARRAY == (VALUE_IS_ARRAY & mode);
     }
 
+    /**
+     * Returns true if the option value can be given as a file reference.
+     *
+     * A value given as @path is then a FileValue reading the path file,
+     * @- reads the standard input and @@ escapes a leading @. As a
+     * separate token, @path is a response file, so use @@path after a
+     * space or --option=@path.
+     *
+     * @return True if mode is VALUE_FROM_FILE, false otherwise
+     */
+    public boolean isValueFromFile() {
+        return VALUE_FROM_FILE == (VALUE_FROM_FILE & mode);
+    }
+
     /**
      * Sets the default value.
      *
@@ -178,13 +199,47 @@ public class InputOption {
         return defaultValue;
     }
 
+    /**
+     * Sets the converter of the option values.
+     *
+     * The values are converted once, when an input is bound to a definition
+     * holding this option.
+     *
+     * @param converter A ConverterInterface instance, or null to keep the raw values
+     */
+    public void setConverter(ConverterInterface converter) {
+        this.converter = converter;
+    }
+
+    /**
+     * Returns the converter of the option values.
+     *
+     * @return The ConverterInterface instance, or null if the raw values are kept
+     */
+    public ConverterInterface getConverter() {
+        return converter;
+    }
+
     /**
      * Returns the description text.
      *
+     * A description referencing a resource is loaded from it.
+     *
      * @return The description text
      */
     public String getDescription() {
-        return description;
+        return getDescription(null);
+    }
+
+    /**
+     * Returns the description text, loading a referenced one with the given class loader.
+     *
+     * @param classLoader The class loader of the command owning the option, or null for the context one
+     *
+     * @return The description text
+     */
+    public String getDescription(ClassLoader classLoader) {
+        return TextResource.resolve(description, classLoader);
     }
 
     /**
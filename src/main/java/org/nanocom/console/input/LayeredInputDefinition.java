@@ -0,0 +1,300 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.nanocom.console.exception.LogicException;
+
+/**
+ * A LayeredInputDefinition overlays a definition on top of a shared parent definition.
+ *
+ * The parent arguments come first, followed by the arguments of the layer.
+ * Lookups fall through to the parent without copying it, so that every
+ * command of an application can reference the application definition
+ * instead of holding a merged copy of it. Changes to either definition are
+ * seen by the layered one.
+ *
+ * New arguments and options are added to the layer.
+ *
+ */
+public class LayeredInputDefinition extends InputDefinition {
+
+    private final InputDefinition parent;
+    private final InputDefinition layer;
+    private Map<String, InputArgument> mergedArguments;
+    private int argumentsModificationCount;
+    private Map<String, InputOption> mergedOptions;
+    private int optionsModificationCount;
+
+    /**
+     * @param parent The shared definition
+     * @param layer  The definition overlaid on top of it
+     *
+     * @throws LogicException When the layer conflicts with the parent
+     */
+    public LayeredInputDefinition(InputDefinition parent, InputDefinition layer) {
+        this.parent = parent;
+        this.layer = layer;
+
+        for (InputArgument argument : layer.getArguments().values()) {
+            checkArgument(argument);
+        }
+
+        for (InputOption option : layer.getOptions().values()) {
+            checkOption(option);
+        }
+    }
+
+    /**
+     * Gets the shared definition.
+     *
+     * @return An InputDefinition instance
+     */
+    public InputDefinition getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the definition overlaid on top of the shared one.
+     *
+     * @return An InputDefinition instance
+     */
+    public InputDefinition getLayer() {
+        return layer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setArguments(List<InputArgument> arguments) {
+        // Called by the parent constructor, before the layer is set
+        if (null != layer) {
+            layer.setArguments(null);
+            addArguments(arguments);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addArgument(InputArgument argument) {
+        checkArgument(argument);
+        layer.addArgument(argument);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputArgument getArgument(String name) {
+        return parent.hasArgument(name) ? parent.getArgument(name) : layer.getArgument(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputArgument getArgument(int position) {
+        int count = parent.getArguments().size();
+
+        return position < count ? parent.getArgument(position) : layer.getArgument(position - count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasArgument(String name) {
+        return parent.hasArgument(name) || layer.hasArgument(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasArgument(int position) {
+        return position >= 0 && position < parent.getArguments().size() + layer.getArguments().size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned map is read-only. It is merged again once either definition changed.
+     */
+    @Override
+    public synchronized Map<String, InputArgument> getArguments() {
+        int modificationCount = getModificationCount();
+        if (null == mergedArguments || argumentsModificationCount != modificationCount) {
+            Map<String, InputArgument> arguments = new LinkedHashMap<String, InputArgument>(parent.getArguments());
+            arguments.putAll(layer.getArguments());
+            mergedArguments = Collections.unmodifiableMap(arguments);
+            argumentsModificationCount = modificationCount;
+        }
+
+        return mergedArguments;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getArgumentCount() {
+        int parentCount = parent.getArgumentCount();
+        int layerCount = layer.getArgumentCount();
+        if (Integer.MAX_VALUE == parentCount || Integer.MAX_VALUE == layerCount) {
+            return Integer.MAX_VALUE;
+        }
+
+        return parentCount + layerCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getArgumentRequiredCount() {
+        return parent.getArgumentRequiredCount() + layer.getArgumentRequiredCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> getArgumentDefaults() {
+        Map<String, Object> values = parent.getArgumentDefaults();
+        values.putAll(layer.getArgumentDefaults());
+
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOptions(List<InputOption> options) {
+        // Called by the parent constructor, before the layer is set
+        if (null != layer) {
+            layer.setOptions(new ArrayList<InputOption>());
+            addOptions(options);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addOption(InputOption option) {
+        checkOption(option);
+        layer.addOption(option);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputOption getOption(String name) {
+        return layer.hasOption(name) ? layer.getOption(name) : parent.getOption(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOption(String name) {
+        return layer.hasOption(name) || parent.hasOption(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The returned map is read-only. It is merged again once either definition changed.
+     */
+    @Override
+    public synchronized Map<String, InputOption> getOptions() {
+        int modificationCount = getModificationCount();
+        if (null == mergedOptions || optionsModificationCount != modificationCount) {
+            Map<String, InputOption> options = new LinkedHashMap<String, InputOption>(layer.getOptions());
+            for (InputOption option : parent.getOptions().values()) {
+                if (!options.containsKey(option.getName())) {
+                    options.put(option.getName(), option);
+                }
+            }
+            mergedOptions = Collections.unmodifiableMap(options);
+            optionsModificationCount = modificationCount;
+        }
+
+        return mergedOptions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasShortcut(String name) {
+        return layer.hasShortcut(name) || parent.hasShortcut(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputOption getOptionForShortcut(String shortcut) {
+        return layer.hasShortcut(shortcut) ? layer.getOptionForShortcut(shortcut) : parent.getOptionForShortcut(shortcut);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> getOptionDefaults() {
+        Map<String, Object> values = parent.getOptionDefaults();
+        values.putAll(layer.getOptionDefaults());
+
+        return values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getModificationCount() {
+        return parent.getModificationCount() + layer.getModificationCount();
+    }
+
+    private void checkArgument(InputArgument argument) {
+        if (parent.hasArgument(argument.getName())) {
+            throw new LogicException(String.format("An argument with name \"%s\" already exist.", argument.getName()));
+        }
+
+        if (Integer.MAX_VALUE == parent.getArgumentCount()) {
+            throw new LogicException("Cannot add an argument after an array argument.");
+        }
+
+        if (argument.isRequired() && parent.getArgumentRequiredCount() < parent.getArguments().size()) {
+            throw new LogicException("Cannot add a required argument after an optional one.");
+        }
+    }
+
+    private void checkOption(InputOption option) {
+        if (parent.hasOption(option.getName()) && !option.equals(parent.getOption(option.getName()))) {
+            throw new LogicException(String.format("An option named \"%s\" already exist.", option.getName()));
+        } else if (
+                null != option.getShortcut()
+                && parent.hasShortcut(option.getShortcut())
+                && !option.equals(parent.getOptionForShortcut(option.getShortcut()))
+        ) {
+            throw new LogicException(String.format("An option with shortcut \"%s\" already exist.", option.getShortcut()));
+        }
+    }
+}
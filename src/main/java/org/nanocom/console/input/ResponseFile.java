@@ -0,0 +1,146 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * ResponseFile reads the tokens of an @file response file.
+ *
+ * The file is memory mapped and read a line at a time, as the tokens are
+ * consumed, so that the arguments never need to be held in memory at once.
+ * Each line holds a single argument, kept as is but for its line break,
+ * unless it starts with a quote, in which case it is split the way StringInput
+ * splits its input. A quote elsewhere in a line, as in O'Brien.txt, is part of
+ * the argument. Blank lines and lines starting with # are ignored.
+ *
+ */
+class ResponseFile implements Iterator<String> {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String[] NO_TOKENS = new String[0];
+
+    private final MappedByteBuffer buffer;
+    private byte[] line = new byte[256];
+    private String[] lineTokens = NO_TOKENS;
+    private int lineIndex;
+    private String next;
+
+    /**
+     * Constructor.
+     *
+     * @param file The response file
+     *
+     * @throws RuntimeException When the file cannot be read
+     */
+    public ResponseFile(File file) throws RuntimeException {
+        if (!file.isFile()) {
+            throw new RuntimeException(String.format("The \"%s\" response file does not exist.", file.getPath()));
+        }
+
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = raf.getChannel();
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new RuntimeException(String.format("The \"%s\" response file is too large.", file.getPath()));
+                }
+                // The mapping stays valid once the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to read the \"%s\" response file.", file.getPath()), e);
+        }
+
+        // Skip the UTF-8 byte order mark
+        if (buffer.remaining() >= 3 && (byte) 0xEF == buffer.get(0) && (byte) 0xBB == buffer.get(1) && (byte) 0xBF == buffer.get(2)) {
+            buffer.position(3);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (null == next) {
+            if (lineIndex < lineTokens.length) {
+                next = lineTokens[lineIndex++];
+            } else if (!readLine()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        String token = next;
+        next = null;
+
+        return token;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Reads the tokens of the next line.
+     *
+     * @return False at the end of the file
+     */
+    private boolean readLine() {
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+
+        int length = 0;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if ('\n' == b) {
+                break;
+            }
+            if (length == line.length) {
+                byte[] grown = new byte[length * 2];
+                System.arraycopy(line, 0, grown, 0, length);
+                line = grown;
+            }
+            line[length++] = b;
+        }
+
+        // Only the line break is dropped: spaces may be part of a path
+        if (length > 0 && '\r' == line[length - 1]) {
+            length--;
+        }
+
+        String text = new String(line, 0, length, UTF8);
+        lineIndex = 0;
+        if (text.trim().isEmpty() || '#' == text.charAt(0)) {
+            lineTokens = NO_TOKENS;
+        } else if ('"' == text.charAt(0) || '\'' == text.charAt(0)) {
+            lineTokens = StringInput.tokenize(text);
+        } else {
+            lineTokens = new String[] { text };
+        }
+
+        return true;
+    }
+}
@@ -7,6 +7,9 @@
 
 package org.nanocom.console.input;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * StringInput represents an input provided as a string.
  *
@@ -18,18 +21,20 @@ package org.nanocom.console.input;
  */
 public class StringInput extends ArgvInput {
 
-    // private final static String REGEX_STRING = "([^ ]+?)(?: |(?<!\\\\)\"|(?<!\\\\)\'|$)";
-    // private final static String REGEX_QUOTED_STRING = "(?:\"([^\"\\\\]*(?:\\\\.[^\"\\\\]*)*)\"|\\'([^\'\\\\]*(?:\\\\.[^\'\\\\]*)*)\')";
-
     /**
-     * @param input An array of parameters from the CLI (in the argv format)
+     * @param input A string of parameters from the CLI
      * @param definition An InputDefinition instance
-     * @throws Exception
+     *
+     * @throws IllegalArgumentException When the input has an unterminated quote
      */
     public StringInput(String input, InputDefinition definition) {
-        super(new String[0], definition);
+        super(new String[0], null);
 
         setTokens(tokenize(input));
+
+        if (null != definition) {
+            init(definition);
+        }
     }
 
     public StringInput(String input) {
@@ -37,39 +42,80 @@ public class StringInput extends ArgvInput {
     }
 
     /**
-     * Tokenizes a string.
+     * Tokenizes a string the way a POSIX shell splits words.
+     *
+     * Tokens are separated by whitespace. Single quotes keep their content
+     * as is, double quotes keep it except for the \" and \\ escapes, and a
+     * backslash outside of quotes escapes any character. Quoted and unquoted
+     * parts are joined, so --bar="foo bar" gives the --bar=foo bar token.
+     *
+     * The input is read in a single pass into a buffer reused by all tokens.
      *
      * @param input The input to tokenize
-     * @return The tokenized string
      *
-     * @throws IllegalArgumentException When unable to parse input (should never happen)
+     * @return The tokens
+     *
+     * @throws IllegalArgumentException When the input has an unterminated quote
      */
-    private String[] tokenize(String input) throws IllegalArgumentException {
-        //input.replaceAll("(\r\n|\r|\n|\t)", " ");
+    public static String[] tokenize(String input) throws IllegalArgumentException {
+        List<String> tokens = new ArrayList<String>();
+        int length = input.length();
+        StringBuilder buffer = new StringBuilder(Math.min(length, 64));
+        boolean inToken = false;
+        int cursor = 0;
 
-        // tokens = new ArrayList<String>();
-        // int length = input.length();
-        // int cursor = 0;
-        // TODO Implement this part
-        /* while (cursor < length) {
-            if (preg_match('/\s+/A', $input, $match, null, $cursor)) {
-            } else if (preg_match('/([^="\' ]+?)(=?)('.self::REGEX_QUOTED_STRING.'+)/A', $input, $match, null, $cursor)) {
-                tokens[] = $match[1].$match[2].stripcslashes(str_replace(array('"\'', '\'"', '\'\'', '""'), '', substr($match[3], 1, strlen($match[3]) - 2)));
-            } else if (preg_match('/'.self::REGEX_QUOTED_STRING.'/A', $input, $match, null, $cursor)) {
-                tokens[] = stripcslashes(substr($match[0], 1, strlen($match[0]) - 2));
-            } else if (preg_match('/'.self::REGEX_STRING.'/A', $input, $match, null, $cursor)) {
-                tokens[] = stripcslashes($match[1]);
+        while (cursor < length) {
+            char c = input.charAt(cursor);
+
+            if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(buffer.toString());
+                    buffer.setLength(0);
+                    inToken = false;
+                }
+                cursor++;
+            } else if ('\'' == c) {
+                int end = input.indexOf('\'', cursor + 1);
+                if (-1 == end) {
+                    throw unterminated(input, cursor);
+                }
+                buffer.append(input, cursor + 1, end);
+                inToken = true;
+                cursor = end + 1;
+            } else if ('"' == c) {
+                int start = cursor++;
+                while (true) {
+                    if (cursor == length) {
+                        throw unterminated(input, start);
+                    }
+                    c = input.charAt(cursor++);
+                    if ('"' == c) {
+                        break;
+                    }
+                    if ('\\' == c && cursor < length && ('"' == input.charAt(cursor) || '\\' == input.charAt(cursor))) {
+                        c = input.charAt(cursor++);
+                    }
+                    buffer.append(c);
+                }
+                inToken = true;
             } else {
-                // should never happen
-                // @codeCoverageIgnoreStart
-                throw new IllegalArgumentException(String.format("Unable to parse input near \"... %s ...\"", input.substring(cursor, 10)));
-                // @codeCoverageIgnoreEnd
+                if ('\\' == c && cursor + 1 < length) {
+                    c = input.charAt(++cursor);
+                }
+                buffer.append(c);
+                inToken = true;
+                cursor++;
             }
+        }
 
-            cursor += match.get(0).length();
-        }*/
+        if (inToken) {
+            tokens.add(buffer.toString());
+        }
 
-        return new String[0];
+        return tokens.toArray(new String[tokens.size()]);
     }
 
+    private static IllegalArgumentException unterminated(String input, int cursor) {
+        return new IllegalArgumentException(String.format("Unable to parse input near \"... %s ...\"", input.substring(cursor, Math.min(input.length(), cursor + 10))));
+    }
 }
@@ -0,0 +1,210 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * TokenTable holds the tokens of an input, classified once.
+ *
+ * The tokens are read from their source as they are needed and kept, so
+ * that binding the input again against another definition only resolves
+ * the option and argument names. A streamed argument takes the source
+ * over with detach(), after which the table cannot be used again.
+ *
+ */
+class TokenTable {
+
+    public static final byte ARGUMENT      = 0;
+    public static final byte LONG_OPTION   = 1;
+    public static final byte SHORT_OPTIONS = 2;
+    public static final byte TERMINATOR    = 3;
+
+    private final Iterator<String> source;
+    private String[] tokens = new String[16];
+    private byte[] kinds = new byte[16];
+    private String[] names = new String[16];
+    private String[] values = new String[16];
+    private int size;
+    private boolean terminated;
+    private boolean detached;
+
+    /**
+     * Constructor.
+     *
+     * @param source The tokens
+     */
+    public TokenTable(Iterator<String> source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns true if there is a token at the given position.
+     *
+     * @param position The token position
+     *
+     * @return True if there is a token at the given position
+     */
+    public boolean has(int position) {
+        while (size <= position) {
+            if (detached || !source.hasNext()) {
+                return false;
+            }
+            add(source.next());
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the number of tokens kept.
+     *
+     * @return The number of tokens read from the source before it was detached
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the raw token at the given position.
+     *
+     * @param position The token position
+     *
+     * @return The token
+     */
+    public String getToken(int position) {
+        return tokens[position];
+    }
+
+    /**
+     * Returns the kind of the token at the given position.
+     *
+     * @param position The token position
+     *
+     * @return ARGUMENT, LONG_OPTION, SHORT_OPTIONS or TERMINATOR
+     */
+    public byte getKind(int position) {
+        return kinds[position];
+    }
+
+    /**
+     * Returns the name of the long option at the given position.
+     *
+     * @param position The token position
+     *
+     * @return The option name, without the dashes
+     */
+    public String getName(int position) {
+        return names[position];
+    }
+
+    /**
+     * Returns the inline value of the long option at the given position.
+     *
+     * @param position The token position
+     *
+     * @return The value following the = sign, or null
+     */
+    public String getValue(int position) {
+        return values[position];
+    }
+
+    /**
+     * Returns true if the source was taken over by a streamed argument.
+     *
+     * @return True if the table is detached from its source
+     */
+    public boolean isDetached() {
+        return detached;
+    }
+
+    /**
+     * Hands the tokens from the given position over to a streamed argument.
+     *
+     * The remaining tokens are read from the source without being kept.
+     *
+     * @param position The position of the first token to hand over
+     *
+     * @return An iterator over the raw tokens
+     */
+    public Iterator<String> detach(final int position) {
+        detached = true;
+
+        return new Iterator<String>() {
+
+            private int index = position;
+
+            @Override
+            public boolean hasNext() {
+                return index < size || source.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (index < size) {
+                    return tokens[index++];
+                }
+                if (!source.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return source.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private void add(String token) {
+        if (size == tokens.length) {
+            int capacity = size * 2;
+            tokens = copyOf(tokens, capacity);
+            names = copyOf(names, capacity);
+            values = copyOf(values, capacity);
+            byte[] grown = new byte[capacity];
+            System.arraycopy(kinds, 0, grown, 0, size);
+            kinds = grown;
+        }
+
+        int length = token.length();
+        byte kind;
+        if (terminated || length < 2 || '-' != token.charAt(0)) {
+            // An empty string or a single dash is an argument too
+            kind = ARGUMENT;
+        } else if ('-' != token.charAt(1)) {
+            kind = SHORT_OPTIONS;
+        } else if (2 == length) {
+            kind = TERMINATOR;
+            terminated = true;
+        } else {
+            kind = LONG_OPTION;
+            int index = token.indexOf('=', 2);
+            if (-1 == index) {
+                names[size] = token.substring(2);
+            } else {
+                names[size] = token.substring(2, index);
+                values[size] = token.substring(index + 1);
+            }
+        }
+
+        tokens[size] = token;
+        kinds[size] = kind;
+        size++;
+    }
+
+    private static String[] copyOf(String[] array, int capacity) {
+        String[] copy = new String[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+
+        return copy;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * TypedInput represents an input provided as typed values, by name.
+ *
+ * Binding copies the values as they are: nothing is parsed, and the values
+ * of options and arguments declaring a converter are only converted if they
+ * are strings. The maps are copied, but the values they hold must not be
+ * modified while the input is in use.
+ *
+ * Usage:
+ *
+ *     Map<String, Object> options = new HashMap<String, Object>();
+ *     options.put("count", 3);
+ *     Input input = new TypedInput(arguments, options);
+ *
+ */
+public class TypedInput extends Input {
+
+    private final Map<String, Object> givenArguments;
+    private final Map<String, Object> givenOptions;
+
+    public TypedInput(Map<String, Object> arguments, Map<String, Object> options) {
+        this(arguments, options, null);
+    }
+
+    /**
+     * @param arguments  The argument values by name
+     * @param options    The option values by name, null for a flag
+     * @param definition An InputDefinition instance
+     */
+    public TypedInput(Map<String, Object> arguments, Map<String, Object> options, InputDefinition definition) {
+        givenArguments = new LinkedHashMap<String, Object>(arguments);
+        givenOptions = new LinkedHashMap<String, Object>(options);
+        setInteractive(false);
+        init(definition);
+    }
+
+    /**
+     * Returns the first argument from the raw parameters (not parsed).
+     *
+     * @return The value of the first argument or null otherwise
+     */
+    @Override
+    public String getFirstArgument() {
+        for (Object value : givenArguments.values()) {
+            return null == value ? null : value.toString();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if the raw parameters (not parsed) contain a value.
+     *
+     * @param value The option to look for, as --name or -shortcut
+     *
+     * @return True if the option is given
+     */
+    @Override
+    public boolean hasParameterOption(String value) {
+        return null != findOptionName(value);
+    }
+
+    @Override
+    public boolean hasParameterOption(List<String> values) {
+        for (int i = 0, size = values.size(); i < size; i++) {
+            if (hasParameterOption(values.get(i))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean hasParameterOption(Map<String, String> values) {
+        for (String value : values.values()) {
+            if (hasParameterOption(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the value of a raw option (not parsed).
+     *
+     * @param values       The options to look for, as --name or -shortcut
+     * @param defaultValue The default value to return if no result is found
+     *
+     * @return The option value
+     */
+    @Override
+    public Object getParameterOption(List<String> values, Object defaultValue) {
+        for (int i = 0, size = values.size(); i < size; i++) {
+            String name = findOptionName(values.get(i));
+            if (null != name) {
+                Object value = givenOptions.get(name);
+
+                return null == value ? defaultValue : value;
+            }
+        }
+
+        return defaultValue;
+    }
+
+    @Override
+    public Object getParameterOption(List<String> values) {
+        return getParameterOption(values, false);
+    }
+
+    @Override
+    public Object getParameterOption(String value, Object defaultValue) {
+        return getParameterOption(Arrays.asList(value), defaultValue);
+    }
+
+    @Override
+    public Object getParameterOption(String value) {
+        return getParameterOption(value, false);
+    }
+
+    /**
+     * Binds the values to the definition.
+     *
+     * @throws IllegalArgumentException When an argument or an option does not exist, or a required value is missing
+     */
+    @Override
+    protected void parse() throws IllegalArgumentException {
+        for (Entry<String, Object> argument : givenArguments.entrySet()) {
+            String name = argument.getKey();
+            if (!definition.hasArgument(name)) {
+                throw new IllegalArgumentException(String.format("The \"%s\" argument does not exist.", name));
+            }
+
+            arguments.put(name, toValue(definition.getArgument(name).isArray(), argument.getValue()));
+        }
+
+        for (Entry<String, Object> given : givenOptions.entrySet()) {
+            String name = given.getKey();
+            if (!definition.hasOption(name)) {
+                throw new IllegalArgumentException(String.format("The \"--%s\" option does not exist.", name));
+            }
+
+            InputOption option = definition.getOption(name);
+            Object value = given.getValue();
+            if (null == value) {
+                if (option.isValueRequired()) {
+                    throw new IllegalArgumentException(String.format("The \"--%s\" option requires a value.", name));
+                }
+
+                value = option.isValueOptional() ? option.getDefaultValue() : true;
+            }
+
+            options.put(name, toValue(option.isArray(), value));
+        }
+    }
+
+    /**
+     * The values are bound as given: an "@path" string is not loaded from a file.
+     *
+     * @return False
+     */
+    @Override
+    protected boolean isLoadingFileValues() {
+        return false;
+    }
+
+    /**
+     * Wraps a single value, or copies an array, for an array parameter.
+     */
+    private static Object toValue(boolean array, Object value) {
+        if (!array || value instanceof Iterable) {
+            return value;
+        }
+
+        List<Object> values = new ArrayList<Object>();
+        if (null != value && value.getClass().isArray()) {
+            // Also covers the arrays of primitives, such as int[]
+            for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                values.add(Array.get(value, i));
+            }
+        } else if (null != value) {
+            values.add(value);
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the name of a given option.
+     *
+     * @param value The option, as --name or -shortcut
+     *
+     * @return The option name, or null if the option is not given
+     */
+    private String findOptionName(String value) {
+        String name = null;
+        if (value.startsWith("--")) {
+            name = value.substring(2);
+        } else if (2 == value.length() && '-' == value.charAt(0) && definition.hasShortcut(value.charAt(1))) {
+            name = definition.getOptionForShortcut(value.charAt(1)).getName();
+        }
+
+        return null != name && givenOptions.containsKey(name) ? name : null;
+    }
+}
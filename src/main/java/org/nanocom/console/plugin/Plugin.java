@@ -0,0 +1,201 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.exception.LogicException;
+
+/**
+ * A Plugin is a jar declaring commands.
+ *
+ * Each plugin gets its own class loader, created when one of its commands
+ * is first needed. The class loader reads a private copy of the jar, so that
+ * the jar can be replaced while the plugin is in use.
+ *
+ * A retired plugin releases its class loader and deletes its copy of the
+ * jar once its last running command returned. It cannot be loaded again.
+ *
+ */
+public class Plugin {
+
+    private final File jar;
+    private final String checksum;
+    private final List<PluginIndex.Entry> entries;
+    private final ClassLoader parent;
+    private ClassLoader classLoader;
+    private File copy;
+    private List<Command> commands;
+    private int running;
+    private boolean retired;
+
+    /**
+     * @param jar      The jar file
+     * @param checksum The checksum of the jar
+     * @param entries  The commands declared by the jar
+     * @param parent   The parent of the plugin class loader
+     */
+    public Plugin(File jar, String checksum, List<PluginIndex.Entry> entries, ClassLoader parent) {
+        this.jar = jar;
+        this.checksum = checksum;
+        this.entries = Collections.unmodifiableList(new ArrayList<PluginIndex.Entry>(entries));
+        this.parent = parent;
+    }
+
+    /**
+     * Gets the jar file.
+     *
+     * @return The jar file
+     */
+    public File getJar() {
+        return jar;
+    }
+
+    /**
+     * Gets the checksum of the jar.
+     *
+     * @return The checksum
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Gets the commands declared by the jar.
+     *
+     * @return A list of entries
+     */
+    public List<PluginIndex.Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns true if the class loader of the plugin has been created.
+     *
+     * @return True if the plugin is loaded, false otherwise
+     */
+    public synchronized boolean isLoaded() {
+        return null != classLoader;
+    }
+
+    /**
+     * Returns true if the plugin has been retired.
+     *
+     * @return True if the plugin is retired, false otherwise
+     */
+    public synchronized boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Gets the class loader of the plugin, creating it on first call.
+     *
+     * @return A ClassLoader instance
+     *
+     * @throws LogicException   When the plugin was retired and released
+     * @throws RuntimeException When the jar cannot be copied
+     */
+    public synchronized ClassLoader getClassLoader() {
+        if (null == classLoader) {
+            if (retired) {
+                throw new LogicException(String.format("The plugin \"%s\" is retired.", this));
+            }
+
+            try {
+                copy = File.createTempFile("console-plugin-", ".jar");
+                FileUtils.copyFile(jar, copy);
+                classLoader = new URLClassLoader(new URL[] {copy.toURI().toURL()}, parent);
+            } catch (IOException e) {
+                FileUtils.deleteQuietly(copy);
+                throw new RuntimeException(String.format("Unable to load the plugin \"%s\".", this), e);
+            }
+        }
+
+        return classLoader;
+    }
+
+    /**
+     * Gets the lazy commands standing for the commands of the plugin.
+     *
+     * @return A list of commands
+     */
+    public synchronized List<Command> getCommands() {
+        if (null == commands) {
+            commands = new ArrayList<Command>();
+            for (PluginIndex.Entry entry : entries) {
+                commands.add(new PluginCommand(this, entry));
+            }
+        }
+
+        return commands;
+    }
+
+    /**
+     * Retires the plugin.
+     *
+     * The class loader is released right away if no command of the plugin
+     * is running, or else when the last one returns.
+     */
+    public synchronized void retire() {
+        retired = true;
+        if (0 == running) {
+            release();
+        }
+    }
+
+    /**
+     * Marks the start of a command run.
+     */
+    synchronized void enter() {
+        running++;
+    }
+
+    /**
+     * Marks the end of a command run.
+     */
+    synchronized void leave() {
+        if (0 == --running && retired) {
+            release();
+        }
+    }
+
+    private void release() {
+        if (null == classLoader) {
+            return;
+        }
+
+        // URLClassLoader.close() only exists from Java 7, the loader is left to the GC otherwise
+        try {
+            Method close = classLoader.getClass().getMethod("close");
+            close.invoke(classLoader);
+        } catch (Exception e) {
+            // Ignore
+        }
+
+        classLoader = null;
+        for (Command command : getCommands()) {
+            ((PluginCommand) command).release();
+        }
+
+        FileUtils.deleteQuietly(copy);
+        copy = null;
+    }
+
+    @Override
+    public String toString() {
+        return jar.getName();
+    }
+}
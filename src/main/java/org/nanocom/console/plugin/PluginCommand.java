@@ -0,0 +1,88 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.plugin;
+
+import org.nanocom.console.command.Command;
+import org.nanocom.console.command.LazyCommand;
+import org.nanocom.console.exception.LogicException;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * PluginCommand stands for a command of a plugin until it is dispatched.
+ *
+ */
+public class PluginCommand extends LazyCommand {
+
+    private final Plugin plugin;
+    private final String className;
+
+    /**
+     * @param plugin The plugin declaring the command
+     * @param entry  The command entry
+     */
+    public PluginCommand(Plugin plugin, PluginIndex.Entry entry) {
+        super(entry.getName(), entry.getDescription(), entry.getAliases());
+        this.plugin = plugin;
+        this.className = entry.getClassName();
+    }
+
+    /**
+     * Gets the plugin declaring the command.
+     *
+     * @return A Plugin instance
+     */
+    public Plugin getPlugin() {
+        return plugin;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The plugin is not released while the command is running.
+     */
+    @Override
+    public int run(InputInterface input, OutputInterface output) {
+        plugin.enter();
+        try {
+            return super.run(input, output);
+        } finally {
+            plugin.leave();
+        }
+    }
+
+    /**
+     * Drops the command created from the class loader of the released plugin.
+     */
+    void release() {
+        unload();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws LogicException When the class cannot be instantiated as a command
+     */
+    @Override
+    protected Command createCommand() {
+        try {
+            Class<?> commandClass = Class.forName(className, true, plugin.getClassLoader());
+            if (!Command.class.isAssignableFrom(commandClass)) {
+                throw new LogicException(String.format("The class \"%s\" of the plugin \"%s\" is not a command.", className, plugin));
+            }
+
+            return (Command) commandClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new LogicException(String.format("The class \"%s\" of the plugin \"%s\" does not exist.", className, plugin));
+        } catch (InstantiationException e) {
+            throw new LogicException(String.format("The class \"%s\" of the plugin \"%s\" cannot be instantiated.", className, plugin));
+        } catch (IllegalAccessException e) {
+            throw new LogicException(String.format("The class \"%s\" of the plugin \"%s\" cannot be instantiated.", className, plugin));
+        }
+    }
+}
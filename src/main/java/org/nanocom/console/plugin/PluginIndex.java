@@ -0,0 +1,243 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import static org.apache.commons.lang3.StringUtils.*;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * PluginIndex caches the commands declared by plugin jars, keyed by jar checksum.
+ *
+ * The index also remembers the size and modification time each jar had
+ * when its checksum was computed, so that unchanged jars are neither read
+ * nor opened on startup.
+ *
+ */
+public class PluginIndex {
+
+    /**
+     * A command declared by a plugin.
+     */
+    public static class Entry {
+
+        private final String className;
+        private final String name;
+        private final String description;
+        private final List<String> aliases;
+
+        /**
+         * @param className   The fully qualified name of the command class
+         * @param name        The command name
+         * @param description The command description
+         * @param aliases     The command aliases
+         */
+        public Entry(String className, String name, String description, List<String> aliases) {
+            this.className = className;
+            this.name = name;
+            this.description = description;
+            this.aliases = aliases;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public List<String> getAliases() {
+            return aliases;
+        }
+    }
+
+    private final File file;
+    private final Properties properties;
+    private boolean modified;
+
+    /**
+     * @param file The file the index is persisted to
+     */
+    public PluginIndex(File file) {
+        this.file = file;
+        this.properties = new Properties();
+    }
+
+    /**
+     * Loads the index from its file, if it exists.
+     *
+     * An unreadable index is ignored, the jars are then read again.
+     */
+    public void load() {
+        if (!file.isFile()) {
+            return;
+        }
+
+        InputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            properties.load(stream);
+        } catch (IOException e) {
+            properties.clear();
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Saves the index to its file if it has been modified.
+     *
+     * @throws RuntimeException When the index cannot be written
+     */
+    public void save() {
+        if (!modified) {
+            return;
+        }
+
+        OutputStream stream = null;
+        try {
+            stream = new FileOutputStream(file);
+            properties.store(stream, "Console plugin index");
+            modified = false;
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to write the plugin index \"%s\".", file), e);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * Returns the checksum recorded for a jar, if it did not change since.
+     *
+     * @param jar A jar file
+     *
+     * @return The checksum, or null if unknown or the jar changed
+     */
+    public String getChecksum(File jar) {
+        String stamp = properties.getProperty("file." + jar.getName());
+        if (null == stamp || !stamp.startsWith(getStamp(jar) + "/")) {
+            return null;
+        }
+
+        return substringAfterLast(stamp, "/");
+    }
+
+    /**
+     * Records the checksum of a jar.
+     *
+     * @param jar      A jar file
+     * @param checksum The checksum of its content
+     */
+    public void setChecksum(File jar, String checksum) {
+        set("file." + jar.getName(), getStamp(jar) + "/" + checksum);
+    }
+
+    /**
+     * Returns true if the commands of a jar with the given checksum are known.
+     *
+     * @param checksum A jar checksum
+     *
+     * @return True if the entries are known, false otherwise
+     */
+    public boolean has(String checksum) {
+        return properties.containsKey(checksum + ".commands");
+    }
+
+    /**
+     * Gets the commands declared by a jar.
+     *
+     * @param checksum A jar checksum
+     *
+     * @return A list of entries
+     */
+    public List<Entry> get(String checksum) {
+        List<Entry> entries = new ArrayList<Entry>();
+        for (String className : split(properties.getProperty(checksum + ".commands", EMPTY), ',')) {
+            String prefix = checksum + "." + className;
+            String aliases = properties.getProperty(prefix + ".aliases", EMPTY);
+            entries.add(new Entry(
+                className,
+                properties.getProperty(prefix + ".name"),
+                properties.getProperty(prefix + ".description"),
+                new ArrayList<String>(Arrays.asList(split(aliases, ',')))
+            ));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Records the commands declared by a jar.
+     *
+     * @param checksum A jar checksum
+     * @param entries  The entries
+     */
+    public void put(String checksum, List<Entry> entries) {
+        List<String> classNames = new ArrayList<String>();
+        for (Entry entry : entries) {
+            String prefix = checksum + "." + entry.getClassName();
+            classNames.add(entry.getClassName());
+            set(prefix + ".name", entry.getName());
+            set(prefix + ".description", defaultString(entry.getDescription()));
+            set(prefix + ".aliases", join(entry.getAliases(), ','));
+        }
+
+        set(checksum + ".commands", join(classNames, ','));
+    }
+
+    /**
+     * Forgets the jars and checksums not in use anymore.
+     *
+     * @param jars      The jars in use
+     * @param checksums The checksums in use
+     */
+    public void prune(Collection<File> jars, Collection<String> checksums) {
+        Set<String> keep = new HashSet<String>();
+        for (File jar : jars) {
+            keep.add("file." + jar.getName());
+        }
+
+        for (Object key : new ArrayList<Object>(properties.keySet())) {
+            String name = (String) key;
+            if (keep.contains(name) || checksums.contains(substringBefore(name, "."))) {
+                continue;
+            }
+
+            properties.remove(name);
+            modified = true;
+        }
+    }
+
+    private void set(String key, String value) {
+        if (!value.equals(properties.getProperty(key))) {
+            properties.setProperty(key, value);
+            modified = true;
+        }
+    }
+
+    private static String getStamp(File jar) {
+        return jar.length() + "/" + jar.lastModified();
+    }
+}
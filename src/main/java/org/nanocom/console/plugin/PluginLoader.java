@@ -0,0 +1,227 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.plugin;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import static org.apache.commons.lang3.StringUtils.*;
+import org.apache.commons.io.FileUtils;
+import org.nanocom.console.Application;
+import org.nanocom.console.exception.LogicException;
+
+/**
+ * PluginLoader discovers the plugin jars of a directory.
+ *
+ * A plugin jar declares its commands in its manifest:
+ *
+ *     Console-Commands: org.acme.FooCommand org.acme.BarCommand
+ *
+ *     Name: org/acme/FooCommand.class
+ *     Console-Command-Name: acme:foo
+ *     Console-Command-Description: Does foo
+ *     Console-Command-Aliases: foo,f
+ *
+ * The declared commands are cached in an index keyed by jar checksum, so
+ * that unchanged jars are not opened on startup. The commands are registered
+ * as lazy commands: the class loader of a plugin is only created when one of
+ * its commands is dispatched.
+ *
+ * Usage:
+ *
+ *     new PluginLoader(new File("/usr/share/myapp/plugins")).register(application);
+ *
+ */
+public class PluginLoader {
+
+    public static final String COMMANDS_ATTRIBUTE = "Console-Commands";
+    public static final String NAME_ATTRIBUTE = "Console-Command-Name";
+    public static final String DESCRIPTION_ATTRIBUTE = "Console-Command-Description";
+    public static final String ALIASES_ATTRIBUTE = "Console-Command-Aliases";
+
+    private final File directory;
+    private final PluginIndex index;
+    private ClassLoader parentClassLoader;
+
+    /**
+     * @param directory The plugin directory, the index is stored in it
+     */
+    public PluginLoader(File directory) {
+        this(directory, new File(directory, ".index"));
+    }
+
+    /**
+     * @param directory The plugin directory
+     * @param indexFile The file the index is stored in
+     */
+    public PluginLoader(File directory, File indexFile) {
+        this.directory = directory;
+        this.index = new PluginIndex(indexFile);
+        this.parentClassLoader = PluginLoader.class.getClassLoader();
+    }
+
+    /**
+     * Sets the parent of the plugin class loaders.
+     *
+     * @param parentClassLoader A ClassLoader instance
+     */
+    public void setParentClassLoader(ClassLoader parentClassLoader) {
+        this.parentClassLoader = parentClassLoader;
+    }
+
+    /**
+     * Gets the plugin directory.
+     *
+     * @return The directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Discovers the plugins of the directory.
+     *
+     * @return A list of plugins, sorted by jar name
+     *
+     * @throws RuntimeException When a jar cannot be read
+     */
+    public List<Plugin> load() {
+        index.load();
+
+        List<Plugin> plugins = new ArrayList<Plugin>();
+        List<File> jars = getJars();
+        Set<String> checksums = new HashSet<String>();
+        for (File jar : jars) {
+            String checksum = getChecksum(jar);
+            if (!index.has(checksum)) {
+                index.put(checksum, readManifest(jar));
+            }
+
+            checksums.add(checksum);
+            plugins.add(new Plugin(jar, checksum, index.get(checksum), parentClassLoader));
+        }
+
+        index.prune(jars, checksums);
+        index.save();
+
+        return plugins;
+    }
+
+    /**
+     * Discovers the plugins of the directory and adds their commands to an application.
+     *
+     * @param application An Application instance
+     *
+     * @return The registered plugins
+     */
+    public List<Plugin> register(Application application) {
+        List<Plugin> plugins = load();
+        for (Plugin plugin : plugins) {
+            application.addCommands(plugin.getCommands());
+        }
+
+        return plugins;
+    }
+
+    /**
+     * Reads the commands declared in the manifest of a jar.
+     *
+     * @param jar A jar file
+     *
+     * @return A list of entries
+     *
+     * @throws RuntimeException When the jar cannot be read
+     * @throws LogicException   When a command is declared without a name
+     */
+    protected List<PluginIndex.Entry> readManifest(File jar) {
+        Manifest manifest;
+        JarFile jarFile = null;
+        try {
+            jarFile = new JarFile(jar);
+            manifest = jarFile.getManifest();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to read the plugin \"%s\".", jar), e);
+        } finally {
+            close(jarFile);
+        }
+
+        List<PluginIndex.Entry> entries = new ArrayList<PluginIndex.Entry>();
+        if (null == manifest) {
+            return entries;
+        }
+
+        String classNames = manifest.getMainAttributes().getValue(COMMANDS_ATTRIBUTE);
+        for (String className : split(classNames, ", ")) {
+            Attributes attributes = manifest.getAttributes(className.replace('.', '/') + ".class");
+            String name = null == attributes ? null : attributes.getValue(NAME_ATTRIBUTE);
+            if (isEmpty(name)) {
+                throw new LogicException(String.format("The plugin \"%s\" does not declare a name for the command \"%s\".", jar.getName(), className));
+            }
+
+            entries.add(new PluginIndex.Entry(
+                className,
+                name,
+                attributes.getValue(DESCRIPTION_ATTRIBUTE),
+                new ArrayList<String>(Arrays.asList(split(attributes.getValue(ALIASES_ATTRIBUTE), ", ")))
+            ));
+        }
+
+        return entries;
+    }
+
+    private List<File> getJars() {
+        File[] files = directory.listFiles(new FileFilter() {
+
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(".jar");
+            }
+        });
+
+        if (null == files) {
+            return new ArrayList<File>();
+        }
+
+        Arrays.sort(files);
+
+        return new ArrayList<File>(Arrays.asList(files));
+    }
+
+    private String getChecksum(File jar) {
+        String checksum = index.getChecksum(jar);
+        if (null == checksum) {
+            try {
+                checksum = Long.toHexString(FileUtils.checksumCRC32(jar));
+            } catch (IOException e) {
+                throw new RuntimeException(String.format("Unable to read the plugin \"%s\".", jar), e);
+            }
+
+            index.setChecksum(jar, checksum);
+        }
+
+        return checksum;
+    }
+
+    private static void close(JarFile jarFile) {
+        if (null != jarFile) {
+            try {
+                jarFile.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+}
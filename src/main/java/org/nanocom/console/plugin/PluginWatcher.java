@@ -0,0 +1,166 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.plugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.exception.LogicException;
+
+/**
+ * A PluginWatcher keeps the commands of an Application in sync with a plugin directory.
+ *
+ * When a plugin jar is added, replaced or removed, its commands are swapped
+ * in the application at once. The commands already running finish on the
+ * old version of the plugin, the next invocations use the new one, and the
+ * class loader of the old version is released once they all returned.
+ *
+ * Jars should be replaced by renaming them into the directory, so that a
+ * partially written jar is never read. A jar which cannot be read is kept
+ * at its previous version and checked again later.
+ *
+ * Usage:
+ *
+ *     PluginWatcher watcher = new PluginWatcher(new PluginLoader(directory), application);
+ *     watcher.start(1000);
+ *
+ */
+public class PluginWatcher {
+
+    private final PluginLoader loader;
+    private final Application application;
+    private Map<File, Plugin> plugins;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Registers the plugins of the directory in the application.
+     *
+     * @param loader      A PluginLoader instance
+     * @param application An Application instance
+     */
+    public PluginWatcher(PluginLoader loader, Application application) {
+        this.loader = loader;
+        this.application = application;
+        this.plugins = new LinkedHashMap<File, Plugin>();
+        check();
+    }
+
+    /**
+     * Gets the current plugins.
+     *
+     * @return A list of plugins
+     */
+    public synchronized List<Plugin> getPlugins() {
+        return new ArrayList<Plugin>(plugins.values());
+    }
+
+    /**
+     * Checks the plugin directory once and swaps the commands of the changed plugins.
+     *
+     * @return True if some plugins changed, false otherwise
+     *
+     * @throws RuntimeException When a jar cannot be read
+     */
+    public synchronized boolean check() {
+        Map<File, Plugin> current = new LinkedHashMap<File, Plugin>();
+        List<Plugin> retired = new ArrayList<Plugin>();
+        List<Command> removed = new ArrayList<Command>();
+        List<Command> added = new ArrayList<Command>();
+
+        for (Plugin plugin : loader.load()) {
+            Plugin previous = plugins.get(plugin.getJar());
+            if (null != previous && previous.getChecksum().equals(plugin.getChecksum())) {
+                current.put(previous.getJar(), previous);
+                continue;
+            }
+
+            current.put(plugin.getJar(), plugin);
+            added.addAll(plugin.getCommands());
+        }
+
+        for (Plugin plugin : plugins.values()) {
+            if (current.get(plugin.getJar()) != plugin) {
+                retired.add(plugin);
+                removed.addAll(plugin.getCommands());
+            }
+        }
+
+        if (retired.isEmpty() && added.isEmpty()) {
+            return false;
+        }
+
+        application.replace(removed, added);
+        plugins = current;
+
+        for (Plugin plugin : retired) {
+            plugin.retire();
+        }
+
+        return true;
+    }
+
+    /**
+     * Starts checking the plugin directory periodically in a background thread.
+     *
+     * @param interval The delay between checks, in milliseconds
+     *
+     * @throws LogicException When the watcher is already started
+     */
+    public synchronized void start(final long interval) {
+        if (running) {
+            throw new LogicException("The plugin watcher is already started.");
+        }
+
+        running = true;
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        Thread.sleep(interval);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+
+                    try {
+                        check();
+                    } catch (RuntimeException e) {
+                        // Retried on next check
+                    }
+                }
+            }
+        }, "console-plugin-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops checking the plugin directory.
+     *
+     * @throws InterruptedException When interrupted while waiting for the thread
+     */
+    public void stop() throws InterruptedException {
+        Thread stopped;
+        synchronized (this) {
+            running = false;
+            stopped = thread;
+            thread = null;
+        }
+
+        if (null != stopped) {
+            stopped.interrupt();
+            stopped.join();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.queue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * JobLog is the append-only file backing a JobQueue.
+ *
+ * Each record is framed as its payload length, the CRC32 of its payload
+ * and the payload itself. A record torn by a crash fails the length or
+ * checksum test and is truncated, together with everything after it,
+ * when the log is replayed.
+ *
+ */
+class JobLog {
+
+    static final byte ENQUEUE = 1;
+    static final byte ACK     = 2;
+    static final byte RETRY   = 3;
+    static final byte DEAD    = 4;
+
+    private static final int HEADER_LENGTH = 8;
+
+    private final File file;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+
+    /**
+     * The result of a replay.
+     */
+    static class Replay {
+
+        final Map<Long, QueuedJob> pending = new LinkedHashMap<Long, QueuedJob>();
+        final Map<Long, QueuedJob> dead = new LinkedHashMap<Long, QueuedJob>();
+        long lastId;
+        int records;
+    }
+
+    /**
+     * @param file The log file, created if it does not exist
+     */
+    JobLog(File file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    /**
+     * Reads the whole log, truncating a torn tail if any.
+     *
+     * @return The jobs still pending and the dead ones
+     */
+    synchronized Replay replay() throws IOException {
+        Replay replay = new Replay();
+        long length = channel.size();
+        long offset = 0;
+
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            CRC32 crc = new CRC32();
+            while (length - offset >= HEADER_LENGTH) {
+                int payloadLength = input.readInt();
+                int checksum = input.readInt();
+                if (payloadLength <= 0 || payloadLength > length - offset - HEADER_LENGTH) {
+                    break;
+                }
+
+                byte[] payload = new byte[payloadLength];
+                input.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                apply(replay, new DataInputStream(new ByteArrayInputStream(payload)));
+                offset += HEADER_LENGTH + payloadLength;
+                replay.records++;
+            }
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+
+        if (offset < length) {
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        channel.position(offset);
+
+        return replay;
+    }
+
+    /**
+     * Appends encoded records to the log.
+     *
+     * @param records The records, as returned by the encode methods
+     * @param sync    Whether to force the records to the storage device
+     */
+    synchronized void append(byte[] records, boolean sync) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Forces the appended records to the storage device.
+     */
+    synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Replaces the log with one holding only the given jobs.
+     *
+     * @param pending The pending jobs
+     * @param dead    The dead jobs
+     */
+    synchronized void rewrite(Collection<QueuedJob> pending, Collection<QueuedJob> dead) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        RandomAccessFile tmpFile = new RandomAccessFile(tmp, "rw");
+        try {
+            tmpFile.setLength(0);
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            for (QueuedJob job : pending) {
+                records.write(encodeEnqueue(job));
+                if (job.getAttempts() > 0) {
+                    records.write(encodeRetry(job.getId(), job.getAttempts()));
+                }
+            }
+            for (QueuedJob job : dead) {
+                records.write(encodeEnqueue(job));
+                records.write(encodeDead(job.getId(), job.getAttempts()));
+            }
+
+            tmpFile.write(records.toByteArray());
+            tmpFile.getChannel().force(true);
+        } finally {
+            tmpFile.close();
+        }
+
+        close();
+        if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+            open();
+            throw new IOException(String.format("Unable to replace the job log \"%s\".", file));
+        }
+
+        open();
+        channel.position(channel.size());
+    }
+
+    /**
+     * Closes the log.
+     */
+    synchronized void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    static byte[] encodeEnqueue(QueuedJob job) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream payload = new DataOutputStream(bytes);
+            payload.writeByte(ENQUEUE);
+            payload.writeLong(job.getId());
+            payload.writeUTF(job.getCommandName());
+            payload.writeInt(job.getParameters().size());
+            for (Entry<String, String> parameter : job.getParameters().entrySet()) {
+                payload.writeUTF(parameter.getKey());
+                payload.writeBoolean(null != parameter.getValue());
+                if (null != parameter.getValue()) {
+                    payload.writeUTF(parameter.getValue());
+                }
+            }
+
+            return frame(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static byte[] encodeAck(long id) {
+        return encodeState(ACK, id, 0);
+    }
+
+    static byte[] encodeRetry(long id, int attempts) {
+        return encodeState(RETRY, id, attempts);
+    }
+
+    static byte[] encodeDead(long id, int attempts) {
+        return encodeState(DEAD, id, attempts);
+    }
+
+    private static byte[] encodeState(byte type, long id, int attempts) {
+        return frame(ByteBuffer.allocate(13).put(type).putLong(id).putInt(attempts).array());
+    }
+
+    private static byte[] frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        return ByteBuffer.allocate(HEADER_LENGTH + payload.length)
+            .putInt(payload.length)
+            .putInt((int) crc.getValue())
+            .put(payload)
+            .array();
+    }
+
+    private void apply(Replay replay, DataInputStream payload) throws IOException {
+        byte type = payload.readByte();
+        long id = payload.readLong();
+        replay.lastId = Math.max(replay.lastId, id);
+
+        if (ENQUEUE == type) {
+            String commandName = payload.readUTF();
+            int count = payload.readInt();
+            Map<String, String> parameters = new LinkedHashMap<String, String>();
+            for (int i = 0; i < count; i++) {
+                String key = payload.readUTF();
+                parameters.put(key, payload.readBoolean() ? payload.readUTF() : null);
+            }
+
+            replay.pending.put(id, new QueuedJob(id, commandName, parameters, 0));
+
+            return;
+        }
+
+        int attempts = payload.readInt();
+        QueuedJob job = replay.pending.get(id);
+        if (null == job) {
+            return;
+        }
+
+        if (ACK == type) {
+            replay.pending.remove(id);
+        } else if (RETRY == type) {
+            job.setAttempts(attempts);
+        } else if (DEAD == type) {
+            job.setAttempts(attempts);
+            replay.pending.remove(id);
+            replay.dead.put(id, job);
+        }
+    }
+
+    private void open() throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.queue;
+
+import org.nanocom.console.output.Output;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * JobOutput is the output of a single job run by a JobQueue.
+ *
+ * It has its own verbosity and formatter, so that the global options of a
+ * job such as --quiet or --ansi do not change the output of the other jobs,
+ * and writes the formatted messages to the output of the queue, one at a time.
+ *
+ */
+class JobOutput extends Output {
+
+    private final OutputInterface target;
+
+    /**
+     * @param target The output of the queue
+     */
+    public JobOutput(OutputInterface target) {
+        super(target.getVerbosity(), target.isDecorated());
+        this.target = target;
+    }
+
+    @Override
+    protected void doWrite(String message, boolean newline) {
+        synchronized (target) {
+            target.write(message, newline, OutputType.RAW);
+        }
+    }
+}
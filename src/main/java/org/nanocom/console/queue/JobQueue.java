@@ -0,0 +1,381 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.queue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.nanocom.console.Application;
+import org.nanocom.console.exception.LogicException;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.output.NullOutput;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * A JobQueue stores deferred command invocations in a local append-only log
+ * and runs them on a pool of worker threads inside the Application.
+ *
+ * Processing is at-least-once: a job is only acknowledged in the log once its
+ * command returned, so jobs interrupted by a crash run again on restart.
+ * A job whose command fails (non-zero status code or exception) is retried
+ * until it reaches the maximum number of attempts, then kept as dead.
+ *
+ * Enqueued jobs are written to the log right away, which makes them survive
+ * a crash of the process. Enable setSyncOnEnqueue() to also make them survive
+ * a crash of the system, at the cost of a disk synchronization per job.
+ * Acknowledgements are always synchronized, once per batch. The log is
+ * compacted once enough records were made obsolete by acknowledgements.
+ *
+ * Usage:
+ *
+ *     JobQueue queue = new JobQueue(new File("/var/lib/myapp/jobs.log"), application);
+ *     queue.start(4);
+ *     queue.enqueue("mail:send", parameters);
+ *
+ */
+public class JobQueue {
+
+    private final Application application;
+    private final JobLog log;
+    private final AtomicLong lastId;
+    private final Map<Long, QueuedJob> pending;
+    private final Map<Long, QueuedJob> dead;
+    private final BlockingQueue<QueuedJob> ready;
+    private final List<Thread> workers;
+    private volatile boolean running;
+    private int maxAttempts = 3;
+    private int batchSize = 32;
+    private boolean syncOnEnqueue = false;
+    private int compactThreshold = 1024;
+    private int obsoleteRecords;
+    private OutputInterface output = new NullOutput();
+
+    /**
+     * Opens a queue, recovering the jobs left pending in its log.
+     *
+     * @param file        The log file, created if it does not exist
+     * @param application An Application instance
+     *
+     * @throws RuntimeException When the log cannot be read
+     */
+    public JobQueue(File file, Application application) {
+        this.application = application;
+        this.pending = new ConcurrentHashMap<Long, QueuedJob>();
+        this.dead = new LinkedHashMap<Long, QueuedJob>();
+        this.ready = new LinkedBlockingQueue<QueuedJob>();
+        this.workers = new ArrayList<Thread>();
+
+        try {
+            log = new JobLog(file);
+            JobLog.Replay replay = log.replay();
+            lastId = new AtomicLong(replay.lastId);
+            pending.putAll(replay.pending);
+            dead.putAll(replay.dead);
+            ready.addAll(replay.pending.values());
+
+            // Drop the acknowledged jobs from the log
+            if (replay.records > replay.pending.size() + 2 * replay.dead.size()) {
+                log.rewrite(replay.pending.values(), replay.dead.values());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to open the job log \"%s\".", file), e);
+        }
+    }
+
+    /**
+     * Sets the number of attempts after which a failing job is dead.
+     *
+     * @param maxAttempts The maximum number of attempts
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException(String.format("Max attempts \"%d\" is not valid.", maxAttempts));
+        }
+
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Sets the maximum number of jobs a worker acknowledges at once.
+     *
+     * @param batchSize The batch size
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(String.format("Batch size \"%d\" is not valid.", batchSize));
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets whether enqueue() synchronizes the log to the storage device.
+     *
+     * @param syncOnEnqueue Whether to synchronize each enqueued job
+     */
+    public void setSyncOnEnqueue(boolean syncOnEnqueue) {
+        this.syncOnEnqueue = syncOnEnqueue;
+    }
+
+    /**
+     * Sets the number of obsolete records after which the log is compacted.
+     *
+     * @param compactThreshold The number of obsolete records
+     */
+    public void setCompactThreshold(int compactThreshold) {
+        if (compactThreshold < 1) {
+            throw new IllegalArgumentException(String.format("Compact threshold \"%d\" is not valid.", compactThreshold));
+        }
+
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * Sets the output the commands write to.
+     *
+     * Each job writes to its own output on top of it, so that the verbosity
+     * and decoration set by a job do not apply to the others.
+     *
+     * @param output An OutputInterface instance
+     */
+    public void setOutput(OutputInterface output) {
+        this.output = output;
+    }
+
+    /**
+     * Enqueues a command invocation.
+     *
+     * @param commandName The name of the command to run
+     * @param parameters  The arguments and options given to the command (ArrayInput format)
+     *
+     * @return The job identifier
+     *
+     * @throws RuntimeException When the job cannot be written to the log
+     */
+    public long enqueue(String commandName, Map<String, String> parameters) {
+        QueuedJob job = new QueuedJob(lastId.incrementAndGet(), commandName, parameters, 0);
+
+        // The log is locked until the job is pending, so that a compaction keeps it
+        synchronized (log) {
+            try {
+                log.append(JobLog.encodeEnqueue(job), syncOnEnqueue);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to write the job to the log.", e);
+            }
+
+            pending.put(job.getId(), job);
+        }
+        ready.add(job);
+
+        return job.getId();
+    }
+
+    /**
+     * Returns the number of jobs not processed yet.
+     *
+     * @return The number of pending jobs
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the jobs which failed too many times.
+     *
+     * @return A list of dead jobs
+     */
+    public List<QueuedJob> getDeadJobs() {
+        synchronized (dead) {
+            return new ArrayList<QueuedJob>(dead.values());
+        }
+    }
+
+    /**
+     * Starts the workers.
+     *
+     * @param count The number of worker threads
+     *
+     * @throws LogicException When the queue is already started
+     */
+    public synchronized void start(int count) {
+        if (running) {
+            throw new LogicException("The job queue is already started.");
+        }
+
+        running = true;
+        for (int i = 1; i <= count; i++) {
+            Thread worker = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    work();
+                }
+            }, "console-queue-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Stops the workers, letting them complete their current batch.
+     *
+     * @throws InterruptedException When interrupted while waiting for the workers
+     */
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        workers.clear();
+    }
+
+    /**
+     * Stops the workers and closes the log.
+     *
+     * @throws InterruptedException When interrupted while waiting for the workers
+     */
+    public void close() throws InterruptedException {
+        stop();
+
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to close the job log.", e);
+        }
+    }
+
+    /**
+     * Runs the command of a job.
+     *
+     * @param job A QueuedJob instance
+     *
+     * @return The command status code
+     */
+    protected int process(QueuedJob job) {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", job.getCommandName());
+        parameters.putAll(job.getParameters());
+
+        return application.doRun(new ArrayInput(parameters), new JobOutput(output));
+    }
+
+    private void work() {
+        List<QueuedJob> batch = new ArrayList<QueuedJob>(batchSize);
+        List<QueuedJob> failed = new ArrayList<QueuedJob>();
+        List<QueuedJob> retried = new ArrayList<QueuedJob>();
+
+        while (running) {
+            try {
+                QueuedJob first = ready.poll(100, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+
+                batch.add(first);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            ready.drainTo(batch, batchSize - 1);
+
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            for (QueuedJob job : batch) {
+                boolean success;
+                try {
+                    success = 0 == process(job);
+                } catch (RuntimeException e) {
+                    application.renderException(e, new JobOutput(output));
+                    success = false;
+                }
+
+                if (success) {
+                    write(records, JobLog.encodeAck(job.getId()));
+                    continue;
+                }
+
+                job.setAttempts(job.getAttempts() + 1);
+                failed.add(job);
+                if (job.getAttempts() < maxAttempts) {
+                    write(records, JobLog.encodeRetry(job.getId(), job.getAttempts()));
+                    retried.add(job);
+                } else {
+                    write(records, JobLog.encodeDead(job.getId(), job.getAttempts()));
+                }
+            }
+
+            synchronized (log) {
+                try {
+                    log.append(records.toByteArray(), true);
+                } catch (IOException e) {
+                    // The batch was not acknowledged: run it again rather than losing it
+                    application.renderException(new RuntimeException("Unable to write the job acknowledgements to the log.", e), new JobOutput(output));
+                    for (QueuedJob job : failed) {
+                        job.setAttempts(job.getAttempts() - 1);
+                    }
+                    ready.addAll(batch);
+                    batch.clear();
+                    failed.clear();
+                    retried.clear();
+                    continue;
+                }
+
+                for (QueuedJob job : batch) {
+                    if (retried.contains(job)) {
+                        ready.add(job);
+                    } else {
+                        pending.remove(job.getId());
+                        if (job.getAttempts() >= maxAttempts) {
+                            synchronized (dead) {
+                                dead.put(job.getId(), job);
+                            }
+                        }
+                    }
+                }
+
+                obsoleteRecords += batch.size();
+                if (obsoleteRecords >= compactThreshold) {
+                    compact();
+                }
+            }
+
+            batch.clear();
+            failed.clear();
+            retried.clear();
+        }
+    }
+
+    /**
+     * Rewrites the log with the pending and dead jobs only.
+     *
+     * Must be called with the log locked.
+     */
+    private void compact() {
+        obsoleteRecords = 0;
+        try {
+            synchronized (dead) {
+                log.rewrite(new ArrayList<QueuedJob>(pending.values()), new ArrayList<QueuedJob>(dead.values()));
+            }
+        } catch (IOException e) {
+            application.renderException(new RuntimeException("Unable to compact the job log.", e), new JobOutput(output));
+        }
+    }
+
+    private static void write(ByteArrayOutputStream records, byte[] record) {
+        records.write(record, 0, record.length);
+    }
+}
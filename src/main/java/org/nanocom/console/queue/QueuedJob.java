@@ -0,0 +1,82 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.queue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A QueuedJob is a deferred command invocation stored in a JobQueue.
+ *
+ */
+public class QueuedJob {
+
+    private final long id;
+    private final String commandName;
+    private final Map<String, String> parameters;
+    private volatile int attempts;
+
+    /**
+     * @param id          The job identifier, unique within its queue
+     * @param commandName The name of the command to run
+     * @param parameters  The arguments and options given to the command (ArrayInput format)
+     * @param attempts    The number of failed attempts so far
+     */
+    QueuedJob(long id, String commandName, Map<String, String> parameters, int attempts) {
+        this.id = id;
+        this.commandName = commandName;
+        this.parameters = Collections.unmodifiableMap(new LinkedHashMap<String, String>(parameters));
+        this.attempts = attempts;
+    }
+
+    /**
+     * Gets the job identifier.
+     *
+     * @return The identifier
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of the command to run.
+     *
+     * @return The command name
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * Gets the input parameters given to the command, the command name excluded.
+     *
+     * @return A map of parameters
+     */
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Gets the number of failed attempts.
+     *
+     * @return The number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s", id, commandName);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.record;
+
+import java.util.List;
+import static org.apache.commons.lang3.StringUtils.*;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * CsvRecordWriter writes the records as comma separated values (RFC 4180).
+ *
+ * The column names of the first record, if any, are written as a header.
+ *
+ */
+public class CsvRecordWriter extends RecordWriter {
+
+    /**
+     * @param output An OutputInterface instance
+     */
+    public CsvRecordWriter(OutputInterface output) {
+        super(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doWrite(Object record, long index) {
+        StringBuilder sb = new StringBuilder();
+
+        if (0 == index) {
+            List<String> columns = getColumns(record);
+            if (null != columns) {
+                appendLine(columns, sb);
+            }
+        }
+
+        appendLine(getValues(record), sb);
+        print(sb.toString());
+    }
+
+    private static void appendLine(List<?> values, StringBuilder sb) {
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+
+            String text = null == value ? EMPTY : value.toString();
+            if (containsAny(text, ',', '"', '\n', '\r')) {
+                sb.append('"').append(replace(text, "\"", "\"\"")).append('"');
+            } else {
+                sb.append(text);
+            }
+        }
+        sb.append("\r\n");
+    }
+}
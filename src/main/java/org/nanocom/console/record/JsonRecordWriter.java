@@ -0,0 +1,125 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.record;
+
+import java.util.Map;
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * JsonRecordWriter writes the records as the elements of a JSON array.
+ *
+ * Maps are written as objects, arrays and Iterables as arrays, numbers and
+ * booleans as is, and any other object as a string.
+ *
+ */
+public class JsonRecordWriter extends RecordWriter {
+
+    /**
+     * @param output An OutputInterface instance
+     */
+    public JsonRecordWriter(OutputInterface output) {
+        super(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doWrite(Object record, long index) {
+        StringBuilder sb = new StringBuilder(0 == index ? "[\n" : ",\n");
+        encode(record, sb);
+        print(sb.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        print(0 == getCount() ? "[]\n" : "\n]\n");
+        super.close();
+    }
+
+    /**
+     * Appends the JSON representation of a value.
+     *
+     * @param value The value
+     * @param sb    The builder to append to
+     */
+    protected static void encode(Object value, StringBuilder sb) {
+        if (null == value) {
+            sb.append("null");
+        } else if (value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number) || Double.isInfinite(number)) {
+                sb.append("null");
+            } else {
+                sb.append(value);
+            }
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                encodeString(String.valueOf(entry.getKey()), sb);
+                sb.append(':');
+                encode(entry.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (value instanceof Object[] || value instanceof Iterable) {
+            sb.append('[');
+            boolean first = true;
+            for (Object element : getValues(value)) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                encode(element, sb);
+            }
+            sb.append(']');
+        } else {
+            encodeString(value.toString(), sb);
+        }
+    }
+
+    private static void encodeString(String value, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
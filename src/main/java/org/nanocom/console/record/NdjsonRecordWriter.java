@@ -0,0 +1,42 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.record;
+
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * NdjsonRecordWriter writes each record as a JSON value on its own line.
+ *
+ */
+public class NdjsonRecordWriter extends JsonRecordWriter {
+
+    /**
+     * @param output An OutputInterface instance
+     */
+    public NdjsonRecordWriter(OutputInterface output) {
+        super(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doWrite(Object record, long index) {
+        StringBuilder sb = new StringBuilder();
+        encode(record, sb);
+        print(sb.append('\n').toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+}
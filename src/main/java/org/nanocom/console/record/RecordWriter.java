@@ -0,0 +1,151 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.record;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.OutputType;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+/**
+ * Base class for the record writers.
+ *
+ */
+public abstract class RecordWriter implements RecordWriterInterface {
+
+    protected final OutputInterface output;
+    private long count;
+
+    /**
+     * @param output An OutputInterface instance
+     */
+    public RecordWriter(OutputInterface output) {
+        if (null == output) {
+            throw new IllegalArgumentException("The output cannot be null.");
+        }
+
+        this.output = output;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(Object record) {
+        doWrite(record, count++);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Gets the number of records written so far.
+     *
+     * @return The number of records
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param record The record
+     * @param index  The index of the record, starting at 0
+     */
+    protected abstract void doWrite(Object record, long index);
+
+    /**
+     * Writes a text as is.
+     *
+     * The text bypasses the formatter and, for a StreamOutput, goes directly
+     * to the underlying stream, which is only flushed on close().
+     *
+     * @param text The text to write
+     */
+    protected void print(String text) {
+        if (VerbosityLevel.QUIET.equals(output.getVerbosity())) {
+            return;
+        }
+
+        if (output instanceof StreamOutput) {
+            PrintStream stream = ((StreamOutput) output).getStream();
+            if (null != stream) {
+                stream.print(text);
+
+                return;
+            }
+        }
+
+        output.write(text, false, OutputType.RAW);
+    }
+
+    /**
+     * Flushes what print() wrote.
+     */
+    protected void flush() {
+        if (output instanceof StreamOutput && null != ((StreamOutput) output).getStream()) {
+            ((StreamOutput) output).getStream().flush();
+        }
+    }
+
+    /**
+     * Gets the column names of a record, or null if it has none.
+     *
+     * @param record The record
+     *
+     * @return The column names
+     */
+    protected static List<String> getColumns(Object record) {
+        if (!(record instanceof Map)) {
+            return null;
+        }
+
+        List<String> columns = new ArrayList<String>();
+        for (Object key : ((Map<?, ?>) record).keySet()) {
+            columns.add(String.valueOf(key));
+        }
+
+        return columns;
+    }
+
+    /**
+     * Gets the values of a record.
+     *
+     * @param record The record
+     *
+     * @return The values
+     */
+    protected static List<Object> getValues(Object record) {
+        if (record instanceof Map) {
+            return new ArrayList<Object>(((Map<?, ?>) record).values());
+        } else if (record instanceof Object[]) {
+            return Arrays.asList((Object[]) record);
+        } else if (record instanceof Iterable) {
+            List<Object> values = new ArrayList<Object>();
+            for (Object value : (Iterable<?>) record) {
+                values.add(value);
+            }
+
+            return values;
+        }
+
+        return Collections.singletonList(record);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.record;
+
+/**
+ * RecordWriterInterface is the interface implemented by all record writers.
+ *
+ * A record writer renders the records of a command one at a time, as they
+ * are produced, so that it never holds more than the current record.
+ *
+ */
+public interface RecordWriterInterface {
+
+    /**
+     * Writes a record.
+     *
+     * A record is either a Map of column names to values, an array or
+     * an Iterable of values, or any other object rendered as a single value.
+     *
+     * @param record The record
+     */
+    void write(Object record);
+
+    /**
+     * Writes what must follow the last record.
+     */
+    void close();
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.record;
+
+import java.util.List;
+import static org.apache.commons.lang3.StringUtils.*;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.OutputType;
+
+/**
+ * TextRecordWriter writes one line per record, with tab separated values.
+ *
+ * Values are written raw, with tabs and line breaks escaped. On a decorated
+ * output, the column names of the first record are also written as a header;
+ * they are not when the output is piped, so that it can be processed by line.
+ *
+ */
+public class TextRecordWriter extends RecordWriter {
+
+    /**
+     * @param output An OutputInterface instance
+     */
+    public TextRecordWriter(OutputInterface output) {
+        super(output);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doWrite(Object record, long index) {
+        if (0 == index && output.isDecorated()) {
+            List<String> columns = getColumns(record);
+            if (null != columns) {
+                output.writeln(String.format("<comment>%s</comment>", join(columns, '\t')));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (Object value : getValues(record)) {
+            if (!first) {
+                sb.append('\t');
+            }
+            sb.append(escapeValue(value));
+            first = false;
+        }
+
+        // Values are never formatted, whatever they contain
+        output.writeln(sb.toString(), OutputType.RAW);
+    }
+
+    private static String escapeValue(Object value) {
+        if (null == value) {
+            return EMPTY;
+        }
+
+        return replaceEach(value.toString(), new String[] { "\\", "\t", "\n", "\r" }, new String[] { "\\\\", "\\t", "\\n", "\\r" });
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * TextResource resolves the texts referencing a classpath resource.
+ *
+ * Help and description texts can be given as references instead of their
+ * content, so that they are only loaded when rendered:
+ *
+ *     setHelp(TextResource.ref("org/acme/help/foo.txt"));
+ *
+ * Loaded texts are kept in a least recently used cache, bounded to
+ * a number of entries, shared by all the commands. The cache holds the
+ * class loaders weakly, so that it does not keep unloaded plugins alive.
+ *
+ * A text starting with the reference prefix but meant literally is
+ * escaped with a backslash, see literal().
+ *
+ */
+public final class TextResource {
+
+    public static final String PREFIX = "resource:";
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private static final char ESCAPE = '\\';
+
+    private static int cacheSize = DEFAULT_CACHE_SIZE;
+    private static final ReferenceQueue<ClassLoader> COLLECTED = new ReferenceQueue<ClassLoader>();
+    private static final Map<Key, String> CACHE = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private TextResource() {
+    }
+
+    /**
+     * Creates a reference to a classpath resource.
+     *
+     * @param path The path of the resource, relative to the classpath root
+     *
+     * @return The reference
+     */
+    public static String ref(String path) {
+        return PREFIX + path;
+    }
+
+    /**
+     * Escapes a text so that it is never taken as a reference.
+     *
+     * @param text The text
+     *
+     * @return The escaped text
+     */
+    public static String literal(String text) {
+        return isEscapable(text) ? ESCAPE + text : text;
+    }
+
+    /**
+     * Returns true if a text is a reference to a resource.
+     *
+     * @param text The text
+     *
+     * @return True if the text is a reference, false otherwise
+     */
+    public static boolean isReference(String text) {
+        return null != text && text.startsWith(PREFIX);
+    }
+
+    /**
+     * Resolves a text with the context class loader.
+     *
+     * @param text A text or a reference
+     *
+     * @return The text, or the content of the referenced resource
+     *
+     * @throws IllegalArgumentException When the resource does not exist
+     */
+    public static String resolve(String text) {
+        return resolve(text, null);
+    }
+
+    /**
+     * Resolves a text.
+     *
+     * @param text        A text or a reference
+     * @param classLoader The class loader of the resource, or null for the context one
+     *
+     * @return The text, or the content of the referenced resource
+     *
+     * @throws IllegalArgumentException When the resource does not exist
+     */
+    public static String resolve(String text, ClassLoader classLoader) {
+        if (!isReference(text)) {
+            return isEscapable(text) ? text.substring(1) : text;
+        }
+
+        if (null == classLoader) {
+            classLoader = Thread.currentThread().getContextClassLoader();
+            if (null == classLoader) {
+                classLoader = TextResource.class.getClassLoader();
+            }
+        }
+
+        Key key = new Key(classLoader, text.substring(PREFIX.length()));
+        synchronized (CACHE) {
+            expunge();
+            String content = CACHE.get(key);
+            if (null != content) {
+                return content;
+            }
+        }
+
+        String content = load(classLoader, key.path);
+        synchronized (CACHE) {
+            CACHE.put(key, content);
+        }
+
+        return content;
+    }
+
+    /**
+     * Sets the maximum number of texts kept in the cache.
+     *
+     * @param size The maximum number of texts
+     */
+    public static void setCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The cache size cannot be negative.");
+        }
+
+        synchronized (CACHE) {
+            cacheSize = size;
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * Returns true if a text starts with the reference prefix, after any escapes.
+     */
+    private static boolean isEscapable(String text) {
+        if (null == text) {
+            return false;
+        }
+
+        int escapes = 0;
+        while (escapes < text.length() && ESCAPE == text.charAt(escapes)) {
+            escapes++;
+        }
+
+        return text.startsWith(PREFIX, escapes);
+    }
+
+    /**
+     * Drops the texts of the collected class loaders.
+     */
+    private static void expunge() {
+        Reference<? extends ClassLoader> reference;
+        while (null != (reference = COLLECTED.poll())) {
+            CACHE.remove(reference);
+        }
+    }
+
+    private static String load(ClassLoader classLoader, String path) {
+        InputStream stream = classLoader.getResourceAsStream(path);
+        if (null == stream) {
+            throw new IllegalArgumentException(String.format("The \"%s\" resource does not exist.", path));
+        }
+
+        try {
+            String content = IOUtils.toString(stream, "UTF-8");
+
+            // Drop the final line break of the file
+            if (content.endsWith("\n")) {
+                content = content.substring(0, content.length() - (content.endsWith("\r\n") ? 2 : 1));
+            }
+
+            return content;
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to read the \"%s\" resource.", path), e);
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    /**
+     * A resource path, scoped to a weakly held class loader.
+     */
+    private static class Key extends WeakReference<ClassLoader> {
+
+        private final String path;
+        private final int hash;
+
+        Key(ClassLoader classLoader, String path) {
+            super(classLoader, COLLECTED);
+            this.path = path;
+            this.hash = 31 * System.identityHashCode(classLoader) + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            ClassLoader classLoader = get();
+
+            return null != classLoader && classLoader == ((Key) other).get() && path.equals(((Key) other).path);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.scheduler;
+
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.TimeZone;
+import static org.apache.commons.lang3.StringUtils.*;
+
+/**
+ * CronSchedule runs a job according to a cron expression.
+ *
+ * The expression has five fields: minute (0-59), hour (0-23), day of month (1-31),
+ * month (1-12) and day of week (0-7, 0 and 7 being Sunday). Each field accepts
+ * `*`, single values, ranges (`1-5`), lists (`1,15`) and steps (`*` followed by `/10`, `0-30/5`).
+ *
+ * As with cron, when both the day of month and the day of week are restricted,
+ * the job runs when either of them matches.
+ *
+ */
+public class CronSchedule extends Schedule {
+
+    /**
+     * The number of minutes looked ahead before giving up (about five years).
+     */
+    private static final int MAX_ITERATIONS = 5 * 366 * 24 * 60;
+
+    private final String expression;
+    private final TimeZone timeZone;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean daysOfMonthRestricted;
+    private final boolean daysOfWeekRestricted;
+
+    /**
+     * @param expression The cron expression
+     * @param timeZone   The time zone the expression is evaluated in
+     *
+     * @throws IllegalArgumentException When the expression is not valid
+     */
+    public CronSchedule(String expression, TimeZone timeZone) {
+        String[] fields = split(trim(expression));
+        if (null == fields || 5 != fields.length) {
+            throw new IllegalArgumentException(String.format("The cron expression \"%s\" must have five fields.", expression));
+        }
+
+        this.expression = expression;
+        this.timeZone = timeZone;
+        minutes = parseField(fields[0], 0, 59);
+        hours = parseField(fields[1], 0, 23);
+        daysOfMonth = parseField(fields[2], 1, 31);
+        months = parseField(fields[3], 1, 12);
+        daysOfWeek = parseField(fields[4], 0, 7);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+
+        daysOfMonthRestricted = !"*".equals(fields[2]);
+        daysOfWeekRestricted = !"*".equals(fields[4]);
+    }
+
+    public CronSchedule(String expression) {
+        this(expression, TimeZone.getDefault());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException When the expression never matches
+     */
+    @Override
+    public long next(long time) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.MINUTE, 1);
+
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            if (!months.get(calendar.get(Calendar.MONTH) + 1)) {
+                calendar.add(Calendar.MONTH, 1);
+                calendar.set(Calendar.DAY_OF_MONTH, 1);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+            } else if (!matchesDay(calendar)) {
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+            } else if (!hours.get(calendar.get(Calendar.HOUR_OF_DAY))) {
+                calendar.add(Calendar.HOUR_OF_DAY, 1);
+                calendar.set(Calendar.MINUTE, 0);
+            } else if (!minutes.get(calendar.get(Calendar.MINUTE))) {
+                calendar.add(Calendar.MINUTE, 1);
+            } else {
+                return calendar.getTimeInMillis();
+            }
+        }
+
+        throw new IllegalStateException(String.format("The cron expression \"%s\" never matches.", expression));
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(Calendar calendar) {
+        boolean dayOfMonth = daysOfMonth.get(calendar.get(Calendar.DAY_OF_MONTH));
+        boolean dayOfWeek = daysOfWeek.get(calendar.get(Calendar.DAY_OF_WEEK) - 1);
+
+        if (daysOfMonthRestricted && daysOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private BitSet parseField(String field, int min, int max) {
+        BitSet values = new BitSet(max + 1);
+
+        for (String part : split(field, ',')) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (-1 != slash) {
+                step = parseValue(part.substring(slash + 1), 1, max);
+                part = part.substring(0, slash);
+            }
+
+            int start;
+            int end;
+            if ("*".equals(part)) {
+                start = min;
+                end = max;
+            } else if (-1 != part.indexOf('-')) {
+                start = parseValue(substringBefore(part, "-"), min, max);
+                end = parseValue(substringAfter(part, "-"), min, max);
+                if (start > end) {
+                    throw new IllegalArgumentException(String.format("The range \"%s\" of the cron expression \"%s\" is not valid.", part, expression));
+                }
+            } else {
+                start = parseValue(part, min, max);
+                end = -1 == slash ? start : max;
+            }
+
+            for (int value = start; value <= end; value += step) {
+                values.set(value);
+            }
+        }
+
+        return values;
+    }
+
+    private int parseValue(String value, int min, int max) {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("The value \"%s\" of the cron expression \"%s\" is not valid.", value, expression));
+        }
+
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(String.format("The value \"%s\" of the cron expression \"%s\" must be between %d and %d.", value, expression, min, max));
+        }
+
+        return number;
+    }
+}
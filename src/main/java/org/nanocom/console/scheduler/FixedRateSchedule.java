@@ -0,0 +1,52 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.scheduler;
+
+/**
+ * FixedRateSchedule runs a job at a fixed period.
+ *
+ */
+public class FixedRateSchedule extends Schedule {
+
+    private final long period;
+
+    /**
+     * @param period The period in milliseconds
+     *
+     * @throws IllegalArgumentException When the period is not positive
+     */
+    public FixedRateSchedule(long period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException(String.format("The period \"%d\" must be positive.", period));
+        }
+
+        this.period = period;
+    }
+
+    /**
+     * Returns the period.
+     *
+     * @return The period in milliseconds
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long next(long time) {
+        return time + period;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("every %dms", period);
+    }
+}
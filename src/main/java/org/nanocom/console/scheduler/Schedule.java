@@ -0,0 +1,56 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Schedule computes when a scheduled job must run next.
+ *
+ * Usage:
+ *
+ *     Schedule.every(30, TimeUnit.SECONDS);
+ *     Schedule.cron("0,30 8-18 * * 1-5");
+ *
+ */
+public abstract class Schedule {
+
+    /**
+     * Creates a fixed-rate schedule.
+     *
+     * @param period The delay between two runs
+     * @param unit   The unit of the period
+     *
+     * @return A Schedule instance
+     */
+    public static Schedule every(long period, TimeUnit unit) {
+        return new FixedRateSchedule(unit.toMillis(period));
+    }
+
+    /**
+     * Creates a schedule from a cron expression.
+     *
+     * @param expression The five fields cron expression
+     *
+     * @return A Schedule instance
+     *
+     * @throws IllegalArgumentException When the expression is not valid
+     */
+    public static Schedule cron(String expression) {
+        return new CronSchedule(expression);
+    }
+
+    /**
+     * Returns the time of the next run strictly after the given time.
+     *
+     * @param time A time in milliseconds since the epoch
+     *
+     * @return The time of the next run in milliseconds since the epoch
+     */
+    public abstract long next(long time);
+}
@@ -0,0 +1,270 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.scheduler;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ScheduledJob is a registered command run by a Scheduler according to a Schedule.
+ *
+ * A job never overlaps with itself: when a run is due while the previous
+ * one is still running, it is skipped and counted as such.
+ *
+ * Usage:
+ *
+ *     Map<String, String> parameters = new HashMap<String, String>();
+ *     parameters.put("--env", "prod");
+ *     ScheduledJob job = new ScheduledJob("purge", "cache:purge", parameters, Schedule.every(5, TimeUnit.MINUTES));
+ *     job.setJitter(10, TimeUnit.SECONDS);
+ *     job.setOutputDirectory(new File("/var/log/purge"));
+ *
+ */
+public class ScheduledJob {
+
+    private final String name;
+    private final String commandName;
+    private final Map<String, String> parameters;
+    private final Schedule schedule;
+    private long jitter;
+    private File outputDirectory;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong runCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private volatile Integer lastStatusCode;
+    private volatile RuntimeException lastException;
+    private volatile long lastStartTime;
+    private volatile long lastDuration;
+    private volatile File lastOutputFile;
+
+    /**
+     * @param name        The job name, used to name the output files
+     * @param commandName The name of the command to run
+     * @param parameters  The arguments and options given to the command (ArrayInput format)
+     * @param schedule    A Schedule instance
+     */
+    public ScheduledJob(String name, String commandName, Map<String, String> parameters, Schedule schedule) {
+        if (null == name || !name.matches("^[\\w.:-]+$")) {
+            throw new IllegalArgumentException(String.format("Job name \"%s\" is invalid.", name));
+        }
+
+        this.name = name;
+        this.commandName = commandName;
+        this.parameters = new LinkedHashMap<String, String>(parameters);
+        this.schedule = schedule;
+    }
+
+    public ScheduledJob(String name, String commandName, Schedule schedule) {
+        this(name, commandName, Collections.<String, String>emptyMap(), schedule);
+    }
+
+    /**
+     * Gets the job name.
+     *
+     * @return The job name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the name of the command run by this job.
+     *
+     * @return The command name
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * Gets the input parameters given to the command, the command name excluded.
+     *
+     * @return A map of parameters
+     */
+    public Map<String, String> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    /**
+     * Gets the schedule of this job.
+     *
+     * @return A Schedule instance
+     */
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Sets the maximum random delay added to each run.
+     *
+     * Jitter spreads jobs sharing the same schedule over time.
+     *
+     * @param jitter The maximum delay
+     * @param unit   The unit of the delay
+     */
+    public void setJitter(long jitter, TimeUnit unit) {
+        if (jitter < 0) {
+            throw new IllegalArgumentException(String.format("The jitter \"%d\" cannot be negative.", jitter));
+        }
+
+        this.jitter = unit.toMillis(jitter);
+    }
+
+    /**
+     * Gets the maximum random delay added to each run.
+     *
+     * @return The jitter in milliseconds
+     */
+    public long getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Sets the directory the output of each run is written to.
+     *
+     * @param outputDirectory A directory, or null to discard the output
+     */
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Gets the directory the output of each run is written to.
+     *
+     * @return A directory, or null if the output is discarded
+     */
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Returns true if the job is currently running.
+     *
+     * @return True if the job is running, false otherwise
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Gets the number of completed runs.
+     *
+     * @return The number of runs
+     */
+    public long getRunCount() {
+        return runCount.get();
+    }
+
+    /**
+     * Gets the number of runs which returned a non-zero status code or threw an exception.
+     *
+     * @return The number of failed runs
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Gets the number of runs skipped because the previous one was still running.
+     *
+     * @return The number of skipped runs
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * Gets the status code of the last completed run.
+     *
+     * @return The status code, or null if the job never completed
+     */
+    public Integer getLastStatusCode() {
+        return lastStatusCode;
+    }
+
+    /**
+     * Gets the exception thrown by the last run, if any.
+     *
+     * @return An exception, or null if the last run did not throw
+     */
+    public RuntimeException getLastException() {
+        return lastException;
+    }
+
+    /**
+     * Gets the time the last run started at.
+     *
+     * @return The time in milliseconds since the epoch, or 0 if the job never ran
+     */
+    public long getLastStartTime() {
+        return lastStartTime;
+    }
+
+    /**
+     * Gets the duration of the last completed run.
+     *
+     * @return The duration in milliseconds
+     */
+    public long getLastDuration() {
+        return lastDuration;
+    }
+
+    /**
+     * Gets the file the output of the last run was written to.
+     *
+     * @return A file, or null if the output is discarded
+     */
+    public File getLastOutputFile() {
+        return lastOutputFile;
+    }
+
+    /**
+     * Marks the job as running.
+     *
+     * @return False if the job was already running, in which case the run is counted as skipped
+     */
+    boolean tryStart(long startTime, File outputFile) {
+        if (!running.compareAndSet(false, true)) {
+            skippedCount.incrementAndGet();
+
+            return false;
+        }
+
+        lastStartTime = startTime;
+        lastOutputFile = outputFile;
+
+        return true;
+    }
+
+    /**
+     * Records the result of a run and marks the job as not running.
+     */
+    void finish(int statusCode, RuntimeException exception, long duration) {
+        lastStatusCode = statusCode;
+        lastException = exception;
+        lastDuration = duration;
+        runCount.incrementAndGet();
+        if (0 != statusCode || null != exception) {
+            failureCount.incrementAndGet();
+        }
+
+        running.set(false);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s, %s)", name, commandName, schedule);
+    }
+}
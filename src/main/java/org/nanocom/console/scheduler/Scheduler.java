@@ -0,0 +1,231 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.scheduler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.IOUtils;
+import org.nanocom.console.Application;
+import org.nanocom.console.exception.LogicException;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.NullOutput;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+/**
+ * A Scheduler runs registered commands periodically inside a single, long-lived Application.
+ *
+ * Jobs run on a bounded pool of worker threads. A job never overlaps with
+ * itself, and when it falls behind its schedule the missed runs are not
+ * caught up.
+ *
+ * Usage:
+ *
+ *     Scheduler scheduler = new Scheduler(application, 4);
+ *     scheduler.add(new ScheduledJob("purge", "cache:purge", Schedule.cron("0 * * * *")));
+ *     scheduler.start();
+ *
+ */
+public class Scheduler {
+
+    private final Application application;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<String, ScheduledJob> jobs;
+    private final Random random;
+    private boolean started;
+
+    /**
+     * @param application An Application instance
+     * @param poolSize    The number of worker threads
+     */
+    public Scheduler(Application application, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException(String.format("Pool size \"%d\" is not valid.", poolSize));
+        }
+
+        this.application = application;
+        this.jobs = new LinkedHashMap<String, ScheduledJob>();
+        this.random = new Random();
+        this.executor = new ScheduledThreadPoolExecutor(poolSize, new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "console-scheduler-" + count.incrementAndGet());
+            }
+        });
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Adds a job.
+     *
+     * If the scheduler is already started, the job is scheduled right away.
+     *
+     * @param job A ScheduledJob instance
+     *
+     * @throws LogicException When a job with the same name already exists
+     */
+    public synchronized void add(ScheduledJob job) {
+        if (jobs.containsKey(job.getName())) {
+            throw new LogicException(String.format("A job named \"%s\" already exist.", job.getName()));
+        }
+
+        jobs.put(job.getName(), job);
+
+        if (started) {
+            scheduleNext(job, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Gets the registered jobs.
+     *
+     * @return A list of ScheduledJob instances
+     */
+    public synchronized List<ScheduledJob> getJobs() {
+        return new ArrayList<ScheduledJob>(jobs.values());
+    }
+
+    /**
+     * Starts scheduling the registered jobs.
+     *
+     * @throws LogicException When the scheduler is already started
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new LogicException("The scheduler is already started.");
+        }
+
+        started = true;
+        long now = System.currentTimeMillis();
+        for (ScheduledJob job : jobs.values()) {
+            scheduleNext(job, now);
+        }
+    }
+
+    /**
+     * Stops scheduling new runs. Running jobs are left to complete.
+     */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits for the running jobs to complete after a stop.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     *
+     * @return True if all jobs completed, false if the timeout elapsed
+     *
+     * @throws InterruptedException When interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Creates the input given to the command of a job.
+     *
+     * @param job A ScheduledJob instance
+     *
+     * @return An InputInterface instance
+     */
+    protected InputInterface createInput(ScheduledJob job) {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", job.getCommandName());
+        parameters.putAll(job.getParameters());
+
+        return new ArrayInput(parameters);
+    }
+
+    /**
+     * Runs a job once, unless it is already running.
+     *
+     * @param job A ScheduledJob instance
+     */
+    protected void run(ScheduledJob job) {
+        long startTime = System.currentTimeMillis();
+        File outputFile = null;
+        if (null != job.getOutputDirectory()) {
+            String date = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(startTime));
+            outputFile = new File(job.getOutputDirectory(), String.format("%s-%s.log", job.getName(), date));
+        }
+
+        if (!job.tryStart(startTime, outputFile)) {
+            return;
+        }
+
+        int statusCode = 1;
+        RuntimeException exception = null;
+        PrintStream stream = null;
+
+        try {
+            OutputInterface output;
+            if (null != outputFile) {
+                outputFile.getParentFile().mkdirs();
+                stream = new PrintStream(new FileOutputStream(outputFile), false, "UTF-8");
+                output = new StreamOutput(stream, VerbosityLevel.NORMAL, false, null);
+            } else {
+                output = new NullOutput();
+            }
+
+            try {
+                statusCode = application.doRun(createInput(job), output);
+            } catch (RuntimeException e) {
+                exception = e;
+                application.renderException(e, output);
+            }
+        } catch (IOException e) {
+            exception = new RuntimeException(String.format("Unable to write the output file \"%s\".", outputFile), e);
+        } finally {
+            IOUtils.closeQuietly(stream);
+            job.finish(statusCode, exception, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private void scheduleNext(final ScheduledJob job, long from) {
+        final long next = job.getSchedule().next(from);
+        long delay = next - System.currentTimeMillis();
+        if (job.getJitter() > 0) {
+            delay += (long) (random.nextDouble() * job.getJitter());
+        }
+
+        try {
+            executor.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    // Reschedule first, so that a long run is detected as an overlap
+                    scheduleNext(job, Math.max(next, System.currentTimeMillis()));
+                    Scheduler.this.run(job);
+                }
+            }, Math.max(0, delay), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The scheduler has been stopped
+        }
+    }
+}
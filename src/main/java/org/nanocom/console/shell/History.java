@@ -0,0 +1,194 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.shell;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * History keeps the lines entered in a Shell, most recent last.
+ *
+ * Usage:
+ *
+ *     History history = new History(new File("/home/me/.history_myapp"), 500);
+ *     history.load();
+ *     history.add("foo:bar --baz");
+ *     history.search("foo"); // "foo:bar --baz"
+ *
+ */
+public class History {
+
+    private final LinkedList<String> entries;
+    private final int maxSize;
+    private final File file;
+
+    /**
+     * @param file    The file the history is persisted to (can be null)
+     * @param maxSize The maximum number of entries kept
+     */
+    public History(File file, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(String.format("History size \"%d\" is not valid.", maxSize));
+        }
+
+        this.entries = new LinkedList<String>();
+        this.file = file;
+        this.maxSize = maxSize;
+    }
+
+    public History(File file) {
+        this(file, 500);
+    }
+
+    public History() {
+        this(null);
+    }
+
+    /**
+     * Adds a line to the history.
+     *
+     * Empty lines and immediate repetitions of the last line are ignored.
+     *
+     * @param line The line to add
+     */
+    public void add(String line) {
+        if (null == line || line.trim().isEmpty() || line.equals(last())) {
+            return;
+        }
+
+        entries.addLast(line);
+        while (entries.size() > maxSize) {
+            entries.removeFirst();
+        }
+    }
+
+    /**
+     * Returns the most recent line.
+     *
+     * @return The last line, or null if the history is empty
+     */
+    public String last() {
+        return entries.isEmpty() ? null : entries.getLast();
+    }
+
+    /**
+     * Returns the most recent line starting with the given prefix.
+     *
+     * @param prefix The prefix to look for
+     *
+     * @return The matching line, or null if none matches
+     */
+    public String search(String prefix) {
+        Iterator<String> iterator = entries.descendingIterator();
+        while (iterator.hasNext()) {
+            String entry = iterator.next();
+            if (entry.startsWith(prefix)) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns all the lines starting with the given prefix, most recent first.
+     *
+     * @param prefix The prefix to look for
+     *
+     * @return A list of matching lines
+     */
+    public List<String> searchAll(String prefix) {
+        List<String> matches = new ArrayList<String>();
+        Iterator<String> iterator = entries.descendingIterator();
+        while (iterator.hasNext()) {
+            String entry = iterator.next();
+            if (entry.startsWith(prefix)) {
+                matches.add(entry);
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Returns all the lines, oldest first.
+     *
+     * @return A list of lines
+     */
+    public List<String> all() {
+        return new ArrayList<String>(entries);
+    }
+
+    /**
+     * Returns the number of lines.
+     *
+     * @return The number of lines
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Loads the history from its file, if any.
+     *
+     * @throws RuntimeException When the file cannot be read
+     */
+    public void load() throws RuntimeException {
+        if (null == file || !file.isFile()) {
+            return;
+        }
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            String line;
+            while (null != (line = reader.readLine())) {
+                add(line);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to read the history file \"%s\".", file), e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Saves the history to its file, if any.
+     *
+     * @throws RuntimeException When the file cannot be written
+     */
+    public void save() throws RuntimeException {
+        if (null == file) {
+            return;
+        }
+
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            for (String entry : entries) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to write the history file \"%s\".", file), e);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.shell;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import static org.apache.commons.lang3.StringUtils.*;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.ArgvInput;
+import org.nanocom.console.input.InputDefinition;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.input.InputOption;
+import org.nanocom.console.input.StringInput;
+import org.nanocom.console.output.ConsoleOutput;
+import org.nanocom.console.output.ConsoleOutputInterface;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+
+/**
+ * A Shell wraps an Application to add shell capabilities to it.
+ *
+ * The Application instance stays alive between two commands, so that
+ * only the first command pays for the application bootstrap.
+ *
+ * Support for history and completion:
+ *
+ *  * `history` lists the previous lines
+ *  * `!!` runs the previous line again
+ *  * `!prefix` runs the most recent line starting with prefix
+ *  * a line ending with a tab lists the possible completions
+ *
+ * Usage:
+ *
+ *     Shell shell = new Shell(application);
+ *     shell.run();
+ *
+ */
+public class Shell {
+
+    private final Application application;
+    private final BufferedReader reader;
+    private final OutputInterface output;
+    private final History history;
+
+    /**
+     * @param application An Application instance
+     * @param inputStream The stream the lines are read from
+     * @param output      An OutputInterface instance
+     * @param history     A History instance
+     */
+    public Shell(Application application, InputStream inputStream, OutputInterface output, History history) {
+        this.application = application;
+        this.output = output;
+        this.history = history;
+
+        try {
+            reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public Shell(Application application, InputStream inputStream, OutputInterface output) {
+        this(application, inputStream, output, new History(getHistoryFile(application)));
+    }
+
+    public Shell(Application application) {
+        this(application, System.in, new ConsoleOutput());
+    }
+
+    /**
+     * Runs the shell until the user exits it.
+     *
+     * @return The status code of the last command run
+     */
+    public int run() {
+        history.load();
+
+        boolean autoExit = application.isAutoExit();
+        boolean catchExceptions = application.isCatchExceptions();
+        application.setAutoExit(false);
+        application.setCatchExceptions(true);
+
+        try {
+            output.writeln(getHeader());
+
+            int statusCode = 0;
+            String line;
+            while (null != (line = readline())) {
+                if (line.endsWith("\t")) {
+                    writeCompletions(line.substring(0, line.length() - 1));
+                    continue;
+                }
+
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                String name = substringBefore(line, " ");
+                if (!application.has(name)) {
+                    if ("exit".equals(name) || "quit".equals(name)) {
+                        break;
+                    }
+
+                    if ("history".equals(name)) {
+                        int i = 0;
+                        for (String entry : history.all()) {
+                            output.writeln(String.format("  <info>%4d</info>  %s", ++i, entry));
+                        }
+
+                        continue;
+                    }
+
+                    if (line.startsWith("!")) {
+                        String expanded = "!!".equals(line) ? history.last() : history.search(line.substring(1));
+                        if (null == expanded) {
+                            output.writeln(String.format("<error>%s: event not found</error>", line));
+
+                            continue;
+                        }
+
+                        output.writeln(expanded);
+                        line = expanded;
+                    }
+                }
+
+                history.add(line);
+                statusCode = execute(line);
+            }
+
+            return statusCode;
+        } finally {
+            history.save();
+            application.setAutoExit(autoExit);
+            application.setCatchExceptions(catchExceptions);
+        }
+    }
+
+    /**
+     * Runs a single command line against the application.
+     *
+     * The verbosity and decoration set by the options of the line, such as
+     * --quiet or --no-ansi, only apply to that line.
+     *
+     * @param line The command line
+     *
+     * @return The command status code
+     */
+    public int execute(String line) {
+        OutputInterface errorOutput = output instanceof ConsoleOutputInterface ? ((ConsoleOutputInterface) output).getErrorOutput() : output;
+        VerbosityLevel verbosity = output.getVerbosity();
+        boolean decorated = output.isDecorated();
+        boolean errorDecorated = errorOutput.isDecorated();
+
+        try {
+            InputInterface input = new ArgvInput(tokenize(line));
+
+            return application.doRun(input, output);
+        } catch (RuntimeException e) {
+            application.renderException(e, errorOutput);
+
+            return 1;
+        } finally {
+            output.setVerbosity(verbosity);
+            output.setDecorated(decorated);
+            errorOutput.setDecorated(errorDecorated);
+        }
+    }
+
+    /**
+     * Returns the possible completions for the word being typed at the end of the buffer.
+     *
+     * The first word completes to a command name or alias, words starting
+     * with a dash complete to the options of the command being typed.
+     *
+     * @param buffer The line typed so far
+     *
+     * @return A sorted list of the complete words
+     */
+    public List<String> complete(String buffer) {
+        String[] words = split(buffer);
+        boolean newWord = buffer.isEmpty() || Character.isWhitespace(buffer.charAt(buffer.length() - 1));
+        String current = newWord || 0 == words.length ? EMPTY : words[words.length - 1];
+        int previousWords = newWord ? words.length : words.length - 1;
+
+        String commandName = null;
+        for (int i = 0; i < previousWords; i++) {
+            if (!words[i].startsWith("-")) {
+                commandName = words[i];
+                break;
+            }
+        }
+
+        Set<String> candidates = new TreeSet<String>();
+        if (current.startsWith("-")) {
+            if (null != commandName) {
+                try {
+                    addOptionCandidates(candidates, application.find(commandName).getDefinition(), current);
+                } catch (IllegalArgumentException e) {
+                    // Unknown or ambiguous command, only global options apply
+                }
+            }
+
+            addOptionCandidates(candidates, application.getDefinition(), current);
+        } else if (null == commandName) {
+            for (String name : application.all().keySet()) {
+                if (name.startsWith(current)) {
+                    candidates.add(name);
+                }
+            }
+        }
+
+        return new ArrayList<String>(candidates);
+    }
+
+    /**
+     * Gets the history attached to this shell.
+     *
+     * @return A History instance
+     */
+    public History getHistory() {
+        return history;
+    }
+
+    /**
+     * Returns the shell header.
+     *
+     * @return The header string
+     */
+    protected String getHeader() {
+        return String.format("%n"
+            + "Welcome to the %s shell.%n%n"
+            + "At the prompt, type <comment>help</comment> for some help,%n"
+            + "or <comment>list</comment> to get a list of available commands.%n%n"
+            + "To exit the shell, type <comment>exit</comment>.%n", application.getLongVersion());
+    }
+
+    /**
+     * Returns the shell prompt.
+     *
+     * @return The prompt string
+     */
+    protected String getPrompt() {
+        return String.format("<info>%s</info> > ", application.getName());
+    }
+
+    /**
+     * Splits a command line into tokens, honouring quotes and backslash escapes.
+     *
+     * @param line The command line
+     *
+     * @return The tokens
+     *
+     * @throws IllegalArgumentException When the line has an unterminated quote
+     */
+    protected String[] tokenize(String line) {
+        return StringInput.tokenize(line);
+    }
+
+    /**
+     * Reads a single line from the input stream.
+     *
+     * @return The line, without its line terminator, or null at the end of the stream
+     */
+    private String readline() {
+        output.write(getPrompt());
+
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeCompletions(String buffer) {
+        List<String> candidates = complete(buffer);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        if (1 == candidates.size()) {
+            String prefix = buffer.isEmpty() || Character.isWhitespace(buffer.charAt(buffer.length() - 1))
+                ? buffer
+                : buffer.substring(0, buffer.lastIndexOf(' ') + 1);
+            output.writeln(prefix + candidates.get(0));
+        } else {
+            output.writeln(join(candidates, "  "));
+        }
+    }
+
+    private static void addOptionCandidates(Set<String> candidates, InputDefinition definition, String current) {
+        for (InputOption option : definition.getOptions().values()) {
+            String name = "--" + option.getName();
+            if (name.startsWith(current)) {
+                candidates.add(name);
+            }
+
+            if (null != option.getShortcut()) {
+                String shortcut = "-" + option.getShortcut();
+                if (shortcut.startsWith(current)) {
+                    candidates.add(shortcut);
+                }
+            }
+        }
+    }
+
+    private static File getHistoryFile(Application application) {
+        return new File(System.getProperty("user.home"), ".history_" + application.getName());
+    }
+}
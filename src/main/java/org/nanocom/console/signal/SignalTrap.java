@@ -0,0 +1,134 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.signal;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import org.nanocom.console.Application;
+
+/**
+ * The SignalTrap cancels the commands of an application on SIGINT and SIGTERM.
+ *
+ * The signals are handled through sun.misc.Signal, looked up by reflection
+ * as it is not available on all JVMs. The first signal cancels the running
+ * commands, which then stop and return Application.EXIT_CANCELLED; a second
+ * one, or a signal received while no command runs, exits immediately.
+ *
+ * Without sun.misc.Signal, a shutdown hook cancels the running commands and
+ * waits for them to stop, for a grace period, before the JVM exits.
+ *
+ */
+public class SignalTrap {
+
+    public static final long DEFAULT_GRACE_PERIOD = 5000;
+
+    private final Application application;
+    private final long gracePeriod;
+    private volatile boolean signaled;
+    private boolean installed;
+
+    /**
+     * @param application The application
+     * @param gracePeriod How long the shutdown hook waits for the commands to stop, in milliseconds
+     */
+    public SignalTrap(Application application, long gracePeriod) {
+        this.application = application;
+        this.gracePeriod = gracePeriod;
+    }
+
+    public SignalTrap(Application application) {
+        this(application, DEFAULT_GRACE_PERIOD);
+    }
+
+    /**
+     * Installs the signal handlers, or the shutdown hook if signals cannot be handled.
+     *
+     * @return True if the signal handlers were installed, false if the shutdown hook was
+     */
+    public synchronized boolean install() {
+        if (installed) {
+            throw new IllegalStateException("The signal trap is already installed.");
+        }
+
+        installed = true;
+        if (installSignalHandlers()) {
+            return true;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread("console-shutdown") {
+
+            @Override
+            public void run() {
+                application.cancel();
+
+                long deadline = System.currentTimeMillis() + gracePeriod;
+                while (application.isRunning() && System.currentTimeMillis() < deadline) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        });
+
+        return false;
+    }
+
+    /**
+     * Handles a signal.
+     *
+     * @param name The name of the signal
+     */
+    protected void handle(String name) {
+        if (signaled || !application.isRunning()) {
+            System.exit(Application.EXIT_CANCELLED);
+        }
+
+        signaled = true;
+        application.cancel();
+    }
+
+    private boolean installSignalHandlers() {
+        try {
+            Class<?> signalClass = Class.forName("sun.misc.Signal");
+            Class<?> handlerClass = Class.forName("sun.misc.SignalHandler");
+            Constructor<?> constructor = signalClass.getConstructor(String.class);
+            Method handle = signalClass.getMethod("handle", signalClass, handlerClass);
+            final Method getName = signalClass.getMethod("getName");
+
+            Object handler = Proxy.newProxyInstance(handlerClass.getClassLoader(), new Class<?>[] { handlerClass }, new InvocationHandler() {
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if ("handle".equals(method.getName())) {
+                        handle((String) getName.invoke(args[0]));
+
+                        return null;
+                    } else if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    } else if ("hashCode".equals(method.getName())) {
+                        return System.identityHashCode(proxy);
+                    }
+
+                    return "SignalTrap";
+                }
+            });
+
+            handle.invoke(null, constructor.newInstance("INT"), handler);
+            handle.invoke(null, constructor.newInstance("TERM"), handler);
+
+            return true;
+        } catch (Exception e) {
+            // sun.misc.Signal is not available, or the JVM reserves the signals (-Xrs)
+            return false;
+        }
+    }
+}
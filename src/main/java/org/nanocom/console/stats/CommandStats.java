@@ -0,0 +1,96 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.stats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CommandStats measures the resources used by the phases of a command run.
+ *
+ * Each phase is measured between a call to begin() and a call to end(),
+ * on the thread running the command.
+ *
+ */
+public class CommandStats {
+
+    public static final String BIND = "bind";
+    public static final String INTERACT = "interact";
+    public static final String EXECUTE = "execute";
+
+    private final String commandName;
+    private final List<PhaseStats> phases = new ArrayList<PhaseStats>(3);
+    private long wallTime;
+    private long cpuTime;
+    private long allocatedBytes;
+
+    /**
+     * @param commandName The name of the command
+     */
+    public CommandStats(String commandName) {
+        this.commandName = commandName;
+    }
+
+    /**
+     * Starts measuring a phase.
+     */
+    public void begin() {
+        allocatedBytes = ResourceMeter.getAllocatedBytes();
+        cpuTime = ResourceMeter.getCpuTime();
+        wallTime = System.nanoTime();
+    }
+
+    /**
+     * Stops measuring a phase.
+     *
+     * @param phase The name of the phase
+     */
+    public void end(String phase) {
+        long wallEnd = System.nanoTime();
+        long cpuEnd = ResourceMeter.getCpuTime();
+        long allocatedEnd = ResourceMeter.getAllocatedBytes();
+
+        phases.add(new PhaseStats(
+            phase,
+            wallEnd - wallTime,
+            ResourceMeter.UNSUPPORTED == cpuEnd ? ResourceMeter.UNSUPPORTED : cpuEnd - cpuTime,
+            ResourceMeter.UNSUPPORTED == allocatedEnd ? ResourceMeter.UNSUPPORTED : allocatedEnd - allocatedBytes
+        ));
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * Gets the measured phases, in order.
+     *
+     * @return A list of PhaseStats instances
+     */
+    public List<PhaseStats> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * Gets a measured phase.
+     *
+     * @param name The name of the phase
+     *
+     * @return A PhaseStats instance, or null if the phase was not measured
+     */
+    public PhaseStats getPhase(String name) {
+        for (PhaseStats phase : phases) {
+            if (phase.getName().equals(name)) {
+                return phase;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.stats;
+
+import java.util.Locale;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+
+/**
+ * OutputStatsSink writes the command stats to the output, in verbose mode only.
+ *
+ */
+public class OutputStatsSink implements StatsSinkInterface {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void record(CommandStats stats, OutputInterface output) {
+        if (!VerbosityLevel.VERBOSE.equals(output.getVerbosity())) {
+            return;
+        }
+
+        for (PhaseStats phase : stats.getPhases()) {
+            output.writeln(String.format("<comment>[%s:%s]</comment> wall %s, cpu %s, allocated %s",
+                stats.getCommandName(),
+                phase.getName(),
+                formatTime(phase.getWallTime()),
+                formatTime(phase.getCpuTime()),
+                formatBytes(phase.getAllocatedBytes())
+            ));
+        }
+    }
+
+    private static String formatTime(long nanos) {
+        return ResourceMeter.UNSUPPORTED == nanos ? "n/a" : String.format(Locale.ROOT, "%.3f ms", nanos / 1000000.0);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (ResourceMeter.UNSUPPORTED == bytes) {
+            return "n/a";
+        } else if (bytes < 1024) {
+            return bytes + " B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KiB", bytes / 1024.0);
+        }
+
+        return String.format(Locale.ROOT, "%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.stats;
+
+/**
+ * The resources used by a phase of a command run.
+ *
+ */
+public class PhaseStats {
+
+    private final String name;
+    private final long wallTime;
+    private final long cpuTime;
+    private final long allocatedBytes;
+
+    /**
+     * @param name           The name of the phase
+     * @param wallTime       The wall time, in nanoseconds
+     * @param cpuTime        The CPU time, in nanoseconds, or ResourceMeter.UNSUPPORTED
+     * @param allocatedBytes The allocated bytes, or ResourceMeter.UNSUPPORTED
+     */
+    public PhaseStats(String name, long wallTime, long cpuTime, long allocatedBytes) {
+        this.name = name;
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.stats;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * The ResourceMeter reads the CPU time and allocated bytes of the current thread.
+ *
+ * What the JVM supports is detected once. The allocated bytes are read
+ * through the com.sun.management extension of ThreadMXBean, looked up by
+ * reflection as it is not available on all JVMs.
+ *
+ */
+public final class ResourceMeter {
+
+    public static final long UNSUPPORTED = -1;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = detectCpuTime();
+    private static final Method ALLOCATED_BYTES = detectAllocatedBytes();
+
+    private ResourceMeter() {
+    }
+
+    /**
+     * Returns true if the CPU time of the threads can be measured.
+     *
+     * @return True if supported, false otherwise
+     */
+    public static boolean isCpuTimeSupported() {
+        return CPU_TIME_SUPPORTED;
+    }
+
+    /**
+     * Returns true if the bytes allocated by the threads can be measured.
+     *
+     * @return True if supported, false otherwise
+     */
+    public static boolean isAllocatedBytesSupported() {
+        return null != ALLOCATED_BYTES;
+    }
+
+    /**
+     * Gets the CPU time of the current thread.
+     *
+     * @return The CPU time in nanoseconds, or UNSUPPORTED
+     */
+    public static long getCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : UNSUPPORTED;
+    }
+
+    /**
+     * Gets the bytes allocated so far by the current thread.
+     *
+     * @return The allocated bytes, or UNSUPPORTED
+     */
+    public static long getAllocatedBytes() {
+        if (null == ALLOCATED_BYTES) {
+            return UNSUPPORTED;
+        }
+
+        try {
+            return (Long) ALLOCATED_BYTES.invoke(THREADS, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return UNSUPPORTED;
+        }
+    }
+
+    private static boolean detectCpuTime() {
+        try {
+            return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static Method detectAllocatedBytes() {
+        try {
+            Class<?> extension = Class.forName("com.sun.management.ThreadMXBean");
+            if (!extension.isInstance(THREADS)) {
+                return null;
+            }
+
+            if (!(Boolean) extension.getMethod("isThreadAllocatedMemorySupported").invoke(THREADS)
+                || !(Boolean) extension.getMethod("isThreadAllocatedMemoryEnabled").invoke(THREADS)) {
+                return null;
+            }
+
+            Method method = extension.getMethod("getThreadAllocatedBytes", long.class);
+            method.invoke(THREADS, Thread.currentThread().getId());
+
+            return method;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.stats;
+
+import org.nanocom.console.output.OutputInterface;
+
+/**
+ * StatsSinkInterface is the interface implemented by the receivers of the command stats.
+ *
+ */
+public interface StatsSinkInterface {
+
+    /**
+     * Records the stats of a command run.
+     *
+     * Called once the command returned or threw, with the phases measured so far.
+     *
+     * @param stats  A CommandStats instance
+     * @param output The output of the command
+     */
+    void record(CommandStats stats, OutputInterface output);
+}
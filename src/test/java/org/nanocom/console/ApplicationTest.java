@@ -150,6 +150,28 @@ public class ApplicationTest {
     }
 
     @Test
+    public void testReplace() {
+        Application application = new Application();
+        Command foo = new FooCommand();
+        Command foo1 = new Foo1Command();
+        application.add(foo);
+        Map<String, Command> before = application.all();
+
+        application.replace(Arrays.asList(foo), Arrays.asList(foo1));
+        assertFalse("replace() removes the given commands", application.has("foo:bar"));
+        assertFalse("replace() removes the aliases of the given commands", application.has("afoobar"));
+        assertEquals("replace() adds the given commands", foo1, application.get("foo:bar1"));
+        assertEquals("replace() adds the aliases of the given commands", foo1, application.get("afoobar1"));
+        assertEquals("replace() does not modify the commands previously returned", foo, before.get("foo:bar"));
+
+        Command other = new FooCommand();
+        application.add(other);
+        application.replace(Arrays.asList(foo), Arrays.<Command>asList());
+        assertEquals("replace() does not remove a name pointing to another command", other, application.get("foo:bar"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
     public void testHasGet() throws NoSuchFieldException, IllegalArgumentException, IllegalAccessException {
         Application application = new Application();
         assertTrue("has() returns true if a named command is registered", application.has("list"));
@@ -176,7 +198,7 @@ public class ApplicationTest {
         Class<Application> cls = Application.class;
         Field f = cls.getDeclaredField("wantHelps");
         f.setAccessible(true);
-        f.set(application, true);
+        ((ThreadLocal<Boolean>) f.get(application)).set(true);
         Command command = application.get("foo:bar");
         assertEquals("get() returns the help command if --help is provided as the input", HelpCommand.class, command.getClass());
     }
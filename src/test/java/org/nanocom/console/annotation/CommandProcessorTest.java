@@ -0,0 +1,156 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.input.InputDefinition;
+import org.nanocom.console.input.InputOption;
+import org.nanocom.console.output.NullOutput;
+
+public class CommandProcessorTest {
+
+    private static final String SOURCE =
+        "package acme;\n"
+        + "\n"
+        + "import java.util.List;\n"
+        + "import org.nanocom.console.annotation.*;\n"
+        + "import org.nanocom.console.command.Command;\n"
+        + "import org.nanocom.console.input.InputInterface;\n"
+        + "import org.nanocom.console.output.OutputInterface;\n"
+        + "\n"
+        + "@ConsoleCommand(name = \"acme:greet\", description = \"Says \\\"hello\\\"\", aliases = {\"greet\"})\n"
+        + "public abstract class GreetCommand extends Command {\n"
+        + "\n"
+        + "    public static String result;\n"
+        + "\n"
+        + "    @Argument(required = true, description = \"Who to greet\")\n"
+        + "    String name;\n"
+        + "\n"
+        + "    @Argument(name = \"others\")\n"
+        + "    List<String> others;\n"
+        + "\n"
+        + "    @Option(shortcut = \"y\")\n"
+        + "    boolean yell;\n"
+        + "\n"
+        + "    @Option(valueRequired = true, defaultValue = \"1\")\n"
+        + "    int repeatCount;\n"
+        + "\n"
+        + "    @Override\n"
+        + "    protected int execute(InputInterface input, OutputInterface output) {\n"
+        + "        String message = \"\";\n"
+        + "        for (int i = 0; i < repeatCount; i++) {\n"
+        + "            message += \"Hello \" + name + (null == others ? \"\" : others.toString());\n"
+        + "        }\n"
+        + "        result = yell ? message.toUpperCase() : message;\n"
+        + "\n"
+        + "        return 0;\n"
+        + "    }\n"
+        + "}\n";
+
+    private File directory;
+
+    public CommandProcessorTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("console", ".processor");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        assertEquals("The processor compiles a valid command", 0, compile("GreetCommand", SOURCE));
+        assertTrue("The processor generates the command implementation", new File(directory, "acme/GreetCommandImpl.class").isFile());
+        assertTrue("The processor generates the package registry", new File(directory, "acme/ConsoleCommands.class").isFile());
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, getClass().getClassLoader());
+
+        @SuppressWarnings("unchecked")
+        List<Command> commands = (List<Command>) classLoader.loadClass("acme.ConsoleCommands").getMethod("createCommands").invoke(null);
+        assertEquals("The registry creates the commands of the package", 1, commands.size());
+
+        Command command = commands.get(0);
+        assertEquals("The generated command has the annotated name", "acme:greet", command.getName());
+        assertEquals("The generated command has the annotated description", "Says \"hello\"", command.getDescription());
+        assertEquals("The generated command has the annotated aliases", Arrays.asList("greet"), command.getAliases());
+
+        InputDefinition definition = command.getDefinition();
+        assertTrue("The generated definition requires the annotated arguments", definition.getArgument("name").isRequired());
+        assertTrue("The generated definition maps list fields to array arguments", definition.getArgument("others").isArray());
+        InputOption option = definition.getOption("repeat-count");
+        assertEquals("The generated definition uses the dashed field name for the options", "1", option.getDefaultValue());
+        assertEquals("The generated definition uses the annotated shortcut", "y", definition.getOption("yell").getShortcut());
+
+        Application application = new Application();
+        application.setAutoExit(false);
+        application.addCommands(commands);
+
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", "greet");
+        parameters.put("name", "Fabien");
+        parameters.put("--yell", null);
+        parameters.put("--repeat-count", "2");
+        assertEquals("The generated command runs", 0, application.doRun(new ArrayInput(parameters), new NullOutput()));
+        assertEquals("The generated command binds the input to the fields", "HELLO FABIEN[]HELLO FABIEN[]", classLoader.loadClass("acme.GreetCommand").getField("result").get(null));
+    }
+
+    @Test
+    public void testProcessErrors() throws Exception {
+        String source = SOURCE.replace("public abstract class", "public class");
+        assertTrue("The processor rejects a concrete command class", 0 != compile("GreetCommand", source));
+
+        source = SOURCE.replace("    String name;", "    private String name;");
+        assertTrue("The processor rejects a private bound field", 0 != compile("GreetCommand", source));
+
+        source = SOURCE.replace("    String name;", "    Object name;");
+        assertTrue("The processor rejects an unsupported field type", 0 != compile("GreetCommand", source));
+    }
+
+    private int compile(String className, String source) throws Exception {
+        File sourceFile = new File(directory, "acme/" + className + ".java");
+        FileUtils.writeStringToFile(sourceFile, source, "UTF-8");
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("A Java compiler is available", compiler);
+
+        String classPath = new File(Command.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath()
+            + File.pathSeparator + System.getProperty("java.class.path");
+
+        return compiler.run(null, new ByteArrayOutputStream(), new ByteArrayOutputStream(),
+            "-processor", CommandProcessor.class.getName(),
+            "-classpath", classPath,
+            "-d", directory.getPath(),
+            "-s", directory.getPath(),
+            sourceFile.getPath()
+        );
+    }
+}
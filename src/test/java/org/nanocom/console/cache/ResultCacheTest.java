@@ -0,0 +1,231 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.CancellationToken;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.input.InputArgument;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.input.InputOption;
+import org.nanocom.console.output.NullOutput;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+public class ResultCacheTest {
+
+    private File directory;
+    private Application application;
+    private EchoCommand command;
+
+    public ResultCacheTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("console", ".cache");
+        directory.delete();
+        directory.mkdir();
+
+        command = new EchoCommand();
+        application = new Application();
+        application.setAutoExit(false);
+        application.add(command);
+        application.setResultCache(new ResultCache(directory, 1024 * 1024));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void testRun() {
+        assertEquals(".run() runs the command on a miss", "foo\n", run("foo"));
+        assertEquals(".run() runs the command on a miss", 1, command.executions);
+
+        assertEquals(".run() replays the output on a hit", "foo\n", run("foo"));
+        assertEquals(".run() does not execute the command on a hit", 1, command.executions);
+
+        assertEquals(".run() keys the results on the input", "bar\n", run("bar"));
+        assertEquals(".run() keys the results on the input", 2, command.executions);
+
+        command.version = "2";
+        run("foo");
+        assertEquals(".run() keys the results on the command version", 3, command.executions);
+
+        assertEquals(".run() does not cache the commands writing to other outputs", 0, application.doRun(createInput("foo"), new NullOutput()));
+        assertEquals(".run() does not cache the commands writing to other outputs", 4, command.executions);
+    }
+
+    @Test
+    public void testFailures() {
+        command.statusCode = 3;
+        run("foo");
+        run("foo");
+        assertEquals(".run() does not cache the failed runs", 2, command.executions);
+    }
+
+    @Test
+    public void testCancellations() {
+        command.cancelled = true;
+        for (int i = 0; i < 2; i++) {
+            OutputInterface output = new StreamOutput(new PrintStream(new ByteArrayOutputStream()), VerbosityLevel.NORMAL, false, null);
+            assertEquals(".run() returns the cancellation status code", Application.EXIT_CANCELLED, application.doRun(createInput("foo"), output));
+        }
+        assertEquals(".run() does not cache the cancelled runs", 2, command.executions);
+    }
+
+    @Test
+    public void testKey() {
+        run("foo", null);
+        run("foo", "null");
+        assertEquals(".getKey() tells null from the \"null\" string", 2, command.executions);
+
+        run("a, extra=b", null);
+        run("a", "b, message=a");
+        assertEquals(".getKey() tells the values containing separators apart", 4, command.executions);
+    }
+
+    @Test
+    public void testFileValues() throws Exception {
+        File file = new File(directory, "payload.txt");
+        FileUtils.writeStringToFile(file, "foo", "UTF-8");
+
+        run("foo", null, "@" + file.getPath());
+        run("foo", null, "@" + file.getPath());
+        assertEquals(".run() does not cache the inputs holding file values", 2, command.executions);
+    }
+
+    @Test
+    public void testInteraction() {
+        command.answer = "bar";
+        assertEquals(".run() keys the results on the answers to the prompts", "bar\n", run("foo"));
+        command.answer = "baz";
+        assertEquals(".run() keys the results on the answers to the prompts", "baz\n", run("foo"));
+        assertEquals(".run() keys the results on the answers to the prompts", 2, command.executions);
+        assertEquals(".run() prompts the user before replaying a result", "baz\n", run("foo"));
+        assertEquals(".run() prompts the user before replaying a result", 2, command.executions);
+        assertEquals(".run() prompts the user before replaying a result", 3, command.interactions);
+    }
+
+    @Test
+    public void testExpiration() {
+        command.ttl = -1;
+        run("foo");
+        run("foo");
+        assertEquals(".run() runs the command again once its result expired", 2, command.executions);
+    }
+
+    @Test
+    public void testEviction() {
+        application.setResultCache(new ResultCache(directory, 20));
+        run("foo");
+        run("bar");
+        assertEquals(".run() evicts the least recently used results beyond the maximum size", 1, directory.listFiles().length);
+
+        run("bar");
+        assertEquals(".run() keeps the most recent results", 2, command.executions);
+        run("foo");
+        assertEquals(".run() evicts the least recently used results", 3, command.executions);
+    }
+
+    private String run(String message) {
+        return run(message, null);
+    }
+
+    private String run(String message, String extra) {
+        return run(message, extra, null);
+    }
+
+    private String run(String message, String extra, String payload) {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", "echo");
+        parameters.put("message", message);
+        if (null != extra) {
+            parameters.put("extra", extra);
+        }
+        if (null != payload) {
+            parameters.put("--payload", payload);
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int statusCode = application.doRun(new ArrayInput(parameters), new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, false, null));
+        assertEquals(".run() returns the status code of the command", command.statusCode, statusCode);
+
+        return stream.toString();
+    }
+
+    private static InputInterface createInput(String message) {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", "echo");
+        parameters.put("message", message);
+
+        return new ArrayInput(parameters);
+    }
+
+    private static class EchoCommand extends Command implements CacheableInterface {
+
+        private int executions;
+        private String version = "1";
+        private long ttl = 60000;
+        private int statusCode;
+        private boolean cancelled;
+        private String answer;
+        private int interactions;
+
+        @Override
+        protected void configure() {
+            setName("echo");
+            addArgument("message", InputArgument.REQUIRED);
+            addArgument("extra", InputArgument.OPTIONAL);
+            addOption("payload", null, InputOption.VALUE_REQUIRED | InputOption.VALUE_FROM_FILE);
+        }
+
+        @Override
+        protected void interact(InputInterface input, OutputInterface output) {
+            interactions++;
+            if (null != answer) {
+                input.setArgument("message", answer);
+            }
+        }
+
+        @Override
+        protected int execute(InputInterface input, OutputInterface output) {
+            executions++;
+            output.writeln(input.getArgument("message").toString());
+            if (cancelled) {
+                CancellationToken.current().cancel();
+            }
+
+            return statusCode;
+        }
+
+        @Override
+        public String getCacheVersion() {
+            return version;
+        }
+
+        @Override
+        public long getCacheTtl() {
+            return ttl;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.exception.CancelledException;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.NullOutput;
+import org.nanocom.console.output.OutputInterface;
+
+public class CancellationTokenTest {
+
+    public CancellationTokenTest() {
+    }
+
+    @Test
+    public void testCancel() {
+        final List<String> events = new ArrayList<String>();
+        CancellationToken token = new CancellationToken();
+        token.addListener(new Runnable() {
+
+            @Override
+            public void run() {
+                events.add("first");
+            }
+        });
+        Runnable removed = new Runnable() {
+
+            @Override
+            public void run() {
+                events.add("removed");
+            }
+        };
+        token.addListener(removed);
+        token.removeListener(removed);
+
+        assertFalse(".isCancelled() returns false before cancel() is called", token.isCancelled());
+        token.throwIfCancelled();
+
+        token.cancel();
+        token.cancel();
+        assertTrue(".cancel() cancels the token", token.isCancelled());
+        assertEquals(".cancel() runs the listeners once", 1, events.size());
+
+        token.addListener(new Runnable() {
+
+            @Override
+            public void run() {
+                events.add("late");
+            }
+        });
+        assertEquals(".addListener() runs the listener at once if the token is cancelled", 2, events.size());
+
+        try {
+            token.throwIfCancelled();
+            fail(".throwIfCancelled() throws a CancelledException if the token is cancelled");
+        } catch (CancelledException e) {
+        }
+    }
+
+    @Test
+    public void testInterrupt() {
+        CancellationToken token = new CancellationToken(Thread.currentThread());
+        token.cancel();
+        assertTrue(".cancel() interrupts the thread", Thread.interrupted());
+
+        token = new CancellationToken(Thread.currentThread());
+        token.detach();
+        token.cancel();
+        assertFalse(".cancel() does not interrupt a detached thread", Thread.interrupted());
+    }
+
+    @Test
+    public void testApplicationCancel() throws Exception {
+        final CountDownLatch[] started = new CountDownLatch[1];
+        final Application application = new Application();
+        application.setAutoExit(false);
+        application.register("loop").setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                started[0].countDown();
+                while (true) {
+                    CancellationToken.current().throwIfCancelled();
+                }
+            }
+        });
+        application.register("sleep").setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                started[0].countDown();
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    return 0;
+                }
+
+                return 1;
+            }
+        });
+
+        for (final String name : new String[] { "loop", "sleep" }) {
+            final int[] statusCode = new int[1];
+            started[0] = new CountDownLatch(1);
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+                    Map<String, String> parameters = new HashMap<String, String>();
+                    parameters.put("command", name);
+                    statusCode[0] = application.doRun(new ArrayInput(parameters), new NullOutput());
+                }
+            };
+            thread.start();
+
+            assertTrue("The command starts", started[0].await(5, TimeUnit.SECONDS));
+            assertTrue(".isRunning() returns true while a command runs", application.isRunning());
+            application.cancel();
+            thread.join(5000);
+
+            assertFalse(".cancel() stops the running command", thread.isAlive());
+            assertEquals(".cancel() makes the command return the cancellation status code", Application.EXIT_CANCELLED, statusCode[0]);
+            assertFalse(".isRunning() returns false once the commands stopped", application.isRunning());
+        }
+    }
+}
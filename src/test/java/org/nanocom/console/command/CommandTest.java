@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
@@ -142,6 +143,30 @@ public class CommandTest {
         assertEquals("getSynopsis() returns the synopsis", "namespace:name [--foo] [foo]", command.getSynopsis());
     }
 
+    @Test
+    public void testCaching() {
+        Command command = new TestCommand();
+        command.setHelp("The %command.name% command");
+        assertSame("getProcessedHelp() caches the processed help", command.getProcessedHelp(), command.getProcessedHelp());
+        command.setName("namespace:other");
+        assertEquals("setName() invalidates the processed help", "The namespace:other command", command.getProcessedHelp());
+        command.setHelp("Help of %command.name%");
+        assertEquals("setHelp() invalidates the processed help", "Help of namespace:other", command.getProcessedHelp());
+
+        assertEquals("getSynopsis() returns the synopsis", "namespace:other", command.getSynopsis());
+        command.addOption("foo");
+        assertEquals("addOption() invalidates the synopsis", "namespace:other [--foo]", command.getSynopsis());
+        command.getDefinition().addArgument(new InputArgument("bar"));
+        assertEquals("getSynopsis() is computed again when the definition changes", "namespace:other [--foo] [bar]", command.getSynopsis());
+
+        String text = command.asText();
+        assertSame("asText() caches the text representation", text, command.asText());
+        command.setAliases(Arrays.asList("other"));
+        assertTrue("setAliases() invalidates the text representation", command.asText().contains("<info>other</info>"));
+        command.setDefinition(new InputDefinition());
+        assertFalse("setDefinition() invalidates the text representation", command.asText().contains("--foo"));
+    }
+
     @Test
     public void testGetHelper() {
         Application application = new Application();
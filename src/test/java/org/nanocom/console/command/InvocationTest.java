@@ -0,0 +1,128 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.event.CommandListenerAdapter;
+import org.nanocom.console.input.InputArgument;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.input.InputOption;
+import org.nanocom.console.output.OutputInterface;
+
+public class InvocationTest {
+
+    private Application application;
+    private Command command;
+    private InputInterface bound;
+    private boolean running;
+
+    public InvocationTest() {
+    }
+
+    @Before
+    public void setUp() {
+        application = new Application();
+        application.setAutoExit(false);
+        command = application.register("greet");
+        command.addArgument("name", InputArgument.REQUIRED);
+        command.addArgument("others", InputArgument.IS_ARRAY);
+        command.addOption("repeat", "r", InputOption.VALUE_REQUIRED, "", "1");
+        command.addOption("yell", "y", InputOption.VALUE_NONE);
+        command.addOption("data", null, InputOption.VALUE_REQUIRED | InputOption.VALUE_FROM_FILE);
+        command.setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                bound = input;
+                running = application.isRunning();
+
+                return input.getInt("repeat");
+            }
+        });
+    }
+
+    @Test
+    public void testRun() {
+        Object repeat = 3;
+        assertEquals("run() returns the command exit code", 3, Invocation.of(command).arg("name", "Fabien").arg("others", "a", "b").opt("repeat", repeat).opt("yell").run());
+        assertEquals("run() binds the arguments", "Fabien", bound.getArgument("name"));
+        assertEquals("run() binds the array arguments", Arrays.asList("a", "b"), bound.getArgument("others"));
+        assertSame("run() binds the typed values as they are", repeat, bound.getOption("repeat"));
+        assertEquals("run() sets the flags", true, bound.getOption("yell"));
+        assertFalse("run() runs the command non-interactively", bound.isInteractive());
+        assertTrue("run() exposes the given options to the raw accessors", bound.hasParameterOption("-y"));
+        assertEquals("run() uses the default values", 1, Invocation.of(command).arg("name", "Fabien").run());
+
+        Invocation invocation = Invocation.of(command).arg("name", "Fabien").arg("others", new String[] { "c" }).opt("repeat", 2);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("run() can run an invocation several times", 2, invocation.run());
+        }
+        assertEquals("run() copies the arrays given for an array argument", Arrays.asList("c"), bound.getArgument("others"));
+
+        Invocation.of(command).arg("name", "Fabien").arg("others", new int[] { 1, 2 }).run();
+        assertEquals("run() expands the arrays of primitives given for an array argument", Arrays.<Object>asList(1, 2), bound.getArgument("others"));
+
+        Invocation.of(command).arg("name", "Fabien").opt("data", "@missing.txt").run();
+        assertEquals("run() does not load the values of the options read from a file", "@missing.txt", bound.getOption("data"));
+    }
+
+    @Test
+    public void testRunThroughApplication() {
+        final List<Command> executed = new ArrayList<Command>();
+        application.addListener(new CommandListenerAdapter() {
+
+            @Override
+            public void afterExecute(Command command, InputInterface input, OutputInterface output, int statusCode) {
+                executed.add(command);
+            }
+        });
+
+        Invocation invocation = Invocation.of(command).arg("name", "Fabien");
+        invocation.run();
+        assertEquals("run() notifies the listeners of the application", Arrays.asList(command), executed);
+        assertTrue("run() gives the command a cancellation token", running);
+
+        invocation.arg("name", "Jordi");
+        bound.bind(command.getDefinition());
+        assertEquals("run() copies the values given to the invocation", "Fabien", bound.getArgument("name"));
+
+        Invocation.of(command).arg("name", "Fabien").opt("help").run();
+        assertEquals("run() honours the global options", 2, executed.size());
+        assertTrue("run() honours the global options", executed.get(1) instanceof HelpCommand);
+    }
+
+    @Test
+    public void testRunErrors() {
+        try {
+            Invocation.of(command).arg("name", "Fabien").opt("foo", 1).run();
+            fail("run() throws an IllegalArgumentException if an option does not exist");
+        } catch (IllegalArgumentException e) {
+            assertEquals("run() throws an IllegalArgumentException if an option does not exist", "The \"--foo\" option does not exist.", e.getMessage());
+        }
+
+        try {
+            Invocation.of(command).opt("repeat").run();
+            fail("run() throws an IllegalArgumentException if a required value is missing");
+        } catch (IllegalArgumentException e) {
+            assertEquals("run() throws an IllegalArgumentException if a required value is missing", "The \"--repeat\" option requires a value.", e.getMessage());
+        }
+
+        try {
+            Invocation.of(command).run();
+            fail("run() throws a RuntimeException if a required argument is missing");
+        } catch (RuntimeException e) {
+            assertEquals("run() throws a RuntimeException if a required argument is missing", "Not enough arguments.", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.command;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.input.InputOption;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+public class RecordExecutableTest {
+
+    public RecordExecutableTest() {
+    }
+
+    @Test
+    public void testExecute() {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final CountingIterator records = new CountingIterator(3, stream);
+
+        Command command = new Command("foo:records");
+        command.setCode(new RecordExecutable() {
+
+            @Override
+            protected Iterator<?> records(InputInterface input, OutputInterface output) {
+                return records;
+            }
+        });
+
+        assertEquals(".execute() returns 0", 0, command.run(new ArrayInput(new HashMap<String, String>()), new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, false, null)));
+        assertEquals(".execute() renders the records", "0\n1\n2\n", stream.toString());
+        assertTrue(".execute() renders each record before pulling the next one", records.streamed);
+        assertTrue(".execute() closes a closeable iterator", records.closed);
+    }
+
+    @Test
+    public void testFormat() {
+        Application application = new Application();
+        application.setAutoExit(false);
+        application.register("foo:records").setCode(new RecordExecutable() {
+
+            @Override
+            protected Iterator<?> records(InputInterface input, OutputInterface output) {
+                return Arrays.asList("foo", "bar").iterator();
+            }
+        });
+
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", "foo:records");
+        parameters.put("--format", "ndjson");
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        application.doRun(new ArrayInput(parameters), new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, false, null));
+        assertEquals(".execute() renders the records in the format given by the --format option", "\"foo\"\n\"bar\"\n", stream.toString());
+        assertFalse(".run() does not add the --format option to the application", application.getDefinition().hasOption("format"));
+    }
+
+    @Test
+    public void testUnsupportedFormat() {
+        final CountingIterator records = new CountingIterator(3, new ByteArrayOutputStream());
+        Application application = new Application();
+        application.setAutoExit(false);
+        application.register("foo:records").setCode(new RecordExecutable() {
+
+            @Override
+            protected Iterator<?> records(InputInterface input, OutputInterface output) {
+                records.opened = true;
+
+                return records;
+            }
+        });
+
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", "foo:records");
+        parameters.put("--format", "xml");
+
+        try {
+            application.doRun(new ArrayInput(parameters), new StreamOutput(new PrintStream(new ByteArrayOutputStream()), VerbosityLevel.NORMAL, false, null));
+            fail(".execute() throws an IllegalArgumentException if the format is not supported");
+        } catch (IllegalArgumentException e) {
+            assertFalse(".execute() checks the format before opening the records", records.opened);
+        }
+    }
+
+    @Test
+    public void testOwnFormatOption() {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Application application = new Application();
+        application.setAutoExit(false);
+        Command command = application.register("foo:export");
+        command.addOption("format", null, InputOption.VALUE_REQUIRED, "The archive format");
+        command.setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                output.write(input.getOption("format").toString());
+
+                return 0;
+            }
+        });
+
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        parameters.put("command", "foo:export");
+        parameters.put("--format", "zip");
+
+        assertEquals(".run() keeps a --format option defined by the command", 0, application.doRun(new ArrayInput(parameters), new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, false, null)));
+        assertEquals(".run() keeps a --format option defined by the command", "zip", stream.toString());
+    }
+
+    private static class CountingIterator implements Iterator<Integer>, Closeable {
+
+        private final int size;
+        private final ByteArrayOutputStream stream;
+        private int index;
+        private boolean streamed = true;
+        private boolean opened;
+        private boolean closed;
+
+        CountingIterator(int size, ByteArrayOutputStream stream) {
+            this.size = size;
+            this.stream = stream;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            // All the previous records must have been written already
+            streamed &= 2 * index == stream.size();
+
+            return index++;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
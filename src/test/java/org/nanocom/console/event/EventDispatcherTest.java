@@ -0,0 +1,207 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.command.Executable;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.NullOutput;
+import org.nanocom.console.output.OutputInterface;
+
+public class EventDispatcherTest {
+
+    private List<String> events;
+    private Application application;
+
+    public EventDispatcherTest() {
+    }
+
+    @Before
+    public void setUp() {
+        events = new ArrayList<String>();
+        application = new Application();
+        application.setAutoExit(false);
+        application.register("foo").setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                events.add("execute");
+
+                return 3;
+            }
+        });
+        application.register("fail").setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                throw new RuntimeException("Failure");
+            }
+        });
+    }
+
+    @Test
+    public void testAddRemoveListener() {
+        EventDispatcher dispatcher = new EventDispatcher();
+        assertFalse(".hasListeners() returns false if no listener is registered", dispatcher.hasListeners());
+
+        CommandListenerInterface listener = new RecordingListener();
+        dispatcher.addListener(listener);
+        assertTrue(".addListener() registers a listener", dispatcher.hasListeners());
+
+        dispatcher.removeListener(listener);
+        assertFalse(".removeListener() unregisters a listener", dispatcher.hasListeners());
+    }
+
+    @Test
+    public void testEvents() {
+        application.addListener(new RecordingListener());
+
+        assertEquals("doRun() returns the command status code", 3, application.doRun(createInput("foo"), new NullOutput()));
+        assertEquals("doRun() dispatches the lifecycle events in order", Arrays.asList(
+            "beforeDispatch",
+            "afterResolve foo",
+            "beforeExecute foo",
+            "execute",
+            "afterExecute foo 3",
+            "onTerminate foo 3"
+        ), events);
+    }
+
+    @Test
+    public void testExceptionEvents() {
+        application.addListener(new RecordingListener());
+
+        try {
+            application.doRun(createInput("fail"), new NullOutput());
+            fail("doRun() throws the command exception");
+        } catch (RuntimeException e) {
+            assertEquals("doRun() throws the command exception", "Failure", e.getMessage());
+        }
+
+        assertEquals("doRun() dispatches the exception events", Arrays.asList(
+            "beforeDispatch",
+            "afterResolve fail",
+            "beforeExecute fail",
+            "onException fail Failure",
+            "onTerminate fail 1"
+        ), events);
+
+        events.clear();
+        try {
+            application.doRun(createInput("unknown"), new NullOutput());
+            fail("doRun() throws an exception for an unknown command");
+        } catch (IllegalArgumentException e) {
+        }
+
+        assertEquals("doRun() dispatches the exception events without command if none was found", Arrays.asList(
+            "beforeDispatch",
+            "onException null Command \"unknown\" is not defined.",
+            "onTerminate null 1"
+        ), events);
+    }
+
+    @Test
+    public void testListenerFailures() {
+        application.addListener(new RecordingListener());
+        application.addListener(new CommandListenerAdapter() {
+
+            @Override
+            public void beforeDispatch(InputInterface input, OutputInterface output) {
+                if (events.contains("first run")) {
+                    throw new RuntimeException("Dispatch failure");
+                }
+            }
+
+            @Override
+            public void afterExecute(Command command, InputInterface input, OutputInterface output, int statusCode) {
+                throw new RuntimeException("Listener failure");
+            }
+        });
+
+        try {
+            application.doRun(createInput("foo"), new NullOutput());
+            fail("doRun() throws the listener exception");
+        } catch (RuntimeException e) {
+            assertEquals("doRun() throws the listener exception", "Listener failure", e.getMessage());
+        }
+
+        assertEquals("doRun() does not report the listener failures to onException()", Arrays.asList(
+            "beforeDispatch",
+            "afterResolve foo",
+            "beforeExecute foo",
+            "execute",
+            "afterExecute foo 3",
+            "onTerminate foo 3"
+        ), events);
+
+        events.clear();
+        events.add("first run");
+        try {
+            application.doRun(createInput("foo"), new NullOutput());
+            fail("doRun() throws the listener exception");
+        } catch (RuntimeException e) {
+            assertEquals("doRun() throws the listener exception", "Dispatch failure", e.getMessage());
+        }
+
+        assertEquals("doRun() dispatches onTerminate() when a beforeDispatch() listener fails", Arrays.asList(
+            "first run",
+            "beforeDispatch",
+            "onTerminate null 1"
+        ), events);
+    }
+
+    private static InputInterface createInput(String commandName) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("command", commandName);
+
+        return new ArrayInput(parameters);
+    }
+
+    private class RecordingListener extends CommandListenerAdapter {
+
+        @Override
+        public void beforeDispatch(InputInterface input, OutputInterface output) {
+            events.add("beforeDispatch");
+        }
+
+        @Override
+        public void afterResolve(Command command, InputInterface input, OutputInterface output) {
+            events.add("afterResolve " + command.getName());
+        }
+
+        @Override
+        public void beforeExecute(Command command, InputInterface input, OutputInterface output) {
+            events.add("beforeExecute " + command.getName());
+        }
+
+        @Override
+        public void afterExecute(Command command, InputInterface input, OutputInterface output, int statusCode) {
+            events.add("afterExecute " + command.getName() + " " + statusCode);
+        }
+
+        @Override
+        public void onException(Command command, InputInterface input, OutputInterface output, RuntimeException exception) {
+            events.add("onException " + (null == command ? null : command.getName()) + " " + exception.getMessage());
+        }
+
+        @Override
+        public void onTerminate(Command command, InputInterface input, OutputInterface output, int statusCode) {
+            events.add("onTerminate " + (null == command ? null : command.getName()) + " " + statusCode);
+        }
+    }
+}
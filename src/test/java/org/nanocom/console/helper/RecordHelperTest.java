@@ -0,0 +1,81 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+import org.nanocom.console.record.CsvRecordWriter;
+import org.nanocom.console.record.JsonRecordWriter;
+import org.nanocom.console.record.NdjsonRecordWriter;
+import org.nanocom.console.record.RecordWriterInterface;
+import org.nanocom.console.record.TextRecordWriter;
+
+public class RecordHelperTest {
+
+    public RecordHelperTest() {
+    }
+
+    @Test
+    public void testCreateWriter() {
+        RecordHelper helper = new RecordHelper();
+        StreamOutput output = createOutput(new ByteArrayOutputStream());
+
+        assertTrue(".createWriter() creates a text writer for the txt format", helper.createWriter("txt", output) instanceof TextRecordWriter);
+        assertTrue(".createWriter() creates a JSON writer for the json format", helper.createWriter("json", output) instanceof JsonRecordWriter);
+        assertTrue(".createWriter() creates a NDJSON writer for the ndjson format", helper.createWriter("ndjson", output) instanceof NdjsonRecordWriter);
+        assertTrue(".createWriter() creates a CSV writer for the csv format", helper.createWriter("csv", output) instanceof CsvRecordWriter);
+        assertTrue(".createWriter() creates a text writer if the input has no format", helper.createWriter((InputInterface) null, output) instanceof TextRecordWriter);
+
+        try {
+            helper.createWriter("xml", output);
+            fail(".createWriter() throws an IllegalArgumentException if the format is not supported");
+        } catch (IllegalArgumentException e) {
+            assertEquals(".createWriter() throws an IllegalArgumentException if the format is not supported", "The \"xml\" format is not supported, use txt, json, ndjson or csv.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFormats() {
+        assertEquals("The json format writes a JSON array", "[\n{\"name\":\"foo\",\"size\":1},\n[\"a\\\"b\",null,true]\n]\n", write("json"));
+        assertEquals("The json format writes an empty array without records", "[]\n", write("json", new Object[0]));
+        assertEquals("The ndjson format writes a JSON value per line", "{\"name\":\"foo\",\"size\":1}\n[\"a\\\"b\",null,true]\n", write("ndjson"));
+        assertEquals("The csv format writes a header and quotes the values", "name,size\r\nfoo,1\r\n\"a\"\"b\",,true\r\n", write("csv"));
+        assertEquals("The formats bypass the output formatter", "[\"<info>foo</info>\"]\n", write("ndjson", (Object) Arrays.asList("<info>foo</info>")));
+    }
+
+    private static String write(String format) {
+        Map<String, Object> record = new LinkedHashMap<String, Object>();
+        record.put("name", "foo");
+        record.put("size", 1);
+
+        return write(format, record, new Object[] { "a\"b", null, true });
+    }
+
+    private static String write(String format, Object... records) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        RecordWriterInterface writer = new RecordHelper().createWriter(format, createOutput(stream));
+        for (Object record : records) {
+            writer.write(record);
+        }
+        writer.close();
+
+        return stream.toString();
+    }
+
+    private static StreamOutput createOutput(ByteArrayOutputStream stream) {
+        return new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, true, null);
+    }
+}
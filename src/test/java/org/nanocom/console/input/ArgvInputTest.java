@@ -1,10 +1,18 @@
 package org.nanocom.console.input;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
+import org.nanocom.console.exception.LogicException;
 import org.junit.Test;
 
 public class ArgvInputTest {
@@ -76,7 +84,8 @@ public class ArgvInputTest {
         input = new ArgvInput(new String[]{"-f", "-b", "foo"});
         input.bind(new InputDefinition(Arrays.<Object>asList(new InputArgument("name"), new InputOption("foo", "f", InputOption.VALUE_OPTIONAL), new InputOption("bar", "b"))));
         foobar.clear();
-        foobar.put("foo", true);
+        foobar.put("foo", null);
+        foobar.put("bar", true);
         assertEquals("parse() parses short options with an optional value which is not present", foobar, input.getOptions());
 
         try {
@@ -153,15 +162,11 @@ public class ArgvInputTest {
         foobar.put("bar", null);
         assertEquals("parse() parses short options when they are aggregated as a single one and one of them takes a value", foobar, input.getOptions());
 
-        try {
-            input = new ArgvInput(new String[]{"foo", "bar", "baz", "bat"});
-            input.bind(new InputDefinition(Arrays.<Object>asList(new InputArgument("name", InputArgument.IS_ARRAY))));
-            foobar.clear();
-            foobar.put("name", Arrays.asList("foo", "bar", "baz", "bat"));
-            assertEquals("parse() parses array arguments", foobar, input.getArguments());
-        } catch (Exception e) {
-            assertTrue("parse() parses array arguments", !"Too many arguments.".equals(e.getMessage()));
-        }
+        input = new ArgvInput(new String[]{"foo", "bar", "baz", "bat"});
+        input.bind(new InputDefinition(Arrays.<Object>asList(new InputArgument("name", InputArgument.IS_ARRAY))));
+        foobar.clear();
+        foobar.put("name", Arrays.asList("foo", "bar", "baz", "bat"));
+        assertEquals("parse() parses array arguments", foobar, input.getArguments());
 
         input = new ArgvInput(new String[]{"--name=foo", "--name=bar", "--name=baz"});
         input.bind(new InputDefinition(Arrays.<Object>asList(new InputOption("name", null, InputOption.VALUE_OPTIONAL | InputOption.VALUE_IS_ARRAY))));
@@ -198,6 +203,38 @@ public class ArgvInputTest {
         assertEquals("parse() parses empty string arguments", foobar, input.getArguments());
     }
 
+    @Test
+    public void testParseLargeInput() {
+        String[] args = new String[100001];
+        args[0] = "-v";
+        for (int i = 1; i < args.length; i++) {
+            args[i] = "file" + i;
+        }
+
+        ArgvInput input = new ArgvInput(args);
+        input.bind(new InputDefinition(Arrays.<Object>asList(new InputArgument("files", InputArgument.IS_ARRAY), new InputOption("verbose", "v"))));
+
+        assertEquals("parse() parses all the tokens of an array argument", 100000, ((List<?>) input.getArgument("files")).size());
+        assertEquals("parse() keeps the array argument tokens in order", "file100000", ((List<?>) input.getArgument("files")).get(99999));
+        assertEquals("parse() parses the options before the array argument", true, input.getOption("verbose"));
+    }
+
+    @Test
+    public void testGetParameterOption() {
+        ArgvInput input = new ArgvInput(new String[]{"-f", "foo"});
+        assertEquals("getParameterOption() returns the value following the option in the raw input", "foo", input.getParameterOption("-f"));
+
+        input = new ArgvInput(new String[]{"--foo=bar", "baz"});
+        assertEquals("getParameterOption() returns the value of the option after a = separator", "bar", input.getParameterOption("--foo"));
+        assertEquals("getParameterOption() returns the default value if the option is not in the raw input", "default", input.getParameterOption("--fo", "default"));
+
+        input = new ArgvInput(new String[]{"-f", "foo", "--foo=bar", "-f", "baz", "--last"});
+        assertEquals("getParameterOption() returns the value of the first occurrence of an option", "foo", input.getParameterOption("-f"));
+        assertEquals("getParameterOption() returns the value of the first of the given options in the raw input", "foo", input.getParameterOption(Arrays.asList("--foo", "-f")));
+        assertEquals("getParameterOption() returns the default value if the option is the last token", "default", input.getParameterOption("--last", "default"));
+        assertEquals("getParameterOption() looks for arguments in the raw input", "--foo=bar", input.getParameterOption("foo"));
+    }
+
     @Test
     public void testGetFirstArgument() {
         ArgvInput input = new ArgvInput(new String[]{"-fbbar"});
@@ -217,5 +254,176 @@ public class ArgvInputTest {
 
         input = new ArgvInput(new String[]{"foo"});
         assertFalse("hasParameterOption() returns false if the given short option is not in the raw input", input.hasParameterOption("--foo"));
+
+        input = new ArgvInput(new String[]{"--foo=bar", "baz"});
+        assertTrue("hasParameterOption() returns true if the given option is in the raw input with an inline value", input.hasParameterOption("--foo"));
+        assertTrue("hasParameterOption() looks for arguments in the raw input", input.hasParameterOption("baz"));
+        assertTrue("hasParameterOption() returns true if one of the given options is in the raw input", input.hasParameterOption(Arrays.asList("-f", "--foo")));
+    }
+
+    @Test
+    public void testParseResponseFile() throws Exception {
+        File file = File.createTempFile("console", ".args");
+        try {
+            FileUtils.writeStringToFile(file, "\uFEFFfoo\r\n# a comment\n\n--name\nbar baz\n'qux 1' \"qux 2\"\n my file.txt \r\nO'Brien \"Jr\".txt\n@literal\n", "UTF-8");
+            InputDefinition definition = new InputDefinition(Arrays.<Object>asList(
+                new InputArgument("files", InputArgument.IS_ARRAY),
+                new InputOption("name", "n", InputOption.VALUE_REQUIRED),
+                new InputOption("verbose", "v")
+            ));
+
+            ArgvInput input = new ArgvInput(new String[]{"-v", "@" + file.getPath(), "@@home", "--", "@" + file.getPath()}, definition);
+            assertEquals("parse() expands the response files into the tokens", Arrays.asList("foo", "qux 1", "qux 2", " my file.txt ", "O'Brien \"Jr\".txt", "@literal", "@home", "@" + file.getPath()), input.getArgument("files"));
+            assertEquals("parse() reads one argument per line of the response files", "bar baz", input.getOption("name"));
+            assertEquals("parse() keeps parsing the tokens around the response files", true, input.getOption("verbose"));
+
+            input = new ArgvInput(new String[]{"@" + file.getPath()});
+            assertEquals("getFirstArgument() expands the response files", "foo", input.getFirstArgument());
+            assertTrue("hasParameterOption() expands the response files", input.hasParameterOption("--name"));
+
+            // The option lookups share the index built by the first one
+            file.delete();
+            assertEquals("getParameterOption() expands the response files", "bar baz", input.getParameterOption("--name"));
+
+            FileUtils.writeStringToFile(file, "--\nfoo\n", "UTF-8");
+            input = new ArgvInput(new String[]{"@" + file.getPath(), "@" + file.getPath()}, definition);
+            assertEquals("parse() does not expand the response files after the end of the options of a response file", Arrays.asList("foo", "@" + file.getPath()), input.getArgument("files"));
+        } finally {
+            file.delete();
+        }
+
+        try {
+            new ArgvInput(new String[]{"@" + file.getPath()}, new InputDefinition());
+            fail("parse() throws a RuntimeException if a response file does not exist");
+        } catch (RuntimeException e) {
+            assertEquals("parse() throws a RuntimeException if a response file does not exist", String.format("The \"%s\" response file does not exist.", file.getPath()), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParseStreamArgument() throws Exception {
+        InputDefinition definition = new InputDefinition(Arrays.<Object>asList(
+            new InputArgument("name"),
+            new InputArgument("files", InputArgument.IS_ARRAY | InputArgument.IS_STREAM),
+            new InputOption("verbose", "v")
+        ));
+
+        ArgvInput input = new ArgvInput(new String[]{"-v", "foo", "a", "-", "--verbose", "b"});
+        input.setInputStream(new ByteArrayInputStream("c\nd\n".getBytes("UTF-8")));
+        input.bind(definition);
+        assertEquals("parse() parses the tokens before the streamed argument", "foo", input.getArgument("name"));
+        assertEquals("parse() parses the options before the streamed argument", true, input.getOption("verbose"));
+
+        ArgumentStream stream = (ArgumentStream) input.getArgument("files");
+        List<String> values = new ArrayList<String>();
+        for (String value : stream) {
+            values.add(value);
+        }
+        assertEquals("parse() streams the remaining tokens and reads the standard input for -", Arrays.asList("a", "c", "d", "--verbose", "b"), values);
+
+        try {
+            stream.iterator();
+            fail("iterator() throws a LogicException if the values were already iterated");
+        } catch (LogicException e) {
+            assertEquals("iterator() throws a LogicException if the values were already iterated", "The \"files\" argument values can only be iterated once.", e.getMessage());
+        }
+
+        input = new ArgvInput(new String[]{"foo", "1", "2", "3"}, definition);
+        assertArrayEquals("getIntArray() reads the streamed values", new int[]{1, 2, 3}, input.getIntArray("files"));
+
+        input = new ArgvInput(new String[]{"foo"}, definition);
+        assertEquals("getArgument() returns the default value if no value is streamed", new ArrayList<Object>(), input.getArgument("files"));
+    }
+
+    @Test
+    public void testParseLargeStreamArgument() {
+        final int count = 1000000;
+        ArgvInput input = new ArgvInput(new String[]{"-"});
+        input.setInputStream(new InputStream() {
+
+            private int remaining = count * 2;
+
+            @Override
+            public int read() {
+                return 0 == remaining ? -1 : 1 == remaining-- % 2 ? '\n' : 'x';
+            }
+        });
+        input.bind(new InputDefinition(Arrays.<Object>asList(new InputArgument("lines", InputArgument.IS_ARRAY | InputArgument.IS_STREAM))));
+
+        int lines = 0;
+        for (Iterator<String> values = ((ArgumentStream) input.getArgument("lines")).iterator(); values.hasNext(); values.next()) {
+            lines++;
+        }
+        assertEquals("parse() streams the standard input line by line", count, lines);
+    }
+
+    @Test
+    public void testParseLargeResponseFile() throws Exception {
+        final int count = 10000;
+        File file = File.createTempFile("console", ".args");
+        try {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                content.append("file").append(i).append('\n');
+            }
+            FileUtils.writeStringToFile(file, content.toString(), "UTF-8");
+
+            ArgvInput input = new ArgvInput(new String[]{"foo", "@" + file.getPath()});
+            assertFalse("hasParameterOption() looks up the options of the response files", input.hasParameterOption("--quiet"));
+            input.bind(new InputDefinition(Arrays.<Object>asList(
+                new InputArgument("name"),
+                new InputArgument("files", InputArgument.IS_ARRAY | InputArgument.IS_STREAM)
+            )));
+
+            int files = 0;
+            for (Iterator<String> values = ((ArgumentStream) input.getArgument("files")).iterator(); values.hasNext(); values.next()) {
+                files++;
+            }
+            assertEquals("parse() streams the values of the response files", count, files);
+            assertTrue("parse() does not keep the streamed tokens", input.getTokenTable().size() < 3);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRebind() throws Exception {
+        File file = File.createTempFile("console", ".args");
+        FileUtils.writeStringToFile(file, "--name=foo\n-vbar\n", "UTF-8");
+
+        ArgvInput input = new ArgvInput(new String[]{"@" + file.getPath(), "baz", "--", "-q"});
+        input.bind(new InputDefinition(Arrays.<Object>asList(
+            new InputArgument("first"),
+            new InputArgument("second"),
+            new InputOption("name", "", InputOption.VALUE_REQUIRED),
+            new InputOption("verbose", "v", InputOption.VALUE_REQUIRED)
+        )));
+        assertEquals("bind() parses the tokens", "foo", input.getOption("name"));
+        assertEquals("bind() parses the short options", "bar", input.getOption("verbose"));
+        assertEquals("bind() parses the arguments", "baz", input.getArgument("first"));
+        assertEquals("bind() parses the tokens after the end of the options as arguments", "-q", input.getArgument("second"));
+
+        // The tokens are kept, so the response file is not read again
+        assertTrue(file.delete());
+        input.bind(new InputDefinition(Arrays.<Object>asList(
+            new InputArgument("files", InputArgument.IS_ARRAY),
+            new InputOption("name", "n", InputOption.VALUE_OPTIONAL),
+            new InputOption("values", "v", InputOption.VALUE_NONE),
+            new InputOption("bar", "b", InputOption.VALUE_NONE),
+            new InputOption("all", "a", InputOption.VALUE_NONE),
+            new InputOption("raw", "r", InputOption.VALUE_NONE)
+        )));
+        assertEquals("bind() resolves the kept tokens against the new definition", "foo", input.getOption("name"));
+        assertEquals("bind() resolves the short option clusters against the new definition", true, input.getOption("raw"));
+        assertEquals("bind() resolves the arguments against the new definition", Arrays.asList("baz", "-q"), input.getArgument("files"));
+
+        InputDefinition definition = new InputDefinition(Arrays.<Object>asList(new InputArgument("files", InputArgument.IS_ARRAY | InputArgument.IS_STREAM)));
+        input = new ArgvInput(new String[]{"a", "b"}, definition);
+        input.bind(definition);
+        List<String> values = new ArrayList<String>();
+        for (String value : (ArgumentStream) input.getArgument("files")) {
+            values.add(value);
+        }
+        assertEquals("bind() reads the tokens again once a streamed argument took them over", Arrays.asList("a", "b"), values);
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.io.File;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ConvertersTest {
+
+    public ConvertersTest() {
+    }
+
+    @Test
+    public void testNumbers() {
+        assertEquals("INTEGER converts to an Integer", 42, Converters.INTEGER.convert(" 42 "));
+        assertEquals("LONG converts to a Long", 10000000000L, Converters.LONG.convert("10000000000"));
+        assertEquals("DOUBLE converts to a Double", 1.5, Converters.DOUBLE.convert("1.5"));
+
+        try {
+            Converters.INTEGER.convert("foo");
+            fail("INTEGER throws an exception if the value is not an integer");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testBoolean() {
+        for (String value : new String[] { "true", "YES", "on", "1" }) {
+            assertEquals("BOOLEAN converts " + value + " to true", Boolean.TRUE, Converters.BOOLEAN.convert(value));
+        }
+        for (String value : new String[] { "false", "No", "off", "0", "" }) {
+            assertEquals("BOOLEAN converts " + value + " to false", Boolean.FALSE, Converters.BOOLEAN.convert(value));
+        }
+
+        try {
+            Converters.BOOLEAN.convert("maybe");
+            fail("BOOLEAN throws an exception if the value is not a boolean");
+        } catch (IllegalArgumentException e) {
+            assertEquals("BOOLEAN throws an exception if the value is not a boolean", "\"maybe\" is not a boolean.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDuration() {
+        assertEquals("DURATION reads a bare amount as milliseconds", 250L, Converters.DURATION.convert("250"));
+        assertEquals("DURATION reads the ms unit", 250L, Converters.DURATION.convert("250ms"));
+        assertEquals("DURATION reads the s unit", 3000L, Converters.DURATION.convert("3s"));
+        assertEquals("DURATION reads the m unit", 120000L, Converters.DURATION.convert("2m"));
+        assertEquals("DURATION reads the d unit", 86400000L, Converters.DURATION.convert("1d"));
+        assertEquals("DURATION sums the amounts", 5400500L, Converters.DURATION.convert("1h30m500ms"));
+
+        for (String value : new String[] { "", "h", "10x", "1.5s" }) {
+            try {
+                Converters.DURATION.convert(value);
+                fail("DURATION throws an exception for " + value);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testPath() {
+        assertEquals("PATH converts to a File", new File("foo/bar"), Converters.PATH.convert("foo/bar"));
+    }
+}
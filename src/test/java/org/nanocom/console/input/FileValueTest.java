@@ -0,0 +1,86 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileValueTest {
+
+    private File file;
+    private InputDefinition definition;
+
+    public FileValueTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("console", ".value");
+        FileUtils.writeStringToFile(file, "SELECT * FROM été;\n", "UTF-8");
+        definition = new InputDefinition(Arrays.<Object>asList(
+            new InputOption("query", "q", InputOption.VALUE_REQUIRED | InputOption.VALUE_FROM_FILE),
+            new InputOption("files", "f", InputOption.VALUE_REQUIRED | InputOption.VALUE_IS_ARRAY | InputOption.VALUE_FROM_FILE),
+            new InputOption("name", "n", InputOption.VALUE_REQUIRED)
+        ));
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testFileReference() throws Exception {
+        ArgvInput input = new ArgvInput(new String[]{"--query=@" + file.getPath(), "--name=@" + file.getPath()}, definition);
+        FileValue value = (FileValue) input.getOption("query");
+        assertEquals(".getFile() returns the referenced file", file, value.getFile());
+        assertArrayEquals(".openStream() streams the raw file content", FileUtils.readFileToByteArray(file), IOUtils.toByteArray(value.openStream()));
+        assertEquals(".toString() decodes the file content", "SELECT * FROM été;\n", value.toString());
+        assertEquals(".length() returns the length of the decoded content", 19, value.length());
+        assertEquals(".charAt() reads the decoded content", 'é', value.charAt(14));
+        assertEquals("bind() keeps the references of the other options", "@" + file.getPath(), input.getOption("name"));
+
+        input = new ArgvInput(new String[]{"-q", "@@" + file.getPath(), "--files=@@literal", "--files=@" + file.getPath()}, definition);
+        assertTrue("bind() reads a file reference given as a separate token with @@", input.getOption("query") instanceof FileValue);
+        List<?> files = (List<?>) input.getOption("files");
+        assertEquals("bind() unescapes a leading @@", "@literal", files.get(0));
+        assertEquals("bind() reads the file references of an array option", "SELECT * FROM été;\n", files.get(1).toString());
+    }
+
+    @Test
+    public void testStdin() throws Exception {
+        ArgvInput input = new ArgvInput(new String[]{"--query=@-"});
+        input.setInputStream(new ByteArrayInputStream("{\"foo\": 1}".getBytes("UTF-8")));
+        input.bind(definition);
+
+        FileValue value = (FileValue) input.getOption("query");
+        assertNull(".getFile() returns null for the standard input", value.getFile());
+        assertEquals(".toString() reads the standard input", "{\"foo\": 1}", value.toString());
+        assertEquals(".openStream() streams the loaded value again", "{\"foo\": 1}", IOUtils.toString(value.openStream(), "UTF-8"));
+    }
+
+    @Test
+    public void testMissingFile() {
+        file.delete();
+
+        try {
+            new ArgvInput(new String[]{"--query=@" + file.getPath()}, definition);
+            fail("bind() throws a RuntimeException if a referenced file does not exist");
+        } catch (RuntimeException e) {
+            assertEquals("bind() throws a RuntimeException if a referenced file does not exist", String.format("The \"%s\" file does not exist.", file.getPath()), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.exception.LogicException;
+
+public class FrozenInputDefinitionTest {
+
+    private InputDefinition definition;
+
+    public FrozenInputDefinitionTest() {
+    }
+
+    @Before
+    public void setUp() {
+        definition = new InputDefinition(Arrays.<Object>asList(
+            new InputArgument("zoo", InputArgument.REQUIRED),
+            new InputArgument("bar", InputArgument.OPTIONAL, "", "default"),
+            new InputArgument("alpha", InputArgument.IS_ARRAY),
+            new InputOption("foo", "f", InputOption.VALUE_REQUIRED),
+            new InputOption("quiet", "q")
+        ));
+    }
+
+    @Test
+    public void testArguments() {
+        FrozenInputDefinition frozen = definition.freeze();
+
+        assertEquals(".getArgument() returns the arguments by position", "zoo", frozen.getArgument(0).getName());
+        assertEquals(".getArgument() returns the arguments by position", "alpha", frozen.getArgument(2).getName());
+        assertTrue(".hasArgument() returns true for a valid position", frozen.hasArgument(2));
+        assertFalse(".hasArgument() returns false for an invalid position", frozen.hasArgument(3));
+        assertFalse(".hasArgument() returns false for a negative position", frozen.hasArgument(-1));
+        assertEquals(".getArguments() keeps the argument order", Arrays.asList("zoo", "bar", "alpha"), new ArrayList<String>(frozen.getArguments().keySet()));
+        assertEquals(".getArgumentCount() returns the number of arguments", Integer.MAX_VALUE, frozen.getArgumentCount());
+        assertEquals(".getArgumentRequiredCount() returns the number of required arguments", 1, frozen.getArgumentRequiredCount());
+        assertEquals(".getArgumentDefaults() returns the default values", "default", frozen.getArgumentDefaults().get("bar"));
+
+        try {
+            frozen.getArgument("foo");
+            fail(".getArgument() throws an IllegalArgumentException if the argument does not exist");
+        } catch (IllegalArgumentException e) {
+            assertEquals(".getArgument() throws an IllegalArgumentException if the argument does not exist", "The \"foo\" argument does not exist.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOptions() {
+        FrozenInputDefinition frozen = definition.freeze();
+
+        assertTrue(".hasOption() returns true if the option exists", frozen.hasOption("foo"));
+        assertTrue(".hasShortcut() returns true if the shortcut exists", frozen.hasShortcut('q'));
+        assertFalse(".hasShortcut() returns false if the shortcut does not exist", frozen.hasShortcut('z'));
+        assertEquals(".getOptionForShortcut() returns an option by shortcut", "foo", frozen.getOptionForShortcut('f').getName());
+        assertEquals(".getOptionForShortcut() returns an option by shortcut", "quiet", frozen.getOptionForShortcut("q").getName());
+        assertEquals(".getOptionDefaults() returns the default values", 2, frozen.getOptionDefaults().size());
+        assertEquals(".getSynopsis() returns the same synopsis", definition.getSynopsis(), frozen.getSynopsis());
+
+        try {
+            frozen.getOptionForShortcut('z');
+            fail(".getOptionForShortcut() throws an IllegalArgumentException if the shortcut does not exist");
+        } catch (IllegalArgumentException e) {
+            assertEquals(".getOptionForShortcut() throws an IllegalArgumentException if the shortcut does not exist", "The \"-z\" option does not exist.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFreeze() {
+        FrozenInputDefinition frozen = definition.freeze();
+        assertSame(".freeze() returns a frozen definition as is", frozen, frozen.freeze());
+        assertFalse(".isStale() returns false if the definition did not change", frozen.isStale(definition));
+
+        definition.addOption(new InputOption("bar"));
+        assertTrue(".isStale() returns true if the definition changed", frozen.isStale(definition));
+        assertFalse(".freeze() takes a snapshot of the definition", frozen.hasOption("bar"));
+
+        try {
+            frozen.addOption(new InputOption("baz"));
+            fail(".addOption() throws a LogicException as the definition is frozen");
+        } catch (LogicException e) {
+            assertEquals(".addOption() throws a LogicException as the definition is frozen", "A frozen definition cannot be modified.", e.getMessage());
+        }
+
+        try {
+            frozen.getArguments().clear();
+            fail(".getArguments() returns a map which cannot be modified");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+}
@@ -49,6 +49,21 @@ public class InputArgumentTest {
         assertFalse(".isArray() returns false if the argument can not be an array", argument.isArray());
     }
 
+    @Test
+    public void testIsStream() {
+        InputArgument argument = new InputArgument("foo", InputArgument.IS_ARRAY | InputArgument.IS_STREAM);
+        assertTrue(".isStream() returns true if the argument values are streamed", argument.isStream());
+        argument = new InputArgument("foo", InputArgument.IS_ARRAY);
+        assertFalse(".isStream() returns false if the argument values are not streamed", argument.isStream());
+
+        try {
+            new InputArgument("foo", InputArgument.IS_STREAM);
+            fail("Constructor throws an IllegalArgumentException if a streamed argument is not an array");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Impossible to have an argument mode IS_STREAM if the argument is not an array.", e.getMessage());
+        }
+    }
+
     @Test
     public void testGetDescription() {
         InputArgument argument = new InputArgument("foo", InputArgument.OPTIONAL, "Some description");
@@ -69,6 +69,21 @@ public class InputOptionTest {
         Assert.assertFalse(".isArray() returns false if the option can not be an array", option.isArray());
     }
 
+    @Test
+    public void testIsValueFromFile() {
+        InputOption option = new InputOption("foo", null, InputOption.VALUE_REQUIRED | InputOption.VALUE_FROM_FILE);
+        Assert.assertTrue(".isValueFromFile() returns true if the value can be given as a file reference", option.isValueFromFile());
+        option = new InputOption("foo", null, InputOption.VALUE_REQUIRED);
+        Assert.assertFalse(".isValueFromFile() returns false if the value can not be given as a file reference", option.isValueFromFile());
+
+        try {
+            new InputOption("foo", null, InputOption.VALUE_NONE | InputOption.VALUE_FROM_FILE);
+            Assert.fail("Constructor throws an IllegalArgumentException if a VALUE_FROM_FILE option does not accept a value");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Impossible to have an option mode VALUE_FROM_FILE if the option does not accept a value.", e.getMessage());
+        }
+    }
+
     @Test
     public void testGetDescription() {
         InputOption option = new InputOption("foo", "f", InputOption.VALUE_NONE, "Some description");
@@ -1,5 +1,6 @@
 package org.nanocom.console.input;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -130,4 +131,58 @@ public class InputTest {
         Assert.assertFalse(".setInteractive() changes the interactive flag", input.isInteractive());
     }
 
+    @Test
+    public void testTypedAccessors() {
+        InputOption timeout = new InputOption("timeout", "t", InputOption.VALUE_REQUIRED, "", "1m");
+        timeout.setConverter(Converters.DURATION);
+        InputDefinition definition = new InputDefinition(Arrays.asList(
+            (Object) new InputArgument("count", InputArgument.REQUIRED),
+            new InputArgument("ids", InputArgument.IS_ARRAY),
+            new InputOption("force", "f", InputOption.VALUE_NONE),
+            new InputOption("ratio", "r", InputOption.VALUE_REQUIRED),
+            new InputOption("file", "", InputOption.VALUE_REQUIRED),
+            timeout
+        ));
+
+        ArgvInput input = new ArgvInput(new String[] { "--ratio=0.5", "-f", "--file=foo.txt", "12", "1", "2", "3" }, definition);
+        Assert.assertEquals(".getInt() converts the value to an int", 12, input.getInt("count"));
+        Assert.assertEquals(".getLong() converts the value to a long", 12L, input.getLong("count"));
+        Assert.assertEquals(".getDouble() converts the value to a double", 0.5, input.getDouble("ratio"), 0);
+        Assert.assertTrue(".getBoolean() returns true for a given flag", input.getBoolean("force"));
+        Assert.assertEquals(".getPath() converts the value to a File", new File("foo.txt"), input.getPath("file"));
+        Assert.assertArrayEquals(".getIntArray() converts the values to ints", new int[] { 1, 2, 3 }, input.getIntArray("ids"));
+        Assert.assertArrayEquals(".getLongArray() converts the values to longs", new long[] { 1, 2, 3 }, input.getLongArray("ids"));
+        Assert.assertEquals(".getArgument() returns the raw value if no converter is declared", "12", input.getArgument("count"));
+
+        Assert.assertEquals(".getOption() returns the value converted by the declared converter", 60000L, input.getOption("timeout"));
+        Assert.assertEquals(".getDuration() returns the converted default value", 60000L, input.getDuration("timeout"));
+
+        input.setOption("timeout", "1h30m");
+        Assert.assertEquals(".setOption() converts the new value with the declared converter", 5400000L, input.getOption("timeout"));
+        input.setArgument("count", "7");
+        Assert.assertEquals(".setArgument() clears the cached value", 7, input.getInt("count"));
+
+        Assert.assertSame(".getIntArray() returns the cached values", input.getIntArray("ids"), input.getIntArray("ids"));
+
+        try {
+            input.getInt("ratio");
+            Assert.fail(".getInt() throws an Exception if the value is not an integer");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(".getInt() throws an Exception if the value is not an integer", "The \"ratio\" value \"0.5\" is not valid: For input string: \"0.5\"", e.getMessage());
+        }
+
+        try {
+            input.getInt("foo");
+            Assert.fail(".getInt() throws an Exception if the parameter does not exist");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(".getInt() throws an Exception if the parameter does not exist", "The \"foo\" argument or option does not exist.", e.getMessage());
+        }
+
+        try {
+            new ArgvInput(new String[] { "--timeout=soon", "12" }, definition);
+            Assert.fail(".bind() throws an Exception if a value cannot be converted");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(".bind() throws an Exception if a value cannot be converted", "The \"timeout\" value \"soon\" is not valid: \"soon\" is not a duration.", e.getMessage());
+        }
+    }
 }
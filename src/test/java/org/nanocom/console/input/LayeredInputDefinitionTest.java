@@ -0,0 +1,103 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.exception.LogicException;
+
+public class LayeredInputDefinitionTest {
+
+    private InputDefinition parent;
+    private InputDefinition layer;
+
+    public LayeredInputDefinitionTest() {
+    }
+
+    @Before
+    public void setUp() {
+        parent = new InputDefinition(Arrays.<Object>asList(
+            new InputArgument("command", InputArgument.REQUIRED),
+            new InputOption("verbose", "v")
+        ));
+        layer = new InputDefinition(Arrays.<Object>asList(
+            new InputArgument("name", InputArgument.OPTIONAL),
+            new InputOption("foo", "f", InputOption.VALUE_REQUIRED)
+        ));
+    }
+
+    @Test
+    public void testArguments() {
+        InputDefinition definition = new LayeredInputDefinition(parent, layer);
+
+        assertTrue(".hasArgument() returns true for a parent argument", definition.hasArgument("command"));
+        assertTrue(".hasArgument() returns true for a layer argument", definition.hasArgument("name"));
+        assertFalse(".hasArgument() returns false for an unknown argument", definition.hasArgument("bar"));
+        assertEquals(".getArgument() returns the parent arguments first", "command", definition.getArgument(0).getName());
+        assertEquals(".getArgument() returns the layer arguments after the parent ones", "name", definition.getArgument(1).getName());
+        assertTrue(".hasArgument() returns true for a valid position", definition.hasArgument(1));
+        assertFalse(".hasArgument() returns false for an invalid position", definition.hasArgument(2));
+        assertEquals(".getArguments() returns the arguments of both definitions", Arrays.asList("command", "name"), new ArrayList<String>(definition.getArguments().keySet()));
+        assertEquals(".getArgumentCount() returns the number of arguments of both definitions", 2, definition.getArgumentCount());
+        assertEquals(".getArgumentRequiredCount() returns the number of required arguments of both definitions", 1, definition.getArgumentRequiredCount());
+        assertSame(".getArguments() caches the merged arguments", definition.getArguments(), definition.getArguments());
+
+        definition.addArgument(new InputArgument("bar"));
+        assertTrue(".addArgument() adds the argument to the layer", layer.hasArgument("bar"));
+        assertFalse(".addArgument() does not modify the parent", parent.hasArgument("bar"));
+
+        parent.addArgument(new InputArgument("env"));
+        assertTrue("__construct() does not copy the parent", definition.hasArgument("env"));
+        assertTrue(".getArguments() merges the arguments again once the parent changed", definition.getArguments().containsKey("env"));
+    }
+
+    @Test
+    public void testOptions() {
+        InputDefinition definition = new LayeredInputDefinition(parent, layer);
+
+        assertTrue(".hasOption() returns true for a parent option", definition.hasOption("verbose"));
+        assertTrue(".hasOption() returns true for a layer option", definition.hasOption("foo"));
+        assertTrue(".hasShortcut() returns true for a parent shortcut", definition.hasShortcut("v"));
+        assertEquals(".getOptionForShortcut() returns a layer option", "foo", definition.getOptionForShortcut("f").getName());
+        assertEquals(".getOptions() returns the layer options first", Arrays.asList("foo", "verbose"), new ArrayList<String>(definition.getOptions().keySet()));
+        assertSame(".getOptions() caches the merged options", definition.getOptions(), definition.getOptions());
+        assertEquals(".getOptionDefaults() returns the defaults of both definitions", 2, definition.getOptionDefaults().size());
+        assertEquals(".getSynopsis() includes both definitions", "[-f|--foo=\"...\"] [-v|--verbose] command[name]", definition.getSynopsis());
+
+        layer.addOption(new InputOption("bar"));
+        assertTrue(".getOptions() merges the options again once the layer changed", definition.getOptions().containsKey("bar"));
+    }
+
+    @Test
+    public void testConflicts() {
+        try {
+            new LayeredInputDefinition(parent, new InputDefinition(Arrays.<Object>asList(new InputArgument("command"))));
+            fail("__construct() throws a LogicException if an argument is defined twice");
+        } catch (LogicException e) {
+            assertEquals("__construct() throws a LogicException if an argument is defined twice", "An argument with name \"command\" already exist.", e.getMessage());
+        }
+
+        try {
+            new LayeredInputDefinition(parent, new InputDefinition(Arrays.<Object>asList(new InputOption("other", "v"))));
+            fail("__construct() throws a LogicException if a shortcut is defined twice");
+        } catch (LogicException e) {
+            assertEquals("__construct() throws a LogicException if a shortcut is defined twice", "An option with shortcut \"v\" already exist.", e.getMessage());
+        }
+
+        InputDefinition definition = new LayeredInputDefinition(parent, layer);
+        try {
+            definition.addArgument(new InputArgument("required", InputArgument.REQUIRED));
+            fail(".addArgument() throws a LogicException if a required argument is added after an optional one");
+        } catch (LogicException e) {
+            assertEquals(".addArgument() throws a LogicException if a required argument is added after an optional one", "Cannot add a required argument after an optional one.", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.input;
+
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class StringInputTest {
+
+    public StringInputTest() {
+    }
+
+    @Test
+    public void testTokenize() {
+        assertTokens("", new String[0]);
+        assertTokens("  \t ", new String[0]);
+        assertTokens("foo", "foo");
+        assertTokens("  foo  bar  ", "foo", "bar");
+        assertTokens("\"quoted\"", "quoted");
+        assertTokens("'quoted'", "quoted");
+        assertTokens("'a\rb\nc\td'", "a\rb\nc\td");
+        assertTokens("\"\" ''", "", "");
+        assertTokens("\"quoted with \\\"escaped\\\" quotes\"", "quoted with \"escaped\" quotes");
+        assertTokens("'quoted with \\n and \"double\" quotes'", "quoted with \\n and \"double\" quotes");
+        assertTokens("\"a\\\\b\\c\"", "a\\b\\c");
+        assertTokens("foo\\ bar", "foo bar");
+        assertTokens("--long-option=foo", "--long-option=foo");
+        assertTokens("--long-option=\"foo bar\"", "--long-option=foo bar");
+        assertTokens("--long-option='foo bar'\"another\"", "--long-option=foo baranother");
+        assertTokens("-o\"foo bar\" -f", "-ofoo bar", "-f");
+        assertTokens("foo -a -ffoo --long bar", "foo", "-a", "-ffoo", "--long", "bar");
+    }
+
+    @Test
+    public void testTokenizeErrors() {
+        for (String input : new String[] { "\"foo", "foo 'bar", "--opt=\"foo \\\"" }) {
+            try {
+                StringInput.tokenize(input);
+                fail(".tokenize() throws an exception for an unterminated quote in " + input);
+            } catch (IllegalArgumentException e) {
+                assertTrue(".tokenize() throws an exception for an unterminated quote in " + input, e.getMessage().startsWith("Unable to parse input near"));
+            }
+        }
+    }
+
+    @Test
+    public void testInputOptionWithGivenString() {
+        InputDefinition definition = new InputDefinition(Arrays.asList(
+            (Object) new InputArgument("name", InputArgument.REQUIRED),
+            new InputOption("foo", null, InputOption.VALUE_REQUIRED)
+        ));
+
+        StringInput input = new StringInput("--foo=\"bar baz\" fabien", definition);
+        assertEquals(".__construct() binds the tokens to the definition", "bar baz", input.getOption("foo"));
+        assertEquals(".__construct() binds the tokens to the definition", "fabien", input.getArgument("name"));
+
+        input = new StringInput("--foo=bar fabien");
+        input.bind(definition);
+        assertEquals(".bind() parses the tokens", "bar", input.getOption("foo"));
+    }
+
+    private static void assertTokens(String input, String... tokens) {
+        assertArrayEquals(".tokenize() parses " + input, tokens, StringInput.tokenize(input));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.fixtures.Foo1Command;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.output.NullOutput;
+
+public class PluginLoaderTest {
+
+    private File directory;
+
+    public PluginLoaderTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("console", ".plugins");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        createJar(new File(directory, "foo.jar"), "The foo:bar1 command");
+        FileUtils.writeStringToFile(new File(directory, "README"), "Not a plugin");
+
+        List<Plugin> plugins = new PluginLoader(directory).load();
+        assertEquals(".load() discovers the jars of the directory", 1, plugins.size());
+
+        Plugin plugin = plugins.get(0);
+        assertEquals(".load() reads the commands declared in the manifest", 1, plugin.getEntries().size());
+        PluginIndex.Entry entry = plugin.getEntries().get(0);
+        assertEquals(".load() reads the command class", Foo1Command.class.getName(), entry.getClassName());
+        assertEquals(".load() reads the command name", "plugin:foo", entry.getName());
+        assertEquals(".load() reads the command description", "The foo:bar1 command", entry.getDescription());
+        assertEquals(".load() reads the command aliases", Arrays.asList("pfoo", "pf"), entry.getAliases());
+        assertFalse(".load() does not create the plugin class loader", plugin.isLoaded());
+        assertTrue(".load() stores the index in the directory", new File(directory, ".index").isFile());
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        File jar = new File(directory, "foo.jar");
+        createJar(jar, "The foo:bar1 command");
+        new PluginLoader(directory).load();
+
+        // An unchanged jar is not read again
+        File index = new File(directory, ".index");
+        FileUtils.writeStringToFile(index, FileUtils.readFileToString(index).replace("The foo\\:bar1 command", "Cached"));
+        assertEquals(".load() reads the commands of unchanged jars from the index", "Cached", new PluginLoader(directory).load().get(0).getEntries().get(0).getDescription());
+
+        // A changed jar is read again
+        createJar(jar, "Changed");
+        jar.setLastModified(jar.lastModified() + 2000);
+        assertEquals(".load() reads the commands of changed jars from the manifest", "Changed", new PluginLoader(directory).load().get(0).getEntries().get(0).getDescription());
+
+        // A removed jar is forgotten
+        jar.delete();
+        assertTrue(".load() returns no plugin for an empty directory", new PluginLoader(directory).load().isEmpty());
+        assertFalse(".load() removes the removed jars from the index", FileUtils.readFileToString(index).contains("foo.jar"));
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        createJar(new File(directory, "foo.jar"), "The foo:bar1 command");
+
+        Application application = new Application();
+        application.setAutoExit(false);
+        Plugin plugin = new PluginLoader(directory).register(application).get(0);
+
+        assertTrue(".register() adds the plugin commands to the application", application.has("plugin:foo"));
+        assertTrue(".register() adds the plugin command aliases to the application", application.has("pf"));
+        application.all();
+        assertFalse(".register() does not create the plugin class loader", plugin.isLoaded());
+
+        PluginCommand command = (PluginCommand) application.get("plugin:foo");
+        assertEquals(".register() registers the plugin description", "The foo:bar1 command", command.getDescription());
+        assertFalse(".register() does not create the plugin command", command.isLoaded());
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("command", "plugin:foo");
+        assertEquals(".run() runs the plugin command", 1, command.run(new ArrayInput(parameters), new NullOutput()));
+        assertTrue(".run() creates the plugin class loader", plugin.isLoaded());
+        Command real = command.getCommand();
+        assertTrue(".run() creates the plugin command", real instanceof Foo1Command);
+        assertEquals(".run() gives the declared name to the plugin command", "plugin:foo", real.getName());
+    }
+
+    private static void createJar(File jar, String description) throws Exception {
+        String path = Foo1Command.class.getName().replace('.', '/') + ".class";
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(PluginLoader.COMMANDS_ATTRIBUTE, Foo1Command.class.getName());
+        Attributes attributes = new Attributes();
+        attributes.putValue(PluginLoader.NAME_ATTRIBUTE, "plugin:foo");
+        attributes.putValue(PluginLoader.DESCRIPTION_ATTRIBUTE, description);
+        attributes.putValue(PluginLoader.ALIASES_ATTRIBUTE, "pfoo,pf");
+        manifest.getEntries().put(path, attributes);
+
+        JarOutputStream stream = new JarOutputStream(new FileOutputStream(jar), manifest);
+        InputStream bytes = Foo1Command.class.getClassLoader().getResourceAsStream(path);
+        try {
+            stream.putNextEntry(new JarEntry(path));
+            IOUtils.copy(bytes, stream);
+            stream.closeEntry();
+        } finally {
+            IOUtils.closeQuietly(bytes);
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.exception.LogicException;
+import org.nanocom.console.fixtures.Foo1Command;
+
+public class PluginWatcherTest {
+
+    private File directory;
+    private Application application;
+
+    public PluginWatcherTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("console", ".plugins");
+        directory.delete();
+        directory.mkdir();
+        application = new Application();
+        application.setAutoExit(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void testCheck() throws Exception {
+        File jar = new File(directory, "foo.jar");
+        createJar(jar, "Version 1");
+
+        PluginWatcher watcher = new PluginWatcher(new PluginLoader(directory), application);
+        assertEquals("__construct() registers the plugin commands", "Version 1", application.get("plugin:foo").getDescription());
+        assertFalse(".check() returns false if no plugin changed", watcher.check());
+
+        // Simulate a run in progress on the first version
+        PluginCommand old = (PluginCommand) application.get("plugin:foo");
+        Plugin plugin = old.getPlugin();
+        plugin.enter();
+        old.getCommand();
+
+        createJar(jar, "Version 2");
+        jar.setLastModified(jar.lastModified() + 2000);
+        assertTrue(".check() returns true if a plugin changed", watcher.check());
+        assertEquals(".check() swaps the commands of a changed plugin", "Version 2", application.get("plugin:foo").getDescription());
+        assertEquals(".check() swaps the aliases of a changed plugin", "Version 2", application.get("pf").getDescription());
+        assertTrue(".check() retires the previous version of a changed plugin", plugin.isRetired());
+        assertTrue(".check() keeps the previous version loaded while its commands run", plugin.isLoaded());
+
+        plugin.leave();
+        assertFalse(".check() releases the previous version once its commands returned", plugin.isLoaded());
+        assertFalse(".check() releases the commands of the previous version", old.isLoaded());
+
+        try {
+            plugin.getClassLoader();
+            fail(".getClassLoader() throws a LogicException once the plugin is released");
+        } catch (LogicException e) {
+            assertFalse(".getClassLoader() does not load a released plugin again", plugin.isLoaded());
+        }
+
+        jar.delete();
+        assertTrue(".check() returns true if a plugin is removed", watcher.check());
+        assertFalse(".check() removes the commands of a removed plugin", application.has("plugin:foo"));
+        assertTrue(".check() forgets the removed plugins", watcher.getPlugins().isEmpty());
+    }
+
+    @Test
+    public void testStartStop() throws Exception {
+        PluginWatcher watcher = new PluginWatcher(new PluginLoader(directory), application);
+        watcher.start(10);
+        createJar(new File(directory, "foo.jar"), "Version 1");
+
+        for (int i = 0; i < 200 && !application.has("plugin:foo"); i++) {
+            Thread.sleep(10);
+        }
+
+        watcher.stop();
+        assertTrue(".start() checks the plugin directory periodically", application.has("plugin:foo"));
+    }
+
+    private static void createJar(File jar, String description) throws Exception {
+        String path = Foo1Command.class.getName().replace('.', '/') + ".class";
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(PluginLoader.COMMANDS_ATTRIBUTE, Foo1Command.class.getName());
+        Attributes attributes = new Attributes();
+        attributes.putValue(PluginLoader.NAME_ATTRIBUTE, "plugin:foo");
+        attributes.putValue(PluginLoader.DESCRIPTION_ATTRIBUTE, description);
+        attributes.putValue(PluginLoader.ALIASES_ATTRIBUTE, "pf");
+        manifest.getEntries().put(path, attributes);
+
+        // Write then rename, as a deployment would
+        File tmp = new File(jar.getPath() + ".tmp");
+        JarOutputStream stream = new JarOutputStream(new FileOutputStream(tmp), manifest);
+        InputStream bytes = Foo1Command.class.getClassLoader().getResourceAsStream(path);
+        try {
+            stream.putNextEntry(new JarEntry(path));
+            IOUtils.copy(bytes, stream);
+            stream.closeEntry();
+        } finally {
+            IOUtils.closeQuietly(bytes);
+            stream.close();
+        }
+
+        jar.delete();
+        tmp.renameTo(jar);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.queue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Executable;
+import org.nanocom.console.input.InputArgument;
+import org.nanocom.console.input.InputDefinition;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+public class JobQueueTest {
+
+    private File file;
+    private List<String> processed;
+    private Application application;
+
+    public JobQueueTest() {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("console", ".jobs");
+        processed = Collections.synchronizedList(new ArrayList<String>());
+        application = new Application();
+        application.setAutoExit(false);
+        application.register("process")
+            .setDefinition(new InputDefinition(Arrays.<Object>asList(
+                new InputArgument("item", InputArgument.REQUIRED)
+            )))
+            .setCode(new Executable() {
+
+                @Override
+                protected int execute(InputInterface input, OutputInterface output) {
+                    String item = (String) input.getArgument("item");
+                    processed.add(item);
+                    if (item.startsWith("quiet")) {
+                        output.setVerbosity(VerbosityLevel.QUIET);
+                    }
+                    output.writeln(item);
+
+                    return item.startsWith("bad") ? 1 : 0;
+                }
+            });
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        JobQueue queue = new JobQueue(file, application);
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue("process", parameters("item" + i));
+        }
+        assertEquals("enqueue() adds jobs to the queue", 10, queue.size());
+
+        queue.start(3);
+        waitUntilEmpty(queue);
+        queue.close();
+
+        assertEquals("start() runs every job once", 10, processed.size());
+
+        JobQueue reopened = new JobQueue(file, application);
+        assertEquals("__construct() does not recover acknowledged jobs", 0, reopened.size());
+        reopened.close();
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        JobQueue queue = new JobQueue(file, application);
+        long first = queue.enqueue("process", parameters("foo"));
+        queue.enqueue("process", parameters("bar"));
+        queue.close();
+
+        // Simulate a record torn by a crash
+        FileOutputStream stream = new FileOutputStream(file, true);
+        stream.write(new byte[] {0, 0, 0, 42, 1, 2});
+        stream.close();
+
+        queue = new JobQueue(file, application);
+        assertEquals("__construct() recovers the pending jobs", 2, queue.size());
+        assertEquals("__construct() keeps the job identifiers", first + 2, queue.enqueue("process", parameters("baz")));
+        queue.start(1);
+        waitUntilEmpty(queue);
+        queue.close();
+
+        assertEquals("start() runs the recovered jobs in order", Arrays.asList("foo", "bar", "baz"), processed);
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        JobQueue queue = new JobQueue(file, application);
+        queue.setMaxAttempts(2);
+        queue.enqueue("process", parameters("bad"));
+        queue.enqueue("process", parameters("good"));
+        queue.start(1);
+        waitUntilEmpty(queue);
+        queue.close();
+
+        assertEquals("start() retries the failing jobs", Arrays.asList("bad", "good", "bad"), processed);
+        assertEquals("start() keeps the jobs failing too many times as dead", 1, queue.getDeadJobs().size());
+        assertEquals("start() counts the attempts", 2, queue.getDeadJobs().get(0).getAttempts());
+
+        queue = new JobQueue(file, application);
+        assertEquals("__construct() does not run dead jobs again", 0, queue.size());
+        assertEquals("__construct() recovers the dead jobs", "bad", queue.getDeadJobs().get(0).getParameters().get("item"));
+        queue.close();
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        JobQueue queue = new JobQueue(file, application);
+        queue.setCompactThreshold(1);
+        queue.setBatchSize(1);
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue("process", parameters("item" + i));
+        }
+        queue.start(2);
+        waitUntilEmpty(queue);
+        queue.close();
+
+        assertEquals("start() compacts the log once the jobs are acknowledged", 0, file.length());
+    }
+
+    @Test
+    public void testOutput() throws Exception {
+        ByteArrayOutputStream display = new ByteArrayOutputStream();
+        StreamOutput output = new StreamOutput(new PrintStream(display), VerbosityLevel.NORMAL, false, null);
+        JobQueue queue = new JobQueue(file, application);
+        queue.setOutput(output);
+        queue.enqueue("process", parameters("quiet"));
+        queue.enqueue("process", parameters("bar"));
+        queue.start(1);
+        waitUntilEmpty(queue);
+        queue.close();
+
+        assertEquals("start() runs each job with its own output", String.format("bar%n"), display.toString());
+        assertEquals("start() does not change the output of the queue", VerbosityLevel.NORMAL, output.getVerbosity());
+    }
+
+    private Map<String, String> parameters(String item) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("item", item);
+
+        return parameters;
+    }
+
+    private void waitUntilEmpty(JobQueue queue) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queue.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals("start() processes the queue", 0, queue.size());
+    }
+}
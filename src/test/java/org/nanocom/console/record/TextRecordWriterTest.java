@@ -0,0 +1,64 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.record;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+public class TextRecordWriterTest {
+
+    public TextRecordWriterTest() {
+    }
+
+    @Test
+    public void testWrite() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        TextRecordWriter writer = new TextRecordWriter(new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, false, null));
+
+        writer.write(createRecord("foo", "bar\tbaz"));
+        writer.write(Arrays.asList("a<b", null));
+        writer.write(new Object[] { 1, "multi\nline" });
+        writer.write("single");
+        writer.write(Arrays.asList(null, "b"));
+        writer.write(new Object[] { "", "", "c" });
+        writer.close();
+
+        assertEquals(".write() writes raw values without header on an undecorated output", "foo\tbar\\tbaz\na<b\t\n1\tmulti\\nline\nsingle\n\tb\n\t\tc\n", stream.toString());
+        assertEquals(".getCount() returns the number of records written", 6, writer.getCount());
+    }
+
+    @Test
+    public void testWriteDecorated() {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        StreamOutput output = new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, true, null);
+        TextRecordWriter writer = new TextRecordWriter(output);
+
+        writer.write(createRecord("foo", "<bar>"));
+        writer.write(createRecord("baz", "qux"));
+
+        String[] lines = stream.toString().split("\n");
+        assertEquals(".write() writes a header and one line per record on a decorated output", 3, lines.length);
+        assertTrue(".write() writes the columns of the first record as a header", lines[0].contains("name\tvalue"));
+        assertEquals(".write() does not format the values on a decorated output", "foo\t<bar>", lines[1]);
+    }
+
+    private static Map<String, Object> createRecord(String name, String value) {
+        Map<String, Object> record = new LinkedHashMap<String, Object>();
+        record.put("name", name);
+        record.put("value", value);
+
+        return record;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.resource;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.input.InputArgument;
+import org.nanocom.console.input.InputOption;
+
+public class TextResourceTest {
+
+    private static final String HELP = "org/nanocom/console/resource/help.txt";
+    private static final String ARGUMENT = "org/nanocom/console/resource/argument.txt";
+
+    public TextResourceTest() {
+    }
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("console", "");
+        directory.delete();
+        directory.mkdir();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        TextResource.setCacheSize(TextResource.DEFAULT_CACHE_SIZE);
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testResolve() {
+        assertEquals(".resolve() returns a text which is not a reference", "foo", TextResource.resolve("foo"));
+        assertNull(".resolve() returns null for a null text", TextResource.resolve(null));
+        assertEquals(".resolve() loads the referenced resource", "The foo argument", TextResource.resolve(TextResource.ref(ARGUMENT)));
+
+        try {
+            TextResource.resolve(TextResource.ref("org/nanocom/console/resource/missing.txt"));
+            fail(".resolve() throws an IllegalArgumentException if the resource does not exist");
+        } catch (IllegalArgumentException e) {
+            assertEquals(".resolve() throws an IllegalArgumentException if the resource does not exist", "The \"org/nanocom/console/resource/missing.txt\" resource does not exist.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLiteral() {
+        assertEquals(".literal() keeps a text which is not a reference", "foo", TextResource.literal("foo"));
+        assertEquals(".resolve() returns an escaped reference as is", "resource:foo", TextResource.resolve(TextResource.literal("resource:foo")));
+        assertEquals(".resolve() returns an escaped escape as is", "\\resource:foo", TextResource.resolve(TextResource.literal("\\resource:foo")));
+        assertEquals(".resolve() keeps the other backslashes", "\\foo", TextResource.resolve("\\foo"));
+    }
+
+    @Test
+    public void testOwnerClassLoader() throws Exception {
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, null);
+        FileUtils.writeStringToFile(new File(directory, "owned.txt"), "The owned argument", "UTF-8");
+
+        InputArgument argument = new InputArgument("foo", InputArgument.OPTIONAL, TextResource.ref("owned.txt"));
+        assertEquals(".getDescription() loads the description with the class loader of the owner", "The owned argument", argument.getDescription(classLoader));
+        InputOption option = new InputOption("foo", null, InputOption.VALUE_NONE, TextResource.ref("owned.txt"));
+        assertEquals(".getDescription() loads the description with the class loader of the owner", "The owned argument", option.getDescription(classLoader));
+    }
+
+    @Test
+    public void testCache() {
+        String text = TextResource.resolve(TextResource.ref(HELP));
+        assertSame(".resolve() caches the loaded texts", text, TextResource.resolve(TextResource.ref(HELP)));
+
+        TextResource.setCacheSize(1);
+        text = TextResource.resolve(TextResource.ref(HELP));
+        TextResource.resolve(TextResource.ref(ARGUMENT));
+        assertNotSame(".resolve() evicts the least recently used texts beyond the cache size", text, TextResource.resolve(TextResource.ref(HELP)));
+    }
+
+    @Test
+    public void testCommand() {
+        Command command = new Command("foo:bar");
+        command.setHelp(TextResource.ref(HELP));
+        command.setDescription(TextResource.ref(ARGUMENT));
+        command.getDefinition().addArgument(new InputArgument("foo", InputArgument.OPTIONAL, TextResource.ref(ARGUMENT)));
+
+        assertEquals(".getDescription() loads a referenced description", "The foo argument", command.getDescription());
+        assertEquals(".getProcessedHelp() loads a referenced help", "The <info>foo:bar</info> command\nhelps.", command.getProcessedHelp());
+        assertTrue(".asText() loads the referenced argument descriptions", command.asText().contains("The foo argument"));
+    }
+}
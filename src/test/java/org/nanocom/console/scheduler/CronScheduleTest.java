@@ -0,0 +1,59 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.scheduler;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class CronScheduleTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    public CronScheduleTest() {
+    }
+
+    @Test
+    public void testNext() throws ParseException {
+        assertEquals("next() returns the next minute for * * * * *", "2013-01-07 10:16", next("* * * * *", "2013-01-07 10:15"));
+        assertEquals("next() is strictly after the given time", "2013-01-07 10:30", next("0,30 * * * *", "2013-01-07 10:00"));
+        assertEquals("next() supports steps", "2013-01-07 10:20", next("*/10 * * * *", "2013-01-07 10:15"));
+        assertEquals("next() supports ranges of hours", "2013-01-08 08:00", next("0 8-18 * * *", "2013-01-07 18:30"));
+        assertEquals("next() supports months", "2013-03-01 00:00", next("0 0 1 3 *", "2013-01-07 10:15"));
+        assertEquals("next() supports days of week", "2013-01-12 06:00", next("0 6 * * 6", "2013-01-07 10:15"));
+        assertEquals("next() treats 7 as Sunday", "2013-01-13 06:00", next("0 6 * * 7", "2013-01-07 10:15"));
+        assertEquals("next() matches either restricted day field", "2013-01-10 00:00", next("0 0 10 * 0", "2013-01-07 10:15"));
+        assertEquals("next() skips months without the day", "2013-03-31 00:00", next("0 0 31 * *", "2013-02-01 00:00"));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        for (String expression : new String[] {"* * * *", "60 * * * *", "a * * * *", "5-1 * * * *", "* * 0 * *"}) {
+            try {
+                new CronSchedule(expression, UTC);
+                fail(String.format("__construct() throws an IllegalArgumentException for \"%s\"", expression));
+            } catch (IllegalArgumentException e) {
+                assertTrue("__construct() reports the invalid expression", e.getMessage().contains(expression));
+            }
+        }
+    }
+
+    @Test
+    public void testFixedRate() {
+        assertEquals("next() adds the period", 1500, new FixedRateSchedule(500).next(1000));
+    }
+
+    private String next(String expression, String from) throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        format.setTimeZone(UTC);
+
+        return format.format(new CronSchedule(expression, UTC).next(format.parse(from).getTime()));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.scheduler;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Executable;
+import org.nanocom.console.input.InputArgument;
+import org.nanocom.console.input.InputDefinition;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.OutputInterface;
+
+public class SchedulerTest {
+
+    public SchedulerTest() {
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        File directory = new File(FileUtils.getTempDirectory(), "console-scheduler-" + System.nanoTime());
+        Application application = createApplication(0);
+        Scheduler scheduler = new Scheduler(application, 2);
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("who", "world");
+        ScheduledJob job = new ScheduledJob("greet", "greet", parameters, Schedule.every(10, TimeUnit.MILLISECONDS));
+        job.setOutputDirectory(directory);
+        scheduler.add(job);
+        scheduler.start();
+
+        try {
+            waitFor(job, 3);
+        } finally {
+            scheduler.stop();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        assertEquals("run() tracks the status code", Integer.valueOf(0), job.getLastStatusCode());
+        assertEquals("run() counts the failures", 0, job.getFailureCount());
+        assertEquals("run() writes the output of each run to a file", "Hello world" + System.getProperty("line.separator"), FileUtils.readFileToString(job.getLastOutputFile()));
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testOverlap() throws Exception {
+        Application application = createApplication(100);
+        Scheduler scheduler = new Scheduler(application, 2);
+        ScheduledJob job = new ScheduledJob("greet", "greet", Schedule.every(10, TimeUnit.MILLISECONDS));
+        scheduler.add(job);
+        scheduler.start();
+
+        try {
+            waitFor(job, 2);
+        } finally {
+            scheduler.stop();
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        assertTrue("run() skips the runs overlapping with a running one", job.getSkippedCount() > 0);
+        assertEquals("run() tracks the status code", Integer.valueOf(1), job.getLastStatusCode());
+        assertTrue("run() counts the failures", job.getFailureCount() >= 2);
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        Application application = new Application();
+        application.setAutoExit(false);
+        application.register("wait").setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                started.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return 2;
+                }
+
+                return 0;
+            }
+        });
+
+        Scheduler scheduler = new Scheduler(application, 1);
+        ScheduledJob job = new ScheduledJob("wait", "wait", Schedule.every(10, TimeUnit.MILLISECONDS));
+        scheduler.add(job);
+        scheduler.start();
+
+        assertTrue("start() runs the job", started.await(5, TimeUnit.SECONDS));
+        scheduler.stop();
+        assertTrue("stop() lets the running jobs complete", scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals("stop() does not interrupt the running jobs", Integer.valueOf(0), job.getLastStatusCode());
+    }
+
+    @Test
+    public void testDuplicateJob() {
+        Scheduler scheduler = new Scheduler(createApplication(0), 1);
+        scheduler.add(new ScheduledJob("greet", "greet", Schedule.every(1, TimeUnit.HOURS)));
+        try {
+            scheduler.add(new ScheduledJob("greet", "list", Schedule.every(1, TimeUnit.HOURS)));
+            fail("add() throws a LogicException when a job with the same name already exists");
+        } catch (RuntimeException e) {
+            assertEquals("add() throws a LogicException when a job with the same name already exists", "A job named \"greet\" already exist.", e.getMessage());
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    private Application createApplication(final long sleep) {
+        Application application = new Application();
+        application.setAutoExit(false);
+        application.register("greet")
+            .setDefinition(new InputDefinition(Arrays.<Object>asList(
+                new InputArgument("who", InputArgument.OPTIONAL, "", "you")
+            )))
+            .setCode(new Executable() {
+
+                @Override
+                protected int execute(InputInterface input, OutputInterface output) {
+                    output.writeln("Hello " + input.getArgument("who"));
+                    if (0 == sleep) {
+                        return 0;
+                    }
+
+                    try {
+                        Thread.sleep(sleep);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    return 1;
+                }
+            });
+
+        return application;
+    }
+
+    private void waitFor(ScheduledJob job, long runs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.getRunCount() < runs && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertTrue("run() runs the job on its schedule", job.getRunCount() >= runs);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.shell;
+
+import java.io.File;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class HistoryTest {
+
+    public HistoryTest() {
+    }
+
+    @Test
+    public void testAdd() {
+        History history = new History(null, 2);
+        history.add("foo");
+        history.add("foo");
+        history.add("  ");
+        assertEquals("add() ignores empty lines and repetitions", Arrays.asList("foo"), history.all());
+
+        history.add("bar");
+        history.add("baz");
+        assertEquals("add() drops the oldest lines", Arrays.asList("bar", "baz"), history.all());
+        assertEquals("last() returns the most recent line", "baz", history.last());
+    }
+
+    @Test
+    public void testSearch() {
+        History history = new History();
+        history.add("foo:bar 1");
+        history.add("list");
+        history.add("foo:bar 2");
+
+        assertEquals("search() returns the most recent line with the prefix", "foo:bar 2", history.search("foo"));
+        assertNull("search() returns null when no line matches", history.search("help"));
+        assertEquals("searchAll() returns the matching lines, most recent first", Arrays.asList("foo:bar 2", "foo:bar 1"), history.searchAll("foo"));
+    }
+
+    @Test
+    public void testSaveLoad() throws Exception {
+        File file = File.createTempFile("console", ".history");
+        file.deleteOnExit();
+
+        History history = new History(file);
+        history.add("foo");
+        history.add("bar");
+        history.save();
+
+        History loaded = new History(file);
+        loaded.load();
+        assertEquals("load() reads the lines written by save()", Arrays.asList("foo", "bar"), loaded.all());
+    }
+}
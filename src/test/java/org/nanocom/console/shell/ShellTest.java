@@ -0,0 +1,109 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.shell;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.fixtures.FooCommand;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+public class ShellTest {
+
+    public ShellTest() {
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        ByteArrayOutputStream display = new ByteArrayOutputStream();
+        Shell shell = createShell("foo:bar\nunknown\nfoo:bar\nexit\nfoo:bar\n", display);
+
+        assertEquals("run() returns the status code of the last command", 1, shell.run());
+        String output = display.toString("UTF-8");
+        assertEquals("run() runs every line against the same application until exit", 2, countMatches(output, "interact called"));
+        assertTrue("run() renders the exceptions and keeps running", output.contains("Command \"unknown\" is not defined."));
+        assertEquals("run() adds the lines to the history", 3, shell.getHistory().size());
+    }
+
+    @Test
+    public void testGlobalOptions() throws Exception {
+        ByteArrayOutputStream display = new ByteArrayOutputStream();
+        StreamOutput output = new StreamOutput(new PrintStream(display), VerbosityLevel.NORMAL, false, null);
+        Application application = new Application();
+        application.add(new FooCommand());
+        Shell shell = new Shell(application, new ByteArrayInputStream("foo:bar -q\nfoo:bar\nfoo:bar --ansi -v\n".getBytes()), output, new History());
+        shell.run();
+
+        assertEquals("execute() applies the verbosity of a line to that line only", 2, countMatches(display.toString("UTF-8"), "interact called"));
+        assertEquals("execute() restores the verbosity after each line", VerbosityLevel.NORMAL, output.getVerbosity());
+        assertFalse("execute() restores the decoration after each line", output.isDecorated());
+    }
+
+    @Test
+    public void testRunRestoresTheApplication() {
+        Application application = new Application();
+        application.add(new FooCommand());
+        application.setCatchExceptions(false);
+        new Shell(application, new ByteArrayInputStream("foo:bar\n".getBytes()), new StreamOutput(new PrintStream(new ByteArrayOutputStream()), VerbosityLevel.NORMAL, false, null), new History()).run();
+        assertTrue("run() restores the auto exit flag of the application", application.isAutoExit());
+        assertFalse("run() restores the catch exceptions flag of the application", application.isCatchExceptions());
+    }
+
+    @Test
+    public void testQuotes() throws Exception {
+        ByteArrayOutputStream display = new ByteArrayOutputStream();
+        Shell shell = createShell("\"foo:bar\"\nfoo:bar 'oops\n", display);
+        shell.run();
+
+        String output = display.toString("UTF-8");
+        assertEquals("run() tokenizes quoted words", 1, countMatches(output, "interact called"));
+        assertTrue("run() renders the unterminated quotes", output.contains("Unable to parse input near"));
+    }
+
+    @Test
+    public void testHistoryExpansion() throws Exception {
+        ByteArrayOutputStream display = new ByteArrayOutputStream();
+        Shell shell = createShell("foo:bar\nlist\n!foo\n!!\n!nope\n", display);
+        shell.run();
+
+        String output = display.toString("UTF-8");
+        assertEquals("run() expands !prefix and !! from the history", 3, countMatches(output, "interact called"));
+        assertTrue("run() reports unknown history events", output.contains("!nope: event not found"));
+    }
+
+    @Test
+    public void testComplete() {
+        Shell shell = createShell("", new ByteArrayOutputStream());
+
+        List<String> candidates = shell.complete("fo");
+        assertEquals("complete() completes command names", 1, candidates.size());
+        assertEquals("complete() completes command names", "foo:bar", candidates.get(0));
+        assertTrue("complete() completes aliases", shell.complete("").contains("afoobar"));
+        assertTrue("complete() completes the options of the command", shell.complete("foo:bar --no-").contains("--no-ansi"));
+        assertTrue("complete() completes the shortcuts of the command", shell.complete("foo:bar -").contains("-v"));
+        assertTrue("complete() does not complete arguments", shell.complete("foo:bar ").isEmpty());
+    }
+
+    private Shell createShell(String lines, ByteArrayOutputStream display) {
+        Application application = new Application();
+        application.add(new FooCommand());
+
+        StreamOutput output = new StreamOutput(new PrintStream(display), VerbosityLevel.NORMAL, false, null);
+
+        return new Shell(application, new ByteArrayInputStream(lines.getBytes()), output, new History());
+    }
+
+    private int countMatches(String haystack, String needle) {
+        return org.apache.commons.lang3.StringUtils.countMatches(haystack, needle);
+    }
+}
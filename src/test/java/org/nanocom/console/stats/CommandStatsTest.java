@@ -0,0 +1,106 @@
+/*
+ * This file is part of the Console package.
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+package org.nanocom.console.stats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.nanocom.console.Application;
+import org.nanocom.console.command.Command;
+import org.nanocom.console.command.Executable;
+import org.nanocom.console.input.ArrayInput;
+import org.nanocom.console.input.InputInterface;
+import org.nanocom.console.output.NullOutput;
+import org.nanocom.console.output.OutputInterface;
+import org.nanocom.console.output.OutputInterface.VerbosityLevel;
+import org.nanocom.console.output.StreamOutput;
+
+public class CommandStatsTest {
+
+    public CommandStatsTest() {
+    }
+
+    @Test
+    public void testRun() {
+        final List<CommandStats> recorded = new ArrayList<CommandStats>();
+        Command command = createCommand();
+
+        assertNull(".getStatsSink() returns null if accounting is disabled", command.getStatsSink());
+        command.run(new ArrayInput(new HashMap<String, String>()), new NullOutput());
+
+        command.setStatsSink(new StatsSinkInterface() {
+
+            @Override
+            public void record(CommandStats stats, OutputInterface output) {
+                recorded.add(stats);
+            }
+        });
+        command.run(new ArrayInput(new HashMap<String, String>()), new NullOutput());
+
+        assertEquals(".run() records the stats of each run", 1, recorded.size());
+        CommandStats stats = recorded.get(0);
+        assertEquals(".run() records the command name", "foo", stats.getCommandName());
+        assertEquals(".run() measures the bind, interact and execute phases", 3, stats.getPhases().size());
+
+        PhaseStats execute = stats.getPhase(CommandStats.EXECUTE);
+        assertTrue(".run() measures the wall time", execute.getWallTime() >= 0);
+        if (ResourceMeter.isCpuTimeSupported()) {
+            assertTrue(".run() measures the CPU time", execute.getCpuTime() >= 0);
+        } else {
+            assertEquals(".run() reports an unsupported CPU time", ResourceMeter.UNSUPPORTED, execute.getCpuTime());
+        }
+        if (ResourceMeter.isAllocatedBytesSupported()) {
+            assertTrue(".run() measures the allocated bytes", execute.getAllocatedBytes() >= 1024 * 1024);
+        } else {
+            assertEquals(".run() reports unsupported allocated bytes", ResourceMeter.UNSUPPORTED, execute.getAllocatedBytes());
+        }
+    }
+
+    @Test
+    public void testOutputStatsSink() {
+        Application application = new Application();
+        application.setStatsSink(new OutputStatsSink());
+        Command command = createCommand();
+        application.add(command);
+        assertTrue(".getStatsSink() returns the sink of the application by default", command.getStatsSink() instanceof OutputStatsSink);
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("command", "foo");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        command.run(new ArrayInput(parameters), new StreamOutput(new PrintStream(stream), VerbosityLevel.NORMAL, false, null));
+        assertEquals("OutputStatsSink writes nothing if the output is not verbose", "", stream.toString());
+
+        command.run(new ArrayInput(parameters), new StreamOutput(new PrintStream(stream), VerbosityLevel.VERBOSE, false, null));
+        String[] lines = stream.toString().split("\n");
+        assertEquals("OutputStatsSink writes a line per phase if the output is verbose", 3, lines.length);
+        assertTrue("OutputStatsSink writes the stats of the phases", lines[2].startsWith("[foo:execute] wall "));
+    }
+
+    private static Command createCommand() {
+        Command command = new Command("foo");
+        command.setCode(new Executable() {
+
+            @Override
+            protected int execute(InputInterface input, OutputInterface output) {
+                byte[][] buffers = new byte[16][];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = new byte[128 * 1024];
+                }
+
+                return buffers.length;
+            }
+        });
+
+        return command;
+    }
+}